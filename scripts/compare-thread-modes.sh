@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+#
+# Compares the servlet stack on the platform thread pool with the same stack on virtual threads, by running the same
+# load against POST /reviews/batch in each mode. The bucketed layout is used so that every batch fans out one bucket
+# read per review. Each run starts a fresh embedded MongoDB, seeds it and reports the load generator's summary.
+#
+# Requires Java 21, the packaged service (mvn package) and hey (https://github.com/rakyll/hey).
+#
+# Usage: scripts/compare-thread-modes.sh [concurrency] [requests]
+
+set -euo pipefail
+
+JAR=${JAR:-target/reviewservice-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-7080}
+PRODUCTS=${PRODUCTS:-100}
+ENTRIES=${ENTRIES:-5}
+CONCURRENCY=${1:-400}
+REQUESTS=${2:-50000}
+BASE_URL="http://localhost:${PORT}"
+
+start_service() {
+    java -jar "${JAR}" --server.port="${PORT}" --reviews.storage.layout=bucketed \
+        --spring.threads.virtual.enabled="$1" > "target/thread-mode-$1.log" 2>&1 &
+    SERVICE_PID=$!
+    until curl -sf "${BASE_URL}/reviews?limit=1" > /dev/null; do
+        sleep 1
+    done
+}
+
+stop_service() {
+    kill "${SERVICE_PID}"
+    wait "${SERVICE_PID}" || true
+}
+
+seed() {
+    for productId in $(seq 1 "${PRODUCTS}"); do
+        curl -sf -o /dev/null -H 'Content-Type: application/json' \
+            -d "{\"productId\":${productId},\"entries\":[]}" "${BASE_URL}/review"
+        for entry in $(seq 1 "${ENTRIES}"); do
+            curl -sf -o /dev/null -H 'Content-Type: application/json' \
+                -d "{\"username\":\"user${entry}\",\"review\":\"Review ${entry}\"}" "${BASE_URL}/review/${productId}/entry"
+        done
+    done
+}
+
+# Every seeded product in one batch, so keep PRODUCTS within the API's batch limit of 100
+BATCH="[$(seq -s, 1 "${PRODUCTS}")]"
+
+for virtual in false true; do
+    echo "== spring.threads.virtual.enabled=${virtual}, ${CONCURRENCY} concurrent clients, ${REQUESTS} requests"
+    start_service "${virtual}"
+    trap stop_service EXIT
+    seed
+
+    # Warm up before measuring
+    hey -n 2000 -c 50 -m POST -T application/json -d "${BATCH}" "${BASE_URL}/reviews/batch" > /dev/null
+    hey -n "${REQUESTS}" -c "${CONCURRENCY}" -m POST -T application/json -d "${BATCH}" "${BASE_URL}/reviews/batch"
+
+    stop_service
+    trap - EXIT
+done
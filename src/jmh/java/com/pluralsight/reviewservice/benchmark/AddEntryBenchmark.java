@@ -0,0 +1,82 @@
+package com.pluralsight.reviewservice.benchmark;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryBucket;
+import com.pluralsight.reviewservice.web.ReviewController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ReviewController.addEntryToReview through the service, cache and repository down to the embedded MongoDB,
+ * for each storage layout. Entries are appended to random reviews of a fixed set of products, and the reviews are
+ * removed before every iteration so that they grow by the same amount in each one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddEntryBenchmark {
+
+    /**
+     * The number of products whose reviews receive the entries.
+     */
+    private static final int PRODUCTS = 100;
+
+    /**
+     * The value of reviews.storage.layout.
+     */
+    @Param({"embedded", "bucketed"})
+    private String layout;
+
+    private ConfigurableApplicationContext context;
+
+    private ReviewController controller;
+
+    private MongoTemplate mongoTemplate;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, "reviews.storage.layout=" + layout);
+        controller = context.getBean(ReviewController.class);
+        mongoTemplate = context.getBean(MongoTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void removeReviews() {
+        mongoTemplate.remove(new Query(), Review.class);
+        mongoTemplate.remove(new Query(), ReviewEntryBucket.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<Review> addEntryToReview() {
+        int productId = ThreadLocalRandom.current().nextInt(PRODUCTS) + 1;
+        return controller.addEntryToReview(productId, new ReviewEntry("bench-user", "Great product, would buy again."));
+    }
+}
@@ -0,0 +1,31 @@
+package com.pluralsight.reviewservice.benchmark;
+
+import com.pluralsight.reviewservice.ReviewserviceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the review service for the benchmarks that need it, against the embedded MongoDB that it starts when no
+ * MongoDB is configured.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Starts the application on a random port, with logging of the review service turned down so that it does not
+     * swamp the JMH output.
+     * @param type          Whether to start the web server, which the controllers need.
+     * @param properties    Additional properties, as "name=value".
+     * @return              The application context, to close when the benchmark is done.
+     */
+    static ConfigurableApplicationContext start(WebApplicationType type, String... properties) {
+        return new SpringApplicationBuilder(ReviewserviceApplication.class)
+                .web(type)
+                .properties("server.port=0", "logging.level.com.pluralsight.reviewservice=WARN")
+                .properties(properties)
+                .run();
+    }
+}
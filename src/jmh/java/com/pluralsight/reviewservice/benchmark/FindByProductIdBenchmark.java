@@ -0,0 +1,92 @@
+package com.pluralsight.reviewservice.benchmark;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.repository.ReviewRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures ReviewRepository.findByProductId, below the review cache, with and without the index on productId.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindByProductIdBenchmark {
+
+    /**
+     * The number of reviews in the collection, one per product.
+     */
+    private static final int REVIEWS = 10_000;
+
+    /**
+     * The number of entries in each review.
+     */
+    private static final int ENTRIES = 5;
+
+    /**
+     * Whether the index on productId exists.
+     */
+    @Param({"true", "false"})
+    private boolean indexed;
+
+    private ConfigurableApplicationContext context;
+
+    private ReviewRepository repository;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "reviews.indexes.create=" + indexed);
+        repository = context.getBean(ReviewRepository.class);
+
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        if (!indexed) {
+            mongoTemplate.indexOps(Review.class).dropAllIndexes();
+        }
+
+        List<Review> reviews = new ArrayList<>(REVIEWS);
+        for (int productId = 1; productId <= REVIEWS; productId++) {
+            Review review = new Review(productId, 1);
+            for (int i = 0; i < ENTRIES; i++) {
+                review.getEntries().add(new ReviewEntry("user" + i, new Date(), "Review " + i + " of product " + productId));
+            }
+            review.setTotalEntries(ENTRIES);
+            reviews.add(review);
+        }
+        mongoTemplate.insert(reviews, Review.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Review> findByProductId() {
+        return repository.findByProductId(ThreadLocalRandom.current().nextInt(REVIEWS) + 1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.pluralsight.reviewservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pluralsight.reviewservice.ReviewserviceApplication;
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing a review as JSON, as every review response does, and reading it back, as the write endpoints do,
+ * for reviews of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewSerializationBenchmark {
+
+    /**
+     * The number of entries in the review.
+     */
+    @Param({"1", "100", "10000"})
+    private int entries;
+
+    private ObjectMapper objectMapper;
+
+    private Review review;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        // Configured like the application's ObjectMapper
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        new ReviewserviceApplication().dateFormatCustomizer().customize(builder);
+        objectMapper = builder.build();
+
+        review = new Review("5bf0b8bd5f8b9a2c6c3e4d21", 1, entries);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < entries; i++) {
+            review.getEntries().add(new ReviewEntry("user" + i, new Date(now - i * 60_000L),
+                    "Review " + i + ": this product does what it says, and the battery lasts all day."));
+        }
+        review.setTotalEntries(entries);
+        review.setLastEntryDate(ReviewStats.lastEntryDate(review.getEntries()));
+        json = objectMapper.writeValueAsBytes(review);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(review);
+    }
+
+    @Benchmark
+    public Review deserialize() throws IOException {
+        return objectMapper.readValue(json, Review.class);
+    }
+}
@@ -1,12 +1,26 @@
 package com.pluralsight.reviewservice;
 
+import com.fasterxml.jackson.databind.util.StdDateFormat;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ReviewserviceApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(ReviewserviceApplication.class, args);
 	}
+
+	/**
+	 * Keeps writing dates with the time zone offset as "+0000", as the API always has; newer Jackson versions write
+	 * "+00:00" by default.
+	 */
+	@Bean
+	public Jackson2ObjectMapperBuilderCustomizer dateFormatCustomizer() {
+		return builder -> builder.dateFormat(new StdDateFormat().withColonInTimeZone(false));
+	}
 }
@@ -0,0 +1,26 @@
+package com.pluralsight.reviewservice.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries ReviewInvalidations between the nodes of a deployment. The transport is selected with
+ * reviews.cache.invalidation.transport.
+ *
+ * A transport delivers every published invalidation to the listeners of every node, including the node that
+ * published it. Invalidations may arrive late, more than once or out of order: they carry the written version, so
+ * applying an old one again drops nothing that is current.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Sends an invalidation to every node.
+     * @param invalidation  The invalidation to send.
+     */
+    void publish(ReviewInvalidation invalidation);
+
+    /**
+     * Registers a listener for the invalidations published by any node from now on.
+     * @param listener  The listener, which may be called on any thread.
+     */
+    void subscribe(Consumer<ReviewInvalidation> listener);
+}
@@ -0,0 +1,29 @@
+package com.pluralsight.reviewservice.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations to the listeners in this JVM only, on the publishing thread. This is the transport of a
+ * single node, where there is nobody else to tell, and of tests that run several caches as nodes in one JVM.
+ */
+@Component
+@ConditionalOnProperty(name = "reviews.cache.invalidation.transport", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private List<Consumer<ReviewInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ReviewInvalidation invalidation) {
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<ReviewInvalidation> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,186 @@
+package com.pluralsight.reviewservice.cache;
+
+import com.mongodb.CursorType;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCursor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidations through ReviewInvalidations, a capped collection in the database the nodes already share,
+ * which every node follows with a tailable cursor. Inserts reach the other nodes within milliseconds, and the
+ * collection only ever holds the most recent invalidations, up to reviews.cache.invalidation.mongo.size.
+ *
+ * Invalidations are followed in the insertion order of the capped collection, never by comparing the clocks of the
+ * nodes. When a node loses its cursor it resumes after the last invalidation it saw; only if that has been
+ * overwritten in the meantime may it have missed some, and then it drops its whole cache.
+ */
+@Component
+@ConditionalOnProperty(name = "reviews.cache.invalidation.transport", havingValue = "mongo")
+public class MongoInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger logger = LogManager.getLogger(MongoInvalidationTransport.class);
+
+    static final String COLLECTION = "ReviewInvalidations";
+
+    /**
+     * How long a tailing cursor waits for new invalidations per round trip, and how long to wait before opening a
+     * new cursor after losing one.
+     */
+    private static final Duration AWAIT_TIME = Duration.ofSeconds(1);
+
+    private MongoTemplate mongoTemplate;
+
+    private DataSize size;
+
+    private List<Consumer<ReviewInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Runs the tailing loop and the inserts, so that publishing does not add a round trip to the write.
+     */
+    private ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("review-invalidations-", 0).factory());
+
+    private volatile boolean running;
+
+    public MongoInvalidationTransport(MongoTemplate mongoTemplate,
+                                      @Value("${reviews.cache.invalidation.mongo.size:1MB}") DataSize size) {
+        this.mongoTemplate = mongoTemplate;
+        this.size = size;
+    }
+
+    @Override
+    public void publish(ReviewInvalidation invalidation) {
+        executor.execute(() -> {
+            try {
+                mongoTemplate.insert(invalidation, COLLECTION);
+            } catch (DataAccessException e) {
+                logger.warn("Could not publish {}", invalidation, e);
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(Consumer<ReviewInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    @PostConstruct
+    void start() {
+        createCollection();
+        running = true;
+        executor.execute(this::follow);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        executor.shutdown();
+    }
+
+    /**
+     * Creates the capped collection with a first document, since a tailable cursor on an empty collection is closed
+     * right away.
+     */
+    private void createCollection() {
+        if (mongoTemplate.collectionExists(COLLECTION)) {
+            return;
+        }
+        try {
+            mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty().capped().size(size.toBytes()));
+            mongoTemplate.insert(new ReviewInvalidation(ReviewInvalidation.TRANSPORT_ORIGIN, null, null, null, 0),
+                    COLLECTION);
+        } catch (DataAccessException e) {
+            // Another node created it at the same time
+            logger.debug("Could not create {}: {}", COLLECTION, e.getMessage());
+        }
+    }
+
+    /**
+     * Delivers the invalidations inserted after this node started, reopening the cursor whenever it is lost.
+     */
+    private void follow() {
+        Object lastSeen = lastId();
+        while (running) {
+            try (MongoCursor<Document> cursor = mongoTemplate.getCollection(COLLECTION).find()
+                    .cursorType(CursorType.TailableAwait)
+                    .maxAwaitTime(AWAIT_TIME.toMillis(), TimeUnit.MILLISECONDS)
+                    .iterator()) {
+                // Skip the invalidations up to the last one delivered; the cursor returns them in insertion order
+                boolean caughtUp = lastSeen == null;
+                while (running && cursor.getServerCursor() != null) {
+                    Document document = cursor.tryNext();
+                    if (document == null) {
+                        if (!caughtUp) {
+                            // The last one delivered has been overwritten, and others with it
+                            deliver(new ReviewInvalidation(ReviewInvalidation.TRANSPORT_ORIGIN, null, null, null,
+                                    System.currentTimeMillis()));
+                            caughtUp = true;
+                        }
+                    } else if (caughtUp) {
+                        lastSeen = document.get("_id");
+                        ReviewInvalidation invalidation = mongoTemplate.getConverter().read(ReviewInvalidation.class,
+                                document);
+                        // The first document of the collection is only there to keep the cursor open
+                        if (!invalidation.isFromTransport()) {
+                            deliver(invalidation);
+                        }
+                    } else {
+                        caughtUp = document.get("_id").equals(lastSeen);
+                    }
+                }
+            } catch (MongoException e) {
+                logger.warn("Lost the cursor on {}", COLLECTION, e);
+            }
+            if (!running) {
+                return;
+            }
+
+            try {
+                Thread.sleep(AWAIT_TIME.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the ID of the last invalidation inserted, in insertion order.
+     */
+    private Object lastId() {
+        Document last = mongoTemplate.getCollection(COLLECTION).find()
+                .sort(new Document("$natural", -1))
+                .limit(1)
+                .first();
+        return last != null ? last.get("_id") : null;
+    }
+
+    private void deliver(ReviewInvalidation invalidation) {
+        for (Consumer<ReviewInvalidation> listener : listeners) {
+            try {
+                listener.accept(invalidation);
+            } catch (RuntimeException e) {
+                logger.warn("Could not apply {}", invalidation, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.pluralsight.reviewservice.cache;
+
+/**
+ * A message from the node that wrote a review to the other nodes of the deployment, telling them to drop cached
+ * copies of the review that are older than the written version. An invalidation with neither a review ID nor a
+ * product ID drops every cached review; transports deliver one locally when they may have missed invalidations.
+ */
+public class ReviewInvalidation {
+
+    /**
+     * The origin of the invalidations that a transport makes up itself rather than carries from a node.
+     */
+    static final String TRANSPORT_ORIGIN = "";
+
+    /**
+     * The ID of the node that wrote the review.
+     */
+    private String origin;
+
+    /**
+     * The ID of the written review, or null if only its product ID is known.
+     */
+    private String reviewId;
+
+    /**
+     * The product ID of the written review, if known.
+     */
+    private Integer productId;
+
+    /**
+     * The version that was written, or null if the review was deleted or its version is not known; cached copies are
+     * then dropped whatever their version.
+     */
+    private Integer version;
+
+    /**
+     * When the invalidation was published, in milliseconds since the epoch of the publishing node's clock.
+     */
+    private long publishedAt;
+
+    public ReviewInvalidation() {
+    }
+
+    public ReviewInvalidation(String origin, String reviewId, Integer productId, Integer version, long publishedAt) {
+        this.origin = origin;
+        this.reviewId = reviewId;
+        this.productId = productId;
+        this.version = version;
+        this.publishedAt = publishedAt;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getReviewId() {
+        return reviewId;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public long getPublishedAt() {
+        return publishedAt;
+    }
+
+    /**
+     * Returns true if the transport made up this invalidation rather than carried it from a node.
+     */
+    boolean isFromTransport() {
+        return origin == null || TRANSPORT_ORIGIN.equals(origin);
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewInvalidation{" +
+                "origin='" + origin + '\'' +
+                ", reviewId='" + reviewId + '\'' +
+                ", productId=" + productId +
+                ", version=" + version +
+                ", publishedAt=" + publishedAt +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package com.pluralsight.reviewservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Tells the other nodes of the deployment which reviews were written on this one, and hands the invalidations
+ * published by other nodes to the local cache, over the configured InvalidationTransport. Invalidations published
+ * by this node come back through the transport and are ignored.
+ *
+ * Invalidations that the transport makes up itself, when it may have missed some, are applied but neither counted
+ * nor timed: no node published them, so they would skew the received counts and the lag.
+ *
+ * The time from publishing an invalidation to applying it on another node is recorded as
+ * reviews.cache.invalidation.lag. It is measured with the clocks of two nodes, so it includes the difference
+ * between them.
+ */
+@Component
+public class ReviewInvalidationBus {
+
+    private InvalidationTransport transport;
+
+    /**
+     * Identifies this node as the origin of its invalidations.
+     */
+    private String nodeId;
+
+    private Counter published;
+
+    private Counter evicted;
+
+    private Counter current;
+
+    private Timer lag;
+
+    public ReviewInvalidationBus(InvalidationTransport transport, MeterRegistry registry,
+                                 @Value("${reviews.cache.invalidation.node-id:}") String nodeId) {
+        this.transport = transport;
+        this.nodeId = nodeId.isEmpty() ? UUID.randomUUID().toString() : nodeId;
+
+        this.published = Counter.builder("reviews.cache.invalidations.published")
+                .description("Invalidations published for reviews written on this node")
+                .register(registry);
+        this.evicted = Counter.builder("reviews.cache.invalidations.received")
+                .description("Invalidations received from other nodes")
+                .tag("outcome", "evicted")
+                .register(registry);
+        this.current = Counter.builder("reviews.cache.invalidations.received")
+                .description("Invalidations received from other nodes")
+                .tag("outcome", "current")
+                .register(registry);
+        this.lag = Timer.builder("reviews.cache.invalidation.lag")
+                .description("Time from publishing an invalidation on one node to applying it on another")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Tells the other nodes that a review was written or deleted.
+     * @param reviewId  The ID of the review, or null if only its product ID is known.
+     * @param productId The product ID of the review, if known.
+     * @param version   The version that was written, or null if the review was deleted or the version is unknown.
+     */
+    public void publish(String reviewId, Integer productId, Integer version) {
+        transport.publish(new ReviewInvalidation(nodeId, reviewId, productId, version, System.currentTimeMillis()));
+        published.increment();
+    }
+
+    /**
+     * Registers the local cache for the invalidations published by other nodes.
+     * @param listener  Applies an invalidation and returns true if that dropped a cached review.
+     */
+    public void subscribe(Predicate<ReviewInvalidation> listener) {
+        transport.subscribe(invalidation -> {
+            if (nodeId.equals(invalidation.getOrigin())) {
+                return;
+            }
+            if (invalidation.isFromTransport()) {
+                listener.test(invalidation);
+                return;
+            }
+            boolean dropped = listener.test(invalidation);
+            lag.record(Math.max(0, System.currentTimeMillis() - invalidation.getPublishedAt()), TimeUnit.MILLISECONDS);
+            (dropped ? evicted : current).increment();
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.pluralsight.reviewservice.metrics;
+
+import com.mongodb.MongoClientSettings;
+import com.pluralsight.reviewservice.model.Review;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the BSON size of every Review document that is read, and of every Review document that is inserted or
+ * saved whole, as the reviews.document.size distribution. Entry appends are updates rather than document writes that
+ * return the review without its entries, so the size they lead to only shows up when the review is next read.
+ *
+ * Sizing a document encodes it once more, so this can be turned off with reviews.metrics.document-sizes=false.
+ */
+@Component
+@ConditionalOnProperty(name = "reviews.metrics.document-sizes", havingValue = "true", matchIfMissing = true)
+public class ReviewDocumentSizeListener extends AbstractMongoEventListener<Review> {
+
+    private static final Codec<Document> DOCUMENT_CODEC = MongoClientSettings.getDefaultCodecRegistry().get(Document.class);
+
+    /**
+     * MongoDB's maximum document size, the largest size the distribution needs buckets for.
+     */
+    private static final double MAX_DOCUMENT_SIZE = 16 * 1024 * 1024;
+
+    private DistributionSummary reads;
+    private DistributionSummary writes;
+
+    public ReviewDocumentSizeListener(MeterRegistry registry) {
+        this.reads = documentSize(registry, "read");
+        this.writes = documentSize(registry, "write");
+    }
+
+    @Override
+    public void onAfterLoad(AfterLoadEvent<Review> event) {
+        record(reads, event.getDocument());
+    }
+
+    @Override
+    public void onBeforeSave(BeforeSaveEvent<Review> event) {
+        record(writes, event.getDocument());
+    }
+
+    /**
+     * Returns the size of a document as MongoDB stores it.
+     */
+    static int size(Document document) {
+        return new RawBsonDocument(document, DOCUMENT_CODEC).getByteBuffer().remaining();
+    }
+
+    private static void record(DistributionSummary summary, Document document) {
+        if (document != null) {
+            summary.record(size(document));
+        }
+    }
+
+    private static DistributionSummary documentSize(MeterRegistry registry, String operation) {
+        return DistributionSummary.builder("reviews.document.size")
+                .description("Size of Review documents")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(64.0)
+                .maximumExpectedValue(MAX_DOCUMENT_SIZE)
+                .register(registry);
+    }
+}
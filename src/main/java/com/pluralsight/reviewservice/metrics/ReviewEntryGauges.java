@@ -0,0 +1,59 @@
+package com.pluralsight.reviewservice.metrics;
+
+import com.pluralsight.reviewservice.model.ReviewEntryTotals;
+import com.pluralsight.reviewservice.repository.ReviewRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the number of reviews and how many entries they hold as gauges. Counting reads every review, so the
+ * totals are refreshed every reviews.metrics.entries.refresh-interval instead of on every scrape.
+ */
+@Component
+public class ReviewEntryGauges {
+
+    private static final Logger logger = LogManager.getLogger(ReviewEntryGauges.class);
+
+    private ReviewRepository repository;
+
+    /**
+     * The totals of the last refresh, which the gauges report.
+     */
+    private volatile ReviewEntryTotals totals = new ReviewEntryTotals();
+
+    public ReviewEntryGauges(ReviewRepository repository, MeterRegistry registry) {
+        this.repository = repository;
+
+        Gauge.builder("reviews.count", this, gauges -> gauges.totals.getReviews())
+                .description("Number of reviews")
+                .register(registry);
+        Gauge.builder("reviews.entries", this, gauges -> gauges.totals.getEntries())
+                .description("Number of entries over all reviews")
+                .register(registry);
+        Gauge.builder("reviews.entries.per.review", this, gauges -> gauges.totals.getMaxEntries())
+                .description("Number of entries per review")
+                .tag("statistic", "max")
+                .register(registry);
+        Gauge.builder("reviews.entries.per.review", this, gauges -> gauges.totals.getMeanEntries())
+                .description("Number of entries per review")
+                .tag("statistic", "mean")
+                .register(registry);
+    }
+
+    /**
+     * Counts the reviews and their entries again. A failed refresh keeps reporting the previous totals.
+     */
+    @Scheduled(fixedDelayString = "${reviews.metrics.entries.refresh-interval:PT1M}")
+    public void refresh() {
+        try {
+            totals = repository.findEntryTotals();
+        } catch (DataAccessException e) {
+            logger.warn("Could not refresh the review entry gauges", e);
+        }
+    }
+}
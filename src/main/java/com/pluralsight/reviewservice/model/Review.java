@@ -1,14 +1,27 @@
 package com.pluralsight.reviewservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
  * A Review document.
+ *
+ * The entries of every user are indexed by date, so that they can be listed across products without reading the
+ * reviews that the user has not written in, and so are all entries, so that the newest ones can be listed without
+ * reading the reviews that have not been written in lately.
  */
-@Document(collection = "Reviews")
+@CompoundIndexes({
+        @CompoundIndex(name = "entries_username_date", def = "{'entries.username': 1, 'entries.date': -1}"),
+        @CompoundIndex(name = "entries_date", def = "{'entries.date': -1}")
+})
+@Document(collection = "Reviews", language = "none")
 public class Review {
     /**
      * The ID, or primary key, of the Review, as generated by MongoDB.
@@ -16,8 +29,9 @@ public class Review {
     private String id;
 
     /**
-     * The product ID for which this review is applicable.
+     * The product ID for which this review is applicable. There is exactly one review per product.
      */
+    @Indexed(unique = true)
     private Integer productId;
 
     /**
@@ -26,10 +40,36 @@ public class Review {
     private Integer version = 1;
 
     /**
-     * A list of review entries - these contain user reviews of the product.
+     * A list of review entries - these contain user reviews of the product. With the bucketed storage layout, the
+     * entries are stored in ReviewEntryBucket documents and only entries that have not been moved there yet are
+     * stored here.
      */
     private List<ReviewEntry> entries = new ArrayList<>();
 
+    /**
+     * With the bucketed storage layout, the number of entry slots in use in ReviewEntryBucket documents, up to the
+     * last recorded append.
+     */
+    private Integer entryCount;
+
+    /**
+     * With the bucketed storage layout, identifies the generation of ReviewEntryBucket documents that holds the
+     * entries. Replacing the entries of a review starts a new generation, so the buckets of the previous one can
+     * be discarded without affecting readers.
+     */
+    private String bucketEpoch;
+
+    /**
+     * The total number of entries in the review, maintained with every write so that it can be read without the
+     * entries. Null for reviews that have not been written since the aggregates were introduced.
+     */
+    private Integer totalEntries;
+
+    /**
+     * The date of the most recent entry, maintained with every write along with totalEntries.
+     */
+    private Date lastEntryDate;
+
     public Review() {
     }
 
@@ -81,13 +121,50 @@ public class Review {
         return entries;
     }
 
+    @JsonIgnore
+    public Integer getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(Integer entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    @JsonIgnore
+    public String getBucketEpoch() {
+        return bucketEpoch;
+    }
+
+    public void setBucketEpoch(String bucketEpoch) {
+        this.bucketEpoch = bucketEpoch;
+    }
+
+    public Integer getTotalEntries() {
+        return totalEntries;
+    }
+
+    public void setTotalEntries(Integer totalEntries) {
+        this.totalEntries = totalEntries;
+    }
+
+    public Date getLastEntryDate() {
+        return lastEntryDate;
+    }
+
+    public void setLastEntryDate(Date lastEntryDate) {
+        this.lastEntryDate = lastEntryDate;
+    }
+
     @Override
     public String toString() {
         return "Review{" +
                 "id='" + id + '\'' +
                 ", productId=" + productId +
                 ", version=" + version +
-                ", entries=" + entries +
+                ", entryCount=" + entryCount +
+                ", totalEntries=" + totalEntries +
+                ", lastEntryDate=" + lastEntryDate +
+                ", entries.size=" + entries.size() +
                 '}';
     }
 }
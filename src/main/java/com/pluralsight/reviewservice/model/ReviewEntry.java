@@ -1,14 +1,21 @@
 package com.pluralsight.reviewservice.model;
 
+import org.springframework.data.mongodb.core.index.TextIndexed;
+
 import java.util.Date;
 
 /**
  * A review entry. An entry is a user's review of a product and is contained in a Review document.
+ *
+ * The username and text of the entries are covered by the text index of the documents that contain them. Those
+ * documents set the language to "none", so the index matches whole words without stemming or stop words, the same
+ * way that the entries of a matching document are picked out; see ReviewEntryQueries.
  */
 public class ReviewEntry {
     /**
      * The username of the reviewer.
      */
+    @TextIndexed
     private String username;
 
     /**
@@ -19,6 +26,7 @@ public class ReviewEntry {
     /**
      * The textual review content.
      */
+    @TextIndexed
     private String review;
 
     public ReviewEntry() {
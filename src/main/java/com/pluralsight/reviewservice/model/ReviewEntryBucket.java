@@ -0,0 +1,125 @@
+package com.pluralsight.reviewservice.model;
+
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed-size bucket of review entries, used by the bucketed storage layout so that the entries of a review are
+ * spread over many small documents instead of growing a single Review document without bound.
+ *
+ * Every entry of a review has a slot number, allocated by the write that appends the entry to a bucket. Slot n is
+ * stored in the bucket with sequence n / SIZE, and the entries of a review are the entries of its buckets ordered by
+ * slot.
+ */
+@Document(collection = "ReviewEntryBuckets", language = "none")
+@CompoundIndexes({
+        @CompoundIndex(name = "reviewId_epoch_sequence", def = "{'reviewId': 1, 'epoch': 1, 'sequence': 1}", unique = true),
+        @CompoundIndex(name = "entries_username_date", def = "{'entries.username': 1, 'entries.date': -1}"),
+        @CompoundIndex(name = "entries_date", def = "{'entries.date': -1}")
+})
+public class ReviewEntryBucket {
+    /**
+     * The maximum number of entries per bucket.
+     */
+    public static final int SIZE = 200;
+
+    /**
+     * The ID of the bucket, as generated by MongoDB.
+     */
+    private String id;
+
+    /**
+     * The ID of the review to which the entries belong.
+     */
+    private String reviewId;
+
+    /**
+     * The bucket generation of the review to which this bucket belongs; see Review.bucketEpoch.
+     */
+    private String epoch;
+
+    /**
+     * The position of this bucket in the review: it holds slots sequence * SIZE up to (sequence + 1) * SIZE - 1.
+     */
+    private int sequence;
+
+    /**
+     * The product ID of the review, so that entries can be queried by product without a join.
+     */
+    private Integer productId;
+
+    /**
+     * The entries in this bucket, in the order in which they were pushed.
+     */
+    private List<Entry> entries = new ArrayList<>();
+
+    public ReviewEntryBucket() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getReviewId() {
+        return reviewId;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the bucket sequence that holds the specified slot.
+     * @param slot  The slot of an entry.
+     * @return      The sequence of the bucket that holds the slot.
+     */
+    public static int sequenceOf(int slot) {
+        return slot / SIZE;
+    }
+
+    /**
+     * A review entry along with its slot in the review.
+     */
+    public static class Entry extends ReviewEntry {
+        /**
+         * The slot of this entry in the review.
+         */
+        private int slot;
+
+        public Entry() {
+        }
+
+        public Entry(int slot, ReviewEntry entry) {
+            super(entry.getUsername(), entry.getDate(), entry.getReview());
+            this.slot = slot;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        /**
+         * Returns this entry without its slot.
+         * @return  A plain review entry.
+         */
+        public ReviewEntry toReviewEntry() {
+            return new ReviewEntry(getUsername(), getDate(), getReview());
+        }
+    }
+}
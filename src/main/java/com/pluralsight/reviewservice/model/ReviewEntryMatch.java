@@ -0,0 +1,120 @@
+package com.pluralsight.reviewservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Comparator;
+
+/**
+ * A review entry found by a query across reviews, along with the review and product to which it belongs.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReviewEntryMatch extends ReviewEntry {
+    /**
+     * Orders search results by relevance, most relevant first, then newest first.
+     */
+    public static final Comparator<ReviewEntryMatch> BY_SCORE = Comparator
+            .comparing(ReviewEntryMatch::getScore, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ReviewEntryMatch::getDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ReviewEntryMatch::getReviewId);
+
+    /**
+     * Orders entries by date, newest first, then by review ID, then by position, last first, which is the order of
+     * keyset pages of entries.
+     */
+    public static final Comparator<ReviewEntryMatch> NEWEST_FIRST = Comparator
+            .comparing(ReviewEntryMatch::getDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ReviewEntryMatch::getReviewId)
+            .thenComparing(ReviewEntryMatch::getPosition, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    /**
+     * The ID of the review that contains the entry.
+     */
+    private String reviewId;
+
+    /**
+     * The product ID for which the review is applicable.
+     */
+    private Integer productId;
+
+    /**
+     * The text search relevance of the review, or of the bucket of entries, in which the entry was found; null for
+     * queries that are not text searches.
+     */
+    private Double score;
+
+    /**
+     * With the bucketed storage layout, the bucket generation in which the entry was found, or null if it was found
+     * in the review's own document.
+     */
+    private String epoch;
+
+    /**
+     * The position of the entry within its review, which tells apart entries of the same review with the same date
+     * in keyset pages; null for queries that are not paged by keyset.
+     */
+    private Integer position;
+
+    public ReviewEntryMatch() {
+    }
+
+    public ReviewEntryMatch(String reviewId, Integer productId, String epoch, ReviewEntry entry) {
+        super(entry.getUsername(), entry.getDate(), entry.getReview());
+        this.reviewId = reviewId;
+        this.productId = productId;
+        this.epoch = epoch;
+    }
+
+    public String getReviewId() {
+        return reviewId;
+    }
+
+    public void setReviewId(String reviewId) {
+        this.reviewId = reviewId;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
+    @JsonIgnore
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+
+    @JsonIgnore
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewEntryMatch{" +
+                "reviewId='" + reviewId + '\'' +
+                ", productId=" + productId +
+                ", score=" + score +
+                ", username='" + getUsername() + '\'' +
+                ", date=" + getDate() +
+                '}';
+    }
+}
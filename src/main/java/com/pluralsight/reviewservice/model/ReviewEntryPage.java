@@ -0,0 +1,134 @@
+package com.pluralsight.reviewservice.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of the entries of a review, along with the total number of entries in the review.
+ */
+public class ReviewEntryPage {
+    /**
+     * The ID of the review that contains the entries.
+     */
+    private String id;
+
+    /**
+     * The product ID for which the review is applicable.
+     */
+    private Integer productId;
+
+    /**
+     * The version of the review from which the page was read.
+     */
+    private Integer version;
+
+    /**
+     * The total number of entries in the review.
+     */
+    private int total;
+
+    /**
+     * The number of entries skipped before this page, counted in the page's sort order.
+     */
+    private int offset;
+
+    /**
+     * The entries in this page.
+     */
+    private List<ReviewEntry> entries = new ArrayList<>();
+
+    public ReviewEntryPage() {
+    }
+
+    public ReviewEntryPage(String id, Integer productId, Integer version, int total, int offset, List<ReviewEntry> entries) {
+        this.id = id;
+        this.productId = productId;
+        this.version = version;
+        this.total = total;
+        this.offset = offset;
+        this.entries = entries;
+    }
+
+    /**
+     * Builds a page from a fully loaded review. Entries are stored in the order in which they were written, which
+     * is the order of their dates.
+     * @param review        The review from which to take the entries.
+     * @param offset        The number of entries to skip.
+     * @param limit         The maximum number of entries in the page.
+     * @param newestFirst   True to page from the newest entry backwards, false to page from the oldest forwards.
+     * @return              The page.
+     */
+    public static ReviewEntryPage of(Review review, int offset, int limit, boolean newestFirst) {
+        List<ReviewEntry> entries = review.getEntries();
+        int total = entries.size();
+        int start = newestFirst ? Math.max(0, total - offset - limit) : Math.min(offset, total);
+        int end = newestFirst ? Math.max(0, total - offset) : Math.min(offset + limit, total);
+
+        List<ReviewEntry> page = new ArrayList<>(entries.subList(start, end));
+        if (newestFirst) {
+            Collections.reverse(page);
+        }
+        return new ReviewEntryPage(review.getId(), review.getProductId(), review.getVersion(), total, offset, page);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
+
+    public List<ReviewEntry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<ReviewEntry> entries) {
+        this.entries = entries;
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewEntryPage{" +
+                "id='" + id + '\'' +
+                ", productId=" + productId +
+                ", version=" + version +
+                ", total=" + total +
+                ", offset=" + offset +
+                ", entries=" + entries +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package com.pluralsight.reviewservice.model;
+
+/**
+ * How many entries the reviews hold across all products.
+ */
+public class ReviewEntryTotals {
+    /**
+     * The number of reviews.
+     */
+    private long reviews;
+
+    /**
+     * The total number of entries over all reviews.
+     */
+    private long entries;
+
+    /**
+     * The number of entries of the largest review.
+     */
+    private int maxEntries;
+
+    public ReviewEntryTotals() {
+    }
+
+    public ReviewEntryTotals(long reviews, long entries, int maxEntries) {
+        this.reviews = reviews;
+        this.entries = entries;
+        this.maxEntries = maxEntries;
+    }
+
+    public long getReviews() {
+        return reviews;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the average number of entries per review, or 0 if there are no reviews.
+     */
+    public double getMeanEntries() {
+        return reviews == 0 ? 0 : (double) entries / reviews;
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewEntryTotals{" +
+                "reviews=" + reviews +
+                ", entries=" + entries +
+                ", maxEntries=" + maxEntries +
+                '}';
+    }
+}
@@ -0,0 +1,121 @@
+package com.pluralsight.reviewservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A change to a review, as read from the change stream of the Reviews collection and streamed by
+ * GET /reviews/events. Events only identify the review and its new version; consumers that need the whole review
+ * read it with GET /review/{id}.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ReviewEvent {
+
+    public enum Type {
+        /**
+         * A review was created, by a POST or by the first entry of a product.
+         */
+        CREATED,
+
+        /**
+         * A review was replaced.
+         */
+        UPDATED,
+
+        /**
+         * An entry was added to a review.
+         */
+        ENTRY,
+
+        /**
+         * A review was deleted. Only the review ID is known.
+         */
+        DELETED
+    }
+
+    /**
+     * The token to resume the change stream after this event.
+     */
+    @JsonIgnore
+    private String resumeToken;
+
+    private Type type;
+
+    private String reviewId;
+
+    private Integer productId;
+
+    /**
+     * The version of the review written by the change, or null for deletions.
+     */
+    private Integer version;
+
+    /**
+     * The total number of entries after the change, if the change maintained it.
+     */
+    private Integer totalEntries;
+
+    /**
+     * For ENTRY events in the embedded storage layout, the added entries. In the bucketed layout the entries are
+     * written to ReviewEntryBuckets and this is empty.
+     */
+    private List<ReviewEntry> entries = new ArrayList<>();
+
+    public ReviewEvent() {
+    }
+
+    public ReviewEvent(String resumeToken, Type type, String reviewId, Integer productId, Integer version) {
+        this.resumeToken = resumeToken;
+        this.type = type;
+        this.reviewId = reviewId;
+        this.productId = productId;
+        this.version = version;
+    }
+
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getReviewId() {
+        return reviewId;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public Integer getTotalEntries() {
+        return totalEntries;
+    }
+
+    public void setTotalEntries(Integer totalEntries) {
+        this.totalEntries = totalEntries;
+    }
+
+    public List<ReviewEntry> getEntries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewEvent{" +
+                "type=" + type +
+                ", reviewId='" + reviewId + '\'' +
+                ", productId=" + productId +
+                ", version=" + version +
+                ", totalEntries=" + totalEntries +
+                ", entries.size=" + entries.size() +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package com.pluralsight.reviewservice.model;
+
+/**
+ * A record of a bulk import that could not be parsed or written.
+ */
+public class ReviewImportFailure {
+    /**
+     * The line of the upload on which the record was found.
+     */
+    private long line;
+
+    /**
+     * Why the record failed.
+     */
+    private String message;
+
+    public ReviewImportFailure() {
+    }
+
+    public ReviewImportFailure(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewImportFailure{" +
+                "line=" + line +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
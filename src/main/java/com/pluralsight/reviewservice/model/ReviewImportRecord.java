@@ -0,0 +1,74 @@
+package com.pluralsight.reviewservice.model;
+
+/**
+ * A record of a bulk import: either a whole review to insert, or an entry to append to the review of a product.
+ */
+public class ReviewImportRecord {
+    /**
+     * The line of the upload on which the record was found, for reporting failures.
+     */
+    private long line;
+
+    /**
+     * The review to insert, or null if this record is an entry.
+     */
+    private Review review;
+
+    /**
+     * The product ID of the review to which to append the entry, or null if this record is a review.
+     */
+    private Integer productId;
+
+    /**
+     * The entry to append, or null if this record is a review.
+     */
+    private ReviewEntry entry;
+
+    private ReviewImportRecord(long line, Review review, Integer productId, ReviewEntry entry) {
+        this.line = line;
+        this.review = review;
+        this.productId = productId;
+        this.entry = entry;
+    }
+
+    /**
+     * Creates a record that inserts a review.
+     * @param line      The line of the upload on which the record was found.
+     * @param review    The review to insert.
+     * @return          The record.
+     */
+    public static ReviewImportRecord ofReview(long line, Review review) {
+        return new ReviewImportRecord(line, review, null, null);
+    }
+
+    /**
+     * Creates a record that appends an entry to the review of a product.
+     * @param line      The line of the upload on which the record was found.
+     * @param productId The product ID of the review to which to append the entry.
+     * @param entry     The entry to append.
+     * @return          The record.
+     */
+    public static ReviewImportRecord ofEntry(long line, Integer productId, ReviewEntry entry) {
+        return new ReviewImportRecord(line, null, productId, entry);
+    }
+
+    public boolean isEntry() {
+        return entry != null;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public Review getReview() {
+        return review;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public ReviewEntry getEntry() {
+        return entry;
+    }
+}
@@ -0,0 +1,80 @@
+package com.pluralsight.reviewservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a bulk import.
+ */
+public class ReviewImportReport {
+    /**
+     * The maximum number of failures that are listed individually, so that the report of a bad upload stays small.
+     */
+    public static final int MAX_LISTED_FAILURES = 1000;
+
+    /**
+     * The number of records in the upload.
+     */
+    private long records;
+
+    /**
+     * The number of records that were written.
+     */
+    private long imported;
+
+    /**
+     * The number of records that could not be parsed or written.
+     */
+    private long failed;
+
+    /**
+     * The first MAX_LISTED_FAILURES failures.
+     */
+    private List<ReviewImportFailure> failures = new ArrayList<>();
+
+    public ReviewImportReport() {
+    }
+
+    /**
+     * Adds the outcome of a batch of records to the report.
+     * @param batchSize The number of records in the batch.
+     * @param failures  The records of the batch that failed.
+     */
+    public void addBatch(int batchSize, List<ReviewImportFailure> failures) {
+        records += batchSize;
+        imported += batchSize - failures.size();
+        failures.forEach(this::listFailure);
+    }
+
+    /**
+     * Adds a record that could not be parsed to the report.
+     * @param failure   The failure.
+     */
+    public void addFailure(ReviewImportFailure failure) {
+        records++;
+        listFailure(failure);
+    }
+
+    private void listFailure(ReviewImportFailure failure) {
+        if (failures.size() < MAX_LISTED_FAILURES) {
+            failures.add(failure);
+        }
+        failed++;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<ReviewImportFailure> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,100 @@
+package com.pluralsight.reviewservice.model;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The aggregates of a review that listing pages show: how many entries it has and when the latest was written.
+ */
+public class ReviewStats {
+    /**
+     * The ID of the review.
+     */
+    private String id;
+
+    /**
+     * The product ID for which the review is applicable.
+     */
+    private Integer productId;
+
+    /**
+     * The version of the review from which the aggregates were read.
+     */
+    private Integer version;
+
+    /**
+     * The total number of entries in the review.
+     */
+    private int entryCount;
+
+    /**
+     * The date of the most recent entry, or null if the review has no entries.
+     */
+    private Date lastEntryDate;
+
+    public ReviewStats() {
+    }
+
+    public ReviewStats(String id, Integer productId, Integer version, int entryCount, Date lastEntryDate) {
+        this.id = id;
+        this.productId = productId;
+        this.version = version;
+        this.entryCount = entryCount;
+        this.lastEntryDate = lastEntryDate;
+    }
+
+    /**
+     * Computes the aggregates of a review from its entries.
+     * @param review    The review, with all of its entries.
+     * @return          The aggregates of the review.
+     */
+    public static ReviewStats of(Review review) {
+        return new ReviewStats(review.getId(), review.getProductId(), review.getVersion(),
+                review.getEntries().size(), lastEntryDate(review.getEntries()));
+    }
+
+    /**
+     * Returns the date of the most recent of the specified entries.
+     * @param entries   The entries.
+     * @return          The latest entry date, or null if there are no entries with a date.
+     */
+    public static Date lastEntryDate(List<ReviewEntry> entries) {
+        return entries.stream()
+                .map(ReviewEntry::getDate)
+                .filter(Objects::nonNull)
+                .max(Date::compareTo)
+                .orElse(null);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public Date getLastEntryDate() {
+        return lastEntryDate;
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewStats{" +
+                "id='" + id + '\'' +
+                ", productId=" + productId +
+                ", version=" + version +
+                ", entryCount=" + entryCount +
+                ", lastEntryDate=" + lastEntryDate +
+                '}';
+    }
+}
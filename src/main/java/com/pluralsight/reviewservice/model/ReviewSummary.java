@@ -0,0 +1,85 @@
+package com.pluralsight.reviewservice.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A summary of a review: its entry count and its most recent entries, without the rest of its history.
+ */
+public class ReviewSummary {
+    /**
+     * The ID of the review.
+     */
+    private String id;
+
+    /**
+     * The product ID for which the review is applicable.
+     */
+    private Integer productId;
+
+    /**
+     * The version of the review from which the summary was read.
+     */
+    private Integer version;
+
+    /**
+     * The total number of entries in the review.
+     */
+    private int entryCount;
+
+    /**
+     * The most recent entries of the review, newest first.
+     */
+    private List<ReviewEntry> latestEntries = new ArrayList<>();
+
+    public ReviewSummary() {
+    }
+
+    public ReviewSummary(String id, Integer productId, Integer version, int entryCount, List<ReviewEntry> latestEntries) {
+        this.id = id;
+        this.productId = productId;
+        this.version = version;
+        this.entryCount = entryCount;
+        this.latestEntries = latestEntries;
+    }
+
+    /**
+     * Builds a summary from the first page of a review's entries, newest first.
+     * @param page  The first page of the review's entries, newest first.
+     * @return      The summary.
+     */
+    public static ReviewSummary of(ReviewEntryPage page) {
+        return new ReviewSummary(page.getId(), page.getProductId(), page.getVersion(), page.getTotal(), page.getEntries());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public List<ReviewEntry> getLatestEntries() {
+        return latestEntries;
+    }
+
+    @Override
+    public String toString() {
+        return "ReviewSummary{" +
+                "id='" + id + '\'' +
+                ", productId=" + productId +
+                ", version=" + version +
+                ", entryCount=" + entryCount +
+                ", latestEntries=" + latestEntries +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.Review;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveReviewRepository extends ReactiveMongoRepository<Review, String>, ReactiveReviewRepositoryCustom {
+
+    Mono<Review> findByProductId(Integer productId);
+
+    Flux<Review> findByProductIdIn(Collection<Integer> productIds);
+}
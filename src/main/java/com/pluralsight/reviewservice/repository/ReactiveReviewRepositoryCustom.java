@@ -0,0 +1,140 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The reactive counterparts of the custom review operations in ReviewRepositoryCustom; see there for details.
+ */
+public interface ReactiveReviewRepositoryCustom {
+    /**
+     * Atomically appends an entry to the review for the specified product, creating the review if it does not
+     * exist yet, and increments the review's version.
+     *
+     * @param productId The product ID of the review to which to append the entry.
+     * @param entry     The entry to append.
+     * @return          The updated review.
+     */
+    Mono<Review> appendEntry(Integer productId, ReviewEntry entry);
+
+    /**
+     * Replaces the product ID and entries of a review and increments its version, but only if the stored review is
+     * still at the version carried by the specified review.
+     *
+     * @param review    The new state of the review; its version is the version the caller expects to replace.
+     * @return          The updated review, or empty if the review does not exist or is at a different version.
+     */
+    Mono<Review> compareAndSet(Review review);
+
+    /**
+     * Returns a page of reviews ordered by ID, starting after the specified ID.
+     *
+     * @param afterId   The ID of the last review of the previous page, or null to start from the beginning.
+     * @param limit     The maximum number of reviews to return.
+     * @return          The reviews in the page, ordered by ID.
+     */
+    Flux<Review> findPage(String afterId, int limit);
+
+    /**
+     * Streams all reviews, ordered by ID, from a MongoDB cursor. Batches are only fetched from the server as the
+     * subscriber requests more reviews, so a slow subscriber slows down the cursor instead of buffering reviews.
+     *
+     * @return          All reviews.
+     */
+    Flux<Review> streamAll();
+
+    /**
+     * Returns the version of the review with the specified ID, reading only the version field.
+     *
+     * @param id        The ID of the review.
+     * @return          The version of the review, or empty if there is no review with the specified ID.
+     */
+    Mono<Integer> findVersionById(String id);
+
+    /**
+     * Returns the version of the review for the specified product, reading only the version field.
+     *
+     * @param productId The product ID of the review.
+     * @return          The version of the review, or empty if there is no review for the specified product.
+     */
+    Mono<Integer> findVersionByProductId(Integer productId);
+
+    /**
+     * Returns a page of the entries of the review with the specified ID, cut out of the entries array on the server.
+     *
+     * @param id            The ID of the review.
+     * @param offset        The number of entries to skip.
+     * @param limit         The maximum number of entries to return.
+     * @param newestFirst   True to page from the newest entry backwards, false to page from the oldest forwards.
+     * @return              The page of entries, or empty if there is no review with the specified ID.
+     */
+    Mono<ReviewEntryPage> findEntryPage(String id, int offset, int limit, boolean newestFirst);
+
+    /**
+     * Returns the newest entries of the reviews of the specified products with a single query.
+     *
+     * @param productIds    The product IDs.
+     * @param limit         The maximum number of entries to return per review.
+     * @return              The first page of entries, newest first, of the reviews that exist, in no particular order.
+     */
+    Flux<ReviewEntryPage> findLatestEntriesByProductIds(Collection<Integer> productIds, int limit);
+
+    /**
+     * Searches the text and usernames of the entries of all reviews with the text index.
+     *
+     * @param text      The words to search for, in the syntax of $text.
+     * @param offset    The number of matching entries to skip.
+     * @param limit     The maximum number of entries to return.
+     * @return          The matching entries, ordered by the relevance of their review, then newest first.
+     */
+    Flux<ReviewEntryMatch> searchEntries(String text, int offset, int limit);
+
+    /**
+     * Returns a page of the entries that a user wrote across all reviews, newest first.
+     *
+     * @param username  The username of the entries.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    Flux<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit);
+
+    /**
+     * Returns a page of the newest entries of all reviews since a date, newest first.
+     *
+     * @param since     The date of the oldest entries to return.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    Flux<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit);
+
+    /**
+     * Returns the aggregates of the reviews of the specified products, projected on the server so that entries are
+     * never transferred.
+     *
+     * @param productIds    The product IDs.
+     * @return              The aggregates of the reviews that exist, in no particular order.
+     */
+    Flux<ReviewStats> findStats(Collection<Integer> productIds);
+
+    /**
+     * Writes a batch of imported records with a single unordered bulk write, then recomputes the aggregates of the
+     * reviews that entries were appended to.
+     *
+     * @param records   The records to write; reviews must already carry their version and aggregates.
+     * @return          The records that failed, identified by their line.
+     */
+    Mono<List<ReviewImportFailure>> bulkImport(List<ReviewImportRecord> records);
+}
@@ -0,0 +1,176 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReactiveMongoTemplate backed implementation of the custom review operations, with the same queries and updates as
+ * ReviewRepositoryCustomImpl.
+ */
+public class ReactiveReviewRepositoryCustomImpl implements ReactiveReviewRepositoryCustom {
+
+    private ReactiveMongoOperations mongoOperations;
+
+    public ReactiveReviewRepositoryCustomImpl(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public Mono<Review> appendEntry(Integer productId, ReviewEntry entry) {
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        Mono<Review> append = mongoOperations.findAndModify(
+                ReviewQueries.withoutEntries(ReviewQueries.byProductId(productId)),
+                ReviewQueries.appendEntries(Collections.singletonList(entry)), options, Review.class);
+
+        // A concurrent request created the review first; subscribing again retries, which now matches it
+        return append.onErrorResume(DuplicateKeyException.class, e -> append);
+    }
+
+    @Override
+    public Mono<Review> compareAndSet(Review review) {
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+        return mongoOperations.findAndModify(
+                ReviewQueries.withoutEntries(ReviewQueries.byIdAndVersion(review.getId(), review.getVersion())),
+                ReviewQueries.replace(review), options, Review.class)
+                .map(updated -> ReviewQueries.withEntries(updated, review.getEntries()));
+    }
+
+    @Override
+    public Flux<Review> findPage(String afterId, int limit) {
+        return mongoOperations.find(ReviewQueries.page(afterId, limit), Review.class);
+    }
+
+    @Override
+    public Flux<Review> streamAll() {
+        return mongoOperations.find(ReviewQueries.all(), Review.class);
+    }
+
+    @Override
+    public Mono<Integer> findVersionById(String id) {
+        return findVersion(ReviewQueries.version(Criteria.where("id").is(id)));
+    }
+
+    @Override
+    public Mono<Integer> findVersionByProductId(Integer productId) {
+        return findVersion(ReviewQueries.version(Criteria.where("productId").is(productId)));
+    }
+
+    /**
+     * Returns the version of the review matching a version projection query.
+     */
+    private Mono<Integer> findVersion(Query query) {
+        return mongoOperations.findOne(query, Review.class).map(Review::getVersion);
+    }
+
+    @Override
+    public Mono<ReviewEntryPage> findEntryPage(String id, int offset, int limit, boolean newestFirst) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(Review.class,
+                Aggregation.match(Criteria.where("id").is(id)),
+                context -> new Document("$project", ReviewQueries.entryPageProjection(offset, limit, newestFirst))),
+                ReviewEntryPage.class)
+                .next()
+                .doOnNext(page -> page.setOffset(offset));
+    }
+
+    @Override
+    public Flux<ReviewEntryPage> findLatestEntriesByProductIds(Collection<Integer> productIds, int limit) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(Review.class,
+                Aggregation.match(Criteria.where("productId").in(productIds)),
+                context -> new Document("$project", ReviewQueries.entryPageProjection(0, limit, true))),
+                ReviewEntryPage.class);
+    }
+
+    @Override
+    public Flux<ReviewEntryMatch> searchEntries(String text, int offset, int limit) {
+        List<AggregationOperation> stages = ReviewEntryQueries.search(text, offset, limit, ReviewQueries.REVIEW_ID);
+        if (stages.isEmpty()) {
+            return Flux.empty();
+        }
+        return mongoOperations.aggregate(Aggregation.newAggregation(Review.class, stages), ReviewEntryMatch.class);
+    }
+
+    @Override
+    public Flux<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(Review.class,
+                ReviewEntryQueries.byUsername(username, after, limit, ReviewQueries.REVIEW_ID,
+                        ReviewQueries.POSITIONED_ENTRIES)),
+                ReviewEntryMatch.class);
+    }
+
+    @Override
+    public Flux<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(Review.class,
+                ReviewEntryQueries.since(since, after, limit, ReviewQueries.REVIEW_ID,
+                        ReviewQueries.POSITIONED_ENTRIES)),
+                ReviewEntryMatch.class);
+    }
+
+    @Override
+    public Flux<ReviewStats> findStats(Collection<Integer> productIds) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(Review.class,
+                Aggregation.match(Criteria.where("productId").in(productIds)),
+                context -> new Document("$project", ReviewQueries.statsProjection())),
+                ReviewStats.class);
+    }
+
+    @Override
+    public Mono<List<ReviewImportFailure>> bulkImport(List<ReviewImportRecord> records) {
+        ReactiveBulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+        // The records written by each operation, by the index of the operation, which is how failures are reported
+        List<List<ReviewImportRecord>> operations = new ArrayList<>();
+        Map<Integer, List<ReviewImportRecord>> entriesByProduct = new LinkedHashMap<>();
+        for (ReviewImportRecord record : records) {
+            if (record.isEntry()) {
+                entriesByProduct.computeIfAbsent(record.getProductId(), productId -> new ArrayList<>()).add(record);
+            } else {
+                record.getReview().getEntries().sort(Comparator.comparing(ReviewEntry::getDate));
+                bulk.insert(record.getReview());
+                operations.add(Collections.singletonList(record));
+            }
+        }
+        entriesByProduct.forEach((productId, entryRecords) -> {
+            bulk.upsert(ReviewQueries.byProductId(productId), ReviewQueries.pushImportedEntries(entryRecords));
+            operations.add(entryRecords);
+        });
+
+        Mono<List<ReviewImportFailure>> failures = bulk.execute()
+                .<List<ReviewImportFailure>>thenReturn(Collections.emptyList())
+                .onErrorResume(e -> {
+                    List<ReviewImportFailure> failed = ReviewQueries.importFailures(e, operations);
+                    return failed != null ? Mono.just(failed) : Mono.error(e);
+                });
+        if (entriesByProduct.isEmpty()) {
+            return failures;
+        }
+        return failures.flatMap(failed -> mongoOperations.updateMulti(
+                Query.query(Criteria.where("productId").in(entriesByProduct.keySet())),
+                ReviewQueries.recomputeAggregates(), Review.class)
+                .thenReturn(failed));
+    }
+}
@@ -0,0 +1,238 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.conversions.Bson;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads ReviewEvents from the change stream of the Reviews collection. Change streams need MongoDB to run as a
+ * replica set; the embedded MongoDB runs as a single-node one, see de.flapdoodle.mongodb.embedded.storage.
+ *
+ * Every event carries the token to resume the stream after it, so a consumer that reconnects with the last token it
+ * saw receives the events it missed, for as long as they are still in the oplog.
+ */
+@Component
+public class ReviewChangeStream {
+
+    /**
+     * The field of a resume token that holds its value.
+     */
+    private static final String RESUME_TOKEN_FIELD = "_data";
+
+    /**
+     * The error codes with which MongoDB refuses to resume after a token: ChangeStreamHistoryLost when the token's
+     * event is no longer in the oplog, ChangeStreamFatalError when older servers cannot find it, and BadValue and
+     * FailedToParse when the token is not a resume token at all.
+     */
+    private static final Set<Integer> RESUME_FAILURE_CODES = Set.of(286, 280, 2, 9);
+
+    /**
+     * Trims the change events to the fields that ReviewEvents are built from. The review looked up for an update is
+     * only needed for its product ID, and is not sent in full.
+     */
+    private static final List<Bson> PIPELINE = Collections.singletonList(Aggregates.project(Projections.include(
+            "operationType", "documentKey", "updateDescription",
+            "fullDocument.productId", "fullDocument.version", "fullDocument.totalEntries")));
+
+    private MongoTemplate mongoTemplate;
+
+    public ReviewChangeStream(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Opens the change stream.
+     * @param resumeToken   The token of the last event the consumer received, or null to start with the next change.
+     * @param maxAwaitTime  How long Cursor.tryNext waits for a change before it returns null.
+     * @return              The open change stream, which the caller must close.
+     * @throws ResumeFailedException    If the stream cannot be resumed after the token, because the token is
+     *                                  invalid or no longer in the oplog.
+     * @throws DataAccessException      If the stream cannot be opened for any other reason.
+     */
+    public Cursor open(String resumeToken, Duration maxAwaitTime) {
+        ChangeStreamIterable<Document> changeStream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Review.class))
+                .watch(PIPELINE)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(maxAwaitTime.toMillis(), TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            // Unlike resumeAfter, startAfter also resumes after the event that invalidated a stream
+            changeStream = changeStream.startAfter(new BsonDocument(RESUME_TOKEN_FIELD, new BsonString(resumeToken)));
+        }
+
+        try {
+            return new Cursor(changeStream.cursor(), mongoTemplate.getConverter());
+        } catch (MongoException e) {
+            if (resumeToken != null && RESUME_FAILURE_CODES.contains(e.getCode())) {
+                throw new ResumeFailedException("Cannot resume review events after " + resumeToken, e);
+            }
+            DataAccessException translated = mongoTemplate.getExceptionTranslator().translateExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
+    }
+
+    /**
+     * Thrown when the change stream cannot be resumed after a token, so the consumer has to start over.
+     */
+    public static class ResumeFailedException extends DataRetrievalFailureException {
+        public ResumeFailedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * An open change stream.
+     */
+    public static class Cursor implements AutoCloseable {
+
+        private MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+        private MongoConverter converter;
+
+        /**
+         * Set once the collection has been dropped or renamed, which ends the stream.
+         */
+        private boolean invalidated;
+
+        Cursor(MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor, MongoConverter converter) {
+            this.cursor = cursor;
+            this.converter = converter;
+        }
+
+        /**
+         * Returns the next event, waiting up to the maximum await time for one. Changes that do not write a new
+         * version of a review, such as corrections of its aggregates, are skipped.
+         * @return  The next event, or null if there was none within the maximum await time or the stream has ended.
+         */
+        public ReviewEvent tryNext() {
+            ChangeStreamDocument<Document> change;
+            while (!invalidated && (change = cursor.tryNext()) != null) {
+                ReviewEvent event = toEvent(change);
+                if (event != null) {
+                    return event;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns true once the stream has ended because the collection was dropped or renamed. A consumer can
+         * still open a new stream after the last token.
+         */
+        public boolean isInvalidated() {
+            return invalidated;
+        }
+
+        /**
+         * Returns the token to resume after all changes read so far, including skipped ones and, when tryNext
+         * returned null, the time it waited; this lets a consumer of a quiet stream resume without going back
+         * to its last event.
+         */
+        public String getResumeToken() {
+            BsonDocument token = cursor.getResumeToken();
+            return token != null ? token.getString(RESUME_TOKEN_FIELD).getValue() : null;
+        }
+
+        @Override
+        public void close() {
+            cursor.close();
+        }
+
+        private ReviewEvent toEvent(ChangeStreamDocument<Document> change) {
+            String token = change.getResumeToken().getString(RESUME_TOKEN_FIELD).getValue();
+            Document review = change.getFullDocument();
+            switch (change.getOperationType()) {
+                case INSERT:
+                    return toDocumentEvent(token, ReviewEvent.Type.CREATED, change.getDocumentKey(), review);
+                case REPLACE:
+                    return toDocumentEvent(token, ReviewEvent.Type.UPDATED, change.getDocumentKey(), review);
+                case UPDATE:
+                    // The review may have been deleted before it was looked up
+                    return toUpdateEvent(token, idOf(change.getDocumentKey()),
+                            review != null ? review.getInteger("productId") : null, change.getUpdateDescription());
+                case DELETE:
+                    return new ReviewEvent(token, ReviewEvent.Type.DELETED, idOf(change.getDocumentKey()), null, null);
+                case INVALIDATE:
+                    invalidated = true;
+                    return null;
+                default:
+                    // Drops and renames are followed by an invalidate
+                    return null;
+            }
+        }
+
+        /**
+         * Builds the event of a change that wrote the whole review.
+         */
+        private static ReviewEvent toDocumentEvent(String token, ReviewEvent.Type type, BsonDocument documentKey,
+                                                   Document review) {
+            ReviewEvent event = new ReviewEvent(token, type, idOf(documentKey), review.getInteger("productId"),
+                    review.getInteger("version"));
+            event.setTotalEntries(review.getInteger("totalEntries"));
+            return event;
+        }
+
+        /**
+         * Builds the event of an update. Appending an entry pushes it onto the embedded entries, which the update
+         * describes as "entries.N", or counts it in entryCount in the bucketed layout; replacing a review sets the
+         * entries, the product ID or a new bucket epoch.
+         */
+        private ReviewEvent toUpdateEvent(String token, String id, Integer productId, UpdateDescription description) {
+            BsonDocument fields = description != null ? description.getUpdatedFields() : null;
+            if (fields == null || !fields.containsKey("version")) {
+                return null;
+            }
+
+            boolean replaced = fields.containsKey("entries") || fields.containsKey("productId")
+                    || fields.containsKey("bucketEpoch");
+            ReviewEvent event = new ReviewEvent(token, replaced ? ReviewEvent.Type.UPDATED : ReviewEvent.Type.ENTRY,
+                    id, productId, fields.getNumber("version").intValue());
+            if (fields.containsKey("totalEntries")) {
+                event.setTotalEntries(fields.getNumber("totalEntries").intValue());
+            }
+            if (!replaced) {
+                for (Map.Entry<String, BsonValue> field : fields.entrySet()) {
+                    if (field.getKey().startsWith("entries.")) {
+                        event.getEntries().add(converter.read(ReviewEntry.class, toDocument(field.getValue().asDocument())));
+                    }
+                }
+            }
+            return event;
+        }
+
+        private static String idOf(BsonDocument documentKey) {
+            BsonValue id = documentKey.get("_id");
+            return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+        }
+
+        private static Document toDocument(BsonDocument document) {
+            return new DocumentCodec().decode(document.asBsonReader(), DecoderContext.builder().build());
+        }
+    }
+}
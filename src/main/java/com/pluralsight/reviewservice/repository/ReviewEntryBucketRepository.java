@@ -0,0 +1,18 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.ReviewEntryBucket;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReviewEntryBucketRepository extends MongoRepository<ReviewEntryBucket, String>, ReviewEntryBucketRepositoryCustom {
+
+    List<ReviewEntryBucket> findByReviewIdAndEpochOrderBySequence(String reviewId, String epoch);
+
+    List<ReviewEntryBucket> findByReviewIdAndEpochAndSequenceInOrderBySequence(String reviewId, String epoch, Collection<Integer> sequences);
+
+    void deleteByReviewId(String reviewId);
+
+    void deleteByReviewIdAndEpochNot(String reviewId, String epoch);
+}
@@ -0,0 +1,84 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Review entry bucket operations that cannot be expressed as derived queries and are implemented directly against
+ * MongoDB.
+ */
+public interface ReviewEntryBucketRepositoryCustom {
+    /**
+     * Stores an entry in the slot of a review, creating the bucket that holds the slot if it does not exist yet.
+     * Storing an entry in a slot that is already occupied does nothing, so the operation can safely be repeated; it
+     * is used to move the entries of a review's own document to slots that no other write allocates.
+     *
+     * @param reviewId  The ID of the review to which the entry belongs.
+     * @param epoch     The bucket generation of the review.
+     * @param productId The product ID of the review.
+     * @param slot      The slot allocated to the entry.
+     * @param entry     The entry to store.
+     */
+    void pushEntry(String reviewId, String epoch, Integer productId, int slot, ReviewEntry entry);
+
+    /**
+     * Appends entries to a bucket of a review, creating the bucket if it does not exist yet. The entries are stored
+     * in the slots following the highest slot in the bucket, which are allocated by the same write, so concurrent
+     * appends never store two entries in the same slot. Only as many entries are stored as the bucket has free slots.
+     *
+     * @param reviewId  The ID of the review to which the entries belong.
+     * @param epoch     The bucket generation of the review.
+     * @param productId The product ID of the review.
+     * @param sequence  The sequence of the bucket.
+     * @param entries   The entries to append, in order.
+     * @return          The slots of the stored entries, which are the first entries of the list; empty if the bucket
+     *                  is full.
+     */
+    List<Integer> appendEntries(String reviewId, String epoch, Integer productId, int sequence, List<ReviewEntry> entries);
+
+    /**
+     * Returns the number of entries in each bucket of a review, counted on the server without transferring them.
+     *
+     * @param reviewId  The ID of the review.
+     * @param epoch     The bucket generation of the review.
+     * @return          The number of entries in each bucket, keyed and ordered by bucket sequence.
+     */
+    SortedMap<Integer, Integer> findBucketSizes(String reviewId, String epoch);
+
+    /**
+     * Searches the entries in all buckets with the text index, like ReviewRepositoryCustom.searchEntries. Buckets of
+     * a bucket generation that has been replaced are searched too, until they are deleted; the matches carry their
+     * generation so that the caller can leave those out.
+     *
+     * @param text      The words to search for, in the syntax of $text.
+     * @param limit     The maximum number of entries to return.
+     * @return          The matching entries, ordered by the relevance of their bucket, then newest first.
+     */
+    List<ReviewEntryMatch> searchEntries(String text, int limit);
+
+    /**
+     * Returns a page of the entries that a user wrote across all buckets, newest first, like
+     * ReviewRepositoryCustom.findEntriesByUsername. Like searchEntries, the entries carry their bucket generation.
+     *
+     * @param username  The username of the entries.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    List<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit);
+
+    /**
+     * Returns a page of the newest entries of all buckets since a date, newest first, like
+     * ReviewRepositoryCustom.findRecentEntries. Like searchEntries, the entries carry their bucket generation.
+     *
+     * @param since     The date of the oldest entries to return.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    List<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit);
+}
@@ -0,0 +1,172 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryBucket;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * MongoTemplate backed implementation of the custom review entry bucket operations.
+ */
+public class ReviewEntryBucketRepositoryCustomImpl implements ReviewEntryBucketRepositoryCustom {
+
+    /**
+     * The review ID of the entries found by entry queries.
+     */
+    private static final String REVIEW_ID = "$reviewId";
+
+    /**
+     * The entries of a bucket, positioned by their slots.
+     */
+    private static final Document POSITIONED_ENTRIES = ReviewEntryQueries.positionedBySlot();
+
+    private MongoOperations mongoOperations;
+
+    public ReviewEntryBucketRepositoryCustomImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public void pushEntry(String reviewId, String epoch, Integer productId, int slot, ReviewEntry entry) {
+        // Only match the bucket if the slot is still free; if the bucket does not match, the upsert tries to
+        // create it and the unique (reviewId, epoch, sequence) index rejects the insert
+        Query query = Query.query(Criteria.where("reviewId").is(reviewId)
+                .and("epoch").is(epoch)
+                .and("sequence").is(ReviewEntryBucket.sequenceOf(slot))
+                .and("entries.slot").ne(slot));
+        Update update = new Update()
+                .push("entries", new ReviewEntryBucket.Entry(slot, entry))
+                .setOnInsert("productId", productId);
+
+        try {
+            mongoOperations.upsert(query, update, ReviewEntryBucket.class);
+        } catch (DuplicateKeyException e) {
+            // Either a concurrent push created the bucket first, in which case retrying pushes into it, or the slot
+            // is already occupied, in which case retrying fails the same way and there is nothing left to do
+            try {
+                mongoOperations.upsert(query, update, ReviewEntryBucket.class);
+            } catch (DuplicateKeyException occupied) {
+                // The entry is already stored
+            }
+        }
+    }
+
+    @Override
+    public List<Integer> appendEntries(String reviewId, String epoch, Integer productId, int sequence,
+                                       List<ReviewEntry> entries) {
+        int first = sequence * ReviewEntryBucket.SIZE;
+        int end = first + ReviewEntryBucket.SIZE;
+
+        // Only match the bucket if its last slot is still free; if the bucket does not match, the upsert tries to
+        // create it and the unique (reviewId, epoch, sequence) index rejects the insert
+        Query query = Query.query(Criteria.where("reviewId").is(reviewId)
+                .and("epoch").is(epoch)
+                .and("sequence").is(sequence)
+                .and("entries.slot").ne(end - 1));
+        query.fields().include("entries.slot");
+        AggregationUpdate update = AggregationUpdate.from(Collections.singletonList(
+                context -> new Document("$set", new Document("entries", appendedEntries(entries, first, end))
+                        .append("productId", new Document("$ifNull", Arrays.asList("$productId", productId))))));
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(false);
+
+        ReviewEntryBucket previous;
+        try {
+            previous = mongoOperations.findAndModify(query, update, options, ReviewEntryBucket.class);
+        } catch (DuplicateKeyException e) {
+            // Either a concurrent append created the bucket first, in which case retrying appends to it, or the
+            // bucket is full, in which case retrying fails the same way
+            try {
+                previous = mongoOperations.findAndModify(query, update, options, ReviewEntryBucket.class);
+            } catch (DuplicateKeyException full) {
+                return Collections.emptyList();
+            }
+        }
+
+        // The slots that the write allocated follow the highest slot in the bucket as it was before the write
+        int next = previous == null || previous.getEntries().isEmpty()
+                ? first
+                : previous.getEntries().stream().mapToInt(ReviewEntryBucket.Entry::getSlot).max().getAsInt() + 1;
+        return IntStream.range(next, Math.min(end, next + entries.size())).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Builds the expression that appends entries to the entries of a bucket, in the slots following the highest
+     * slot in the bucket, or from the first slot of an empty bucket, for as long as the bucket has free slots.
+     */
+    private static Document appendedEntries(List<ReviewEntry> entries, int first, int end) {
+        List<Document> values = ReviewQueries.entryDocuments(entries);
+
+        Document next = new Document("$ifNull", Arrays.asList(
+                new Document("$add", Arrays.asList(new Document("$max", "$$current.slot"), 1)), first));
+        Document count = new Document("$min", Arrays.asList(values.size(),
+                new Document("$subtract", Arrays.asList(end, "$$next"))));
+        Document appended = new Document("$map", new Document("input", new Document("$range", Arrays.asList(0, count)))
+                .append("as", "i")
+                .append("in", new Document("$mergeObjects", Arrays.asList(
+                        new Document("$arrayElemAt", Arrays.asList(new Document("$literal", values), "$$i")),
+                        new Document("slot", new Document("$add", Arrays.asList("$$next", "$$i")))))));
+
+        return new Document("$let", new Document("vars", new Document("current",
+                new Document("$ifNull", Arrays.asList("$entries", Collections.emptyList()))))
+                .append("in", new Document("$let", new Document("vars", new Document("next", next))
+                        .append("in", new Document("$concatArrays", Arrays.asList("$$current", appended))))));
+    }
+
+    @Override
+    public SortedMap<Integer, Integer> findBucketSizes(String reviewId, String epoch) {
+        TypedAggregation<ReviewEntryBucket> aggregation = Aggregation.newAggregation(ReviewEntryBucket.class,
+                Aggregation.match(Criteria.where("reviewId").is(reviewId).and("epoch").is(epoch)),
+                context -> new Document("$project", new Document("sequence", 1)
+                        .append("size", new Document("$size", "$entries"))));
+
+        SortedMap<Integer, Integer> sizes = new TreeMap<>();
+        mongoOperations.aggregate(aggregation, Document.class)
+                .forEach(bucket -> sizes.put(bucket.getInteger("sequence"), bucket.getInteger("size")));
+        return sizes;
+    }
+
+    @Override
+    public List<ReviewEntryMatch> searchEntries(String text, int limit) {
+        List<AggregationOperation> stages = ReviewEntryQueries.search(text, 0, limit, REVIEW_ID);
+        if (stages.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return mongoOperations.aggregate(Aggregation.newAggregation(ReviewEntryBucket.class, stages),
+                ReviewEntryMatch.class).getMappedResults();
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(ReviewEntryBucket.class,
+                ReviewEntryQueries.byUsername(username, after, limit, REVIEW_ID, POSITIONED_ENTRIES)),
+                ReviewEntryMatch.class)
+                .getMappedResults();
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(ReviewEntryBucket.class,
+                ReviewEntryQueries.since(since, after, limit, REVIEW_ID, POSITIONED_ENTRIES)),
+                ReviewEntryMatch.class)
+                .getMappedResults();
+    }
+}
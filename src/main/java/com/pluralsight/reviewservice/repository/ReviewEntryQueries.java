@@ -0,0 +1,260 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The aggregation stages of the queries that find entries across reviews. They work on any document that holds
+ * entries in an "entries" array, so the same queries run against Reviews and ReviewEntryBuckets; only the entries
+ * that match are unwound, and they are projected into ReviewEntryMatches without the rest of their document.
+ *
+ * Pages of newest entries are keyset pages: the next page starts after the date, review ID and position of the last
+ * entry of the previous one, so the cost of a page does not depend on how deep it is. The position of an entry is
+ * unique within its review, so entries of the same review with the same date are paged through one by one too.
+ */
+final class ReviewEntryQueries {
+
+    /**
+     * The characters of a word, as the text index tokenizes it.
+     */
+    private static final String WORD_CHARACTER = "[\\p{L}\\p{N}_]";
+
+    private static final String NON_WORD_CHARACTERS = "[^\\p{L}\\p{N}_]+";
+
+    private ReviewEntryQueries() {
+    }
+
+    /**
+     * Returns the stages of a text search, from the $text match on the index to a page of the most relevant
+     * matches. A document matches if any of its entries contains one of the words; only those entries are unwound,
+     * scored with the relevance of their document.
+     * @param text      The words to search for, as accepted by $text.
+     * @param offset    The number of matching entries to skip.
+     * @param limit     The maximum number of entries to return.
+     * @param reviewId  The expression of the review ID in the searched documents.
+     * @return          The stages, or an empty list if the text holds no words to search for.
+     */
+    static List<AggregationOperation> search(String text, int offset, int limit, Object reviewId) {
+        String words = wordsRegex(text);
+        if (words == null) {
+            return Collections.emptyList();
+        }
+
+        Document matches = new Document("$or", Arrays.asList(
+                regexMatch("$$this.review", words),
+                regexMatch("$$this.username", words)));
+        return Arrays.asList(
+                context -> new Document("$match", new Document("$text", new Document("$search", text))),
+                context -> new Document("$project", new Document("reviewId", reviewId)
+                        .append("productId", 1)
+                        .append("epoch", 1)
+                        .append("score", new Document("$meta", "textScore"))
+                        .append("entries", new Document("$filter", new Document("input", "$entries")
+                                .append("cond", matches)))),
+                context -> new Document("$unwind", "$entries"),
+                context -> new Document("$sort", new Document("score", -1)
+                        .append("entries.date", -1)
+                        .append("reviewId", 1)),
+                context -> new Document("$skip", offset),
+                context -> new Document("$limit", limit),
+                ReviewEntryQueries::toMatch);
+    }
+
+    /**
+     * Returns the stages of a query for the entries of a user, newest first, from the $elemMatch on the
+     * (entries.username, entries.date) index to a page that starts after the last entry of the previous one.
+     * @param username  The username of the entries.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @param reviewId  The expression of the review ID in the searched documents.
+     * @param entries   The expression of the entries of the searched documents, each with its position.
+     * @return          The stages.
+     */
+    static List<AggregationOperation> byUsername(String username, ReviewEntryMatch after, int limit, Object reviewId,
+                                                 Object entries) {
+        return newestFirst(new Document("username", username),
+                new Document("$eq", Arrays.asList("$$this.username", username)),
+                null, after, limit, reviewId, entries);
+    }
+
+    /**
+     * Returns the stages of a query for the newest entries of all reviews, from the $elemMatch on the entries.date
+     * index to a page that starts after the last entry of the previous one. Only the documents with entries between
+     * the start of the period and the end of the previous page are read.
+     * @param since     The start of the period of the entries.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @param reviewId  The expression of the review ID in the searched documents.
+     * @param entries   The expression of the entries of the searched documents, each with its position.
+     * @return          The stages.
+     */
+    static List<AggregationOperation> since(Date since, ReviewEntryMatch after, int limit, Object reviewId,
+                                            Object entries) {
+        return newestFirst(new Document(), null, since, after, limit, reviewId, entries);
+    }
+
+    /**
+     * Returns the stages of a keyset page of the matching entries, ordered by date, newest first, by review ID and by
+     * position, last first.
+     * Documents are selected with an $elemMatch on the entries, which an index on the matched entry fields followed
+     * by entries.date narrows down to the documents with matching entries in the period before the end of the
+     * previous page. Those documents are still read, but before anything is unwound each keeps only the entries
+     * that can be among its newest limit, and only the limit documents with the newest entries are kept, so the
+     * unwind and sort handle a bounded number of entries however many the period holds.
+     * @param entryQuery        The query that a matching entry satisfies, apart from its date.
+     * @param entryCondition    The same as an expression on $$this, to pick the matching entries out of a document,
+     *                          or null if every entry of the period matches.
+     * @param since             The start of the period of the entries, or null for all entries.
+     * @param after             The last entry of the previous page, or null for the first page.
+     * @param limit             The maximum number of entries to return.
+     * @param reviewId          The expression of the review ID in the searched documents.
+     * @param positioned        The expression of the entries of the searched documents, each with its position.
+     * @return                  The stages.
+     */
+    private static List<AggregationOperation> newestFirst(Document entryQuery, Document entryCondition, Date since,
+                                                          ReviewEntryMatch after, int limit, Object reviewId,
+                                                          Object positioned) {
+        Document query = new Document(entryQuery);
+        Document dates = new Document();
+        List<Object> conditions = new ArrayList<>();
+        if (entryCondition != null) {
+            conditions.add(entryCondition);
+        }
+        if (since != null) {
+            dates.append("$gte", since);
+            conditions.add(new Document("$gte", Arrays.asList("$$this.date", since)));
+        }
+        if (after != null) {
+            // Entries of the same date as the last one of the previous page are only on this page if they belong to
+            // a later review, or come before it in the same review
+            dates.append("$lte", after.getDate());
+            conditions.add(new Document("$or", Arrays.asList(
+                    new Document("$lt", Arrays.asList("$$this.date", after.getDate())),
+                    new Document("$and", Arrays.asList(
+                            new Document("$eq", Arrays.asList("$$this.date", after.getDate())),
+                            new Document("$or", Arrays.asList(
+                                    new Document("$gt", Arrays.asList(reviewId, after.getReviewId())),
+                                    new Document("$and", Arrays.asList(
+                                            new Document("$eq", Arrays.asList(reviewId, after.getReviewId())),
+                                            new Document("$lt",
+                                                    Arrays.asList("$$this.position", after.getPosition())))))))))));
+        }
+        if (!dates.isEmpty()) {
+            query.append("date", dates);
+        }
+
+        Document match = new Document("entries", new Document("$elemMatch", query));
+        Document matching = new Document("$filter", new Document("input", positioned)
+                .append("cond", conditions.size() == 1 ? conditions.get(0) : new Document("$and", conditions)));
+
+        // Entries are appended in date order, so the newest limit entries of a document are usually its last limit
+        // ones; keeping every entry at least as new as the oldest of those keeps the newest limit in any order
+        Document oldestOfLast = new Document("$min",
+                new Document("$slice", Arrays.asList("$$matching.date", -limit)));
+        Document entries = new Document("$let", new Document("vars", new Document("matching", matching))
+                .append("in", new Document("$filter", new Document("input", "$$matching")
+                        .append("cond", new Document("$gte", Arrays.asList("$$this.date", oldestOfLast))))));
+
+        // The newest entry of a document, in page order: a document whose newest entry is not among the newest limit
+        // documents' newest entries has no entry on the page
+        Document newestOfDate = new Document("$filter", new Document("input", "$entries")
+                .append("cond", new Document("$eq", Arrays.asList("$$this.date", "$$date"))));
+        Document newest = new Document("$let",
+                new Document("vars", new Document("date", new Document("$max", "$entries.date")))
+                        .append("in", new Document("date", "$$date")
+                                .append("position", new Document("$max", new Document("$map",
+                                        new Document("input", newestOfDate).append("in", "$$this.position"))))));
+        return Arrays.asList(
+                context -> new Document("$match", match),
+                context -> new Document("$project", new Document("reviewId", reviewId)
+                        .append("productId", 1)
+                        .append("epoch", 1)
+                        .append("entries", entries)),
+                context -> new Document("$addFields", new Document("newest", newest)),
+                context -> new Document("$sort", new Document("newest.date", -1)
+                        .append("reviewId", 1)
+                        .append("newest.position", -1)),
+                context -> new Document("$limit", limit),
+                context -> new Document("$unwind", "$entries"),
+                context -> new Document("$sort", new Document("entries.date", -1)
+                        .append("reviewId", 1)
+                        .append("entries.position", -1)),
+                context -> new Document("$limit", limit),
+                ReviewEntryQueries::toMatch);
+    }
+
+    /**
+     * Projects an unwound entry, along with the fields kept from its document, into a ReviewEntryMatch.
+     */
+    private static Document toMatch(AggregationOperationContext context) {
+        return new Document("$project", new Document("_id", 0)
+                .append("reviewId", 1)
+                .append("productId", 1)
+                .append("epoch", 1)
+                .append("score", 1)
+                .append("username", "$entries.username")
+                .append("date", "$entries.date")
+                .append("review", "$entries.review")
+                .append("position", "$entries.position"));
+    }
+
+    /**
+     * Returns the expression of the entries of a document that holds them in order, each with its position: the
+     * position of the first entry, given by an expression, plus its index.
+     * @param first The expression of the position of the first entry.
+     * @return      The expression.
+     */
+    static Document positionedByIndex(Object first) {
+        return new Document("$map", new Document("input", new Document("$range", Arrays.asList(0,
+                new Document("$size", "$entries"))))
+                .append("as", "index")
+                .append("in", new Document("$mergeObjects", Arrays.asList(
+                        new Document("$arrayElemAt", Arrays.asList("$entries", "$$index")),
+                        new Document("position", new Document("$add", Arrays.asList(first, "$$index")))))));
+    }
+
+    /**
+     * Returns the expression of the entries of a document that holds them with their slots, each with its slot as
+     * its position.
+     * @return      The expression.
+     */
+    static Document positionedBySlot() {
+        return new Document("$map", new Document("input", "$entries")
+                .append("in", new Document("$mergeObjects", Arrays.asList("$$this",
+                        new Document("position", "$$this.slot")))));
+    }
+
+    /**
+     * Builds a regular expression that matches any of the words of a $text search as a whole word, which is how the
+     * text index matches them. Phrases are searched for by their words and negated words are left out, as an entry
+     * only has to contain one of the words.
+     * @param text  The words to search for, as accepted by $text.
+     * @return      The regular expression, to be applied case insensitively, or null if there are no words.
+     */
+    static String wordsRegex(String text) {
+        List<String> words = Arrays.stream(text.trim().split("\\s+"))
+                .filter(word -> !word.startsWith("-"))
+                .flatMap(word -> Arrays.stream(word.split(NON_WORD_CHARACTERS)))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+        if (words.isEmpty()) {
+            return null;
+        }
+        return "(?<!" + WORD_CHARACTER + ")(?:" + String.join("|", words) + ")(?!" + WORD_CHARACTER + ")";
+    }
+
+    private static Document regexMatch(String input, String regex) {
+        return new Document("$regexMatch", new Document("input", input)
+                .append("regex", regex)
+                .append("options", "i"));
+    }
+}
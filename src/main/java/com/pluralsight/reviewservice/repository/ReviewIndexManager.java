@@ -0,0 +1,109 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntryBucket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver.IndexDefinitionHolder;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies, and optionally creates, the secondary indexes declared on our document classes when the application
+ * starts, and reports how the indexes that exist in MongoDB compare with the ones the model expects.
+ */
+@Component
+public class ReviewIndexManager {
+
+    private static final Logger logger = LogManager.getLogger(ReviewIndexManager.class);
+
+    /**
+     * The document classes whose index annotations are managed.
+     */
+    private static final List<Class<?>> INDEXED_TYPES = Arrays.asList(Review.class, ReviewEntryBucket.class);
+
+    /**
+     * The name MongoDB gives the index it always creates on _id.
+     */
+    private static final String ID_INDEX_NAME = "_id_";
+
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * When true, missing indexes are created; when false, they are only reported.
+     */
+    private boolean createIndexes;
+
+    public ReviewIndexManager(MongoTemplate mongoTemplate,
+                              @Value("${reviews.indexes.create:true}") boolean createIndexes) {
+        this.mongoTemplate = mongoTemplate;
+        this.createIndexes = createIndexes;
+    }
+
+    /**
+     * Ensures and reports the indexes for every managed document class once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        INDEXED_TYPES.forEach(type -> ensureIndexes(
+                mongoTemplate.indexOps(type),
+                mongoTemplate.getCollectionName(type),
+                resolver.resolveIndexForEntity(mappingContext.getRequiredPersistentEntity(type))));
+    }
+
+    /**
+     * Ensures the expected indexes of a single collection and logs a report of expected versus existing indexes.
+     * @param indexOperations   The index operations of the collection.
+     * @param collectionName    The name of the collection, for logging.
+     * @param expectedIndexes   The indexes declared on the collection's document class.
+     */
+    void ensureIndexes(IndexOperations indexOperations, String collectionName, List<IndexDefinitionHolder> expectedIndexes) {
+        Set<String> existingNames = indexNames(indexOperations.getIndexInfo());
+
+        for (IndexDefinitionHolder expected : expectedIndexes) {
+            String name = expected.getIndexOptions().getString("name");
+            if (existingNames.contains(name)) {
+                logger.info("Index {}.{} {}: present", collectionName, name, expected.getIndexKeys().toJson());
+            } else if (createIndexes) {
+                try {
+                    indexOperations.ensureIndex(expected);
+                    logger.info("Index {}.{} {}: created", collectionName, name, expected.getIndexKeys().toJson());
+                } catch (DataAccessException e) {
+                    // A unique index cannot be built while the collection holds duplicates; keep starting up
+                    logger.error("Index {}.{} {}: creation failed: {}", collectionName, name,
+                            expected.getIndexKeys().toJson(), e.getMessage());
+                }
+            } else {
+                logger.warn("Index {}.{} {}: MISSING", collectionName, name, expected.getIndexKeys().toJson());
+            }
+        }
+
+        // Report indexes that exist in the database but are not declared on the model
+        Set<String> expectedNames = expectedIndexes.stream()
+                .map(expected -> expected.getIndexOptions().getString("name"))
+                .collect(Collectors.toSet());
+        existingNames.stream()
+                .filter(name -> !ID_INDEX_NAME.equals(name) && !expectedNames.contains(name))
+                .forEach(name -> logger.warn("Index {}.{}: exists but is not declared on the model", collectionName, name));
+    }
+
+    private static Set<String> indexNames(List<IndexInfo> indexes) {
+        return indexes.stream().map(IndexInfo::getName).collect(Collectors.toSet());
+    }
+}
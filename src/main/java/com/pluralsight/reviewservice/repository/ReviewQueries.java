@@ -0,0 +1,254 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The queries and updates of the review operations, shared by the blocking and the reactive repositories so that
+ * both write reviews in exactly the same way.
+ */
+final class ReviewQueries {
+
+    /**
+     * The number of reviews fetched per round trip when streaming from a cursor.
+     */
+    static final int STREAM_BATCH_SIZE = 100;
+
+    /**
+     * The review ID of the entries found by entry queries: the review's own ID, generated as an ObjectId.
+     */
+    static final Document REVIEW_ID = new Document("$toString", "$_id");
+
+    /**
+     * The entries of a review, positioned after the entry slots already allocated in buckets, if any: the positions
+     * are the slots the entries have once they are moved to buckets, and unique within the review.
+     */
+    static final Document POSITIONED_ENTRIES = ReviewEntryQueries.positionedByIndex(
+            new Document("$ifNull", Arrays.asList("$entryCount", 0)));
+
+    private ReviewQueries() {
+    }
+
+    static Query byProductId(Integer productId) {
+        return Query.query(Criteria.where("productId").is(productId));
+    }
+
+    static Query byIdAndVersion(String id, Integer version) {
+        return Query.query(Criteria.where("id").is(id).and("version").is(version));
+    }
+
+    /**
+     * Leaves the entries out of the review returned by a write, so that the write does not read them back.
+     */
+    static Query withoutEntries(Query query) {
+        query.fields().exclude("entries");
+        return query;
+    }
+
+    /**
+     * Appends entries, in order, with a single pipeline update that also updates the aggregates and increments the
+     * version. A review written before the aggregates were maintained has them computed from the entries it already
+     * has, on the server, so the entries never have to be read back to correct them.
+     */
+    static AggregationUpdate appendEntries(List<ReviewEntry> entries) {
+        Document current = new Document("$ifNull", Arrays.asList("$entries", Collections.emptyList()));
+        Document totalEntries = new Document("$ifNull", Arrays.asList("$totalEntries", new Document("$size", current)));
+        Document lastEntryDate = new Document("$ifNull", Arrays.asList("$lastEntryDate",
+                new Document("$max", "$entries.date")));
+        return AggregationUpdate.from(Collections.singletonList(context -> new Document("$set",
+                new Document("entries", new Document("$concatArrays", Arrays.asList(current,
+                        new Document("$literal", entryDocuments(entries)))))
+                        .append("totalEntries", new Document("$add", Arrays.asList(totalEntries, entries.size())))
+                        .append("lastEntryDate", new Document("$max", Arrays.asList(lastEntryDate,
+                                ReviewStats.lastEntryDate(entries))))
+                        .append("version", new Document("$add", Arrays.asList(
+                                new Document("$ifNull", Arrays.asList("$version", 0)), 1))))));
+    }
+
+    /**
+     * Returns the documents of entries written by a pipeline update, which are not mapped like those of a regular
+     * update. They have to be written as literals, so that text starting with a $ is not taken for a field path.
+     */
+    static List<Document> entryDocuments(List<ReviewEntry> entries) {
+        return entries.stream()
+                .map(entry -> new Document("username", entry.getUsername())
+                        .append("date", entry.getDate())
+                        .append("review", entry.getReview()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Replaces the product ID and entries, recomputes the aggregates and increments the version.
+     */
+    static Update replace(Review review) {
+        return new Update()
+                .set("productId", review.getProductId())
+                .set("entries", review.getEntries())
+                .set("totalEntries", review.getEntries().size())
+                .set("lastEntryDate", ReviewStats.lastEntryDate(review.getEntries()))
+                .inc("version", 1);
+    }
+
+    static Update setAggregates(int totalEntries, Date lastEntryDate) {
+        return new Update()
+                .set("totalEntries", totalEntries)
+                .set("lastEntryDate", lastEntryDate);
+    }
+
+    /**
+     * Returns a review written by a replace, which was read back without its entries, with the entries it was
+     * written with.
+     */
+    static Review withEntries(Review written, List<ReviewEntry> entries) {
+        written.getEntries().addAll(entries);
+        return written;
+    }
+
+    /**
+     * The number of entries of a review: its totalEntries aggregate or, for reviews written before the aggregates
+     * were maintained, its slots plus its embedded entries.
+     */
+    static Document entryCount() {
+        return new Document("$ifNull", Arrays.asList("$totalEntries",
+                new Document("$add", Arrays.asList(
+                        new Document("$ifNull", Arrays.asList("$entryCount", 0)),
+                        new Document("$size", new Document("$ifNull", Arrays.asList("$entries", Collections.emptyList())))))));
+    }
+
+    /**
+     * Builds a $project stage body that counts a review's entries and cuts a page out of them on the server.
+     */
+    static Document entryPageProjection(int offset, int limit, boolean newestFirst) {
+        Document entries = new Document("$ifNull", Arrays.asList("$entries", Collections.emptyList()));
+        Document total = new Document("$size", entries);
+
+        Document page;
+        if (newestFirst) {
+            // The page ends offset entries before the end of the array and holds at most limit entries
+            Document end = new Document("$subtract", Arrays.asList(total, offset));
+            Document start = new Document("$max", Arrays.asList(0, new Document("$subtract", Arrays.asList(end, limit))));
+            Document size = new Document("$subtract", Arrays.asList(end, start));
+            page = new Document("$cond", Arrays.asList(
+                    new Document("$gt", Arrays.asList(end, 0)),
+                    new Document("$reverseArray", new Document("$slice", Arrays.asList(entries, start, size))),
+                    Collections.emptyList()));
+        } else {
+            page = new Document("$slice", Arrays.asList(entries, offset, limit));
+        }
+
+        return new Document("productId", 1)
+                .append("version", 1)
+                .append("total", total)
+                .append("entries", page);
+    }
+
+    /**
+     * Builds a $project stage body that reads the aggregates of a review without its entries. Reviews without
+     * aggregates take the latest embedded date.
+     */
+    static Document statsProjection() {
+        Document lastEntryDate = new Document("$ifNull", Arrays.asList("$lastEntryDate",
+                new Document("$max", "$entries.date")));
+        return new Document("productId", 1)
+                .append("version", 1)
+                .append("entryCount", entryCount())
+                .append("lastEntryDate", lastEntryDate);
+    }
+
+    /**
+     * Pushes the imported entries of a product with a single update and increments the version. Imported entries
+     * keep their dates, so they are sorted into place to keep the entries in date order.
+     */
+    static Update pushImportedEntries(List<ReviewImportRecord> entryRecords) {
+        Update update = new Update();
+        update.push("entries").sort(Sort.by("date"))
+                .each(entryRecords.stream().map(ReviewImportRecord::getEntry).toArray());
+        return update.inc("version", 1);
+    }
+
+    /**
+     * Sets the aggregates of the matched reviews from their entries, on the server.
+     */
+    static AggregationUpdate recomputeAggregates() {
+        return AggregationUpdate.from(Collections.singletonList(
+                context -> new Document("$set", new Document("totalEntries",
+                        new Document("$size", new Document("$ifNull", Arrays.asList("$entries", Collections.emptyList()))))
+                        .append("lastEntryDate", new Document("$max", "$entries.date")))));
+    }
+
+    /**
+     * Returns the records that failed in a bulk write, ordered by line, or null if the error is not the failure of
+     * a bulk write.
+     * @param error         The error of the bulk write, as thrown by the template or translated from the driver's.
+     * @param operations    The records written by each operation of the bulk write, by the index of the operation.
+     */
+    static List<ReviewImportFailure> importFailures(Throwable error, List<List<ReviewImportRecord>> operations) {
+        List<BulkWriteError> errors = null;
+        for (Throwable cause = error; cause != null && errors == null; cause = cause.getCause()) {
+            if (cause instanceof BulkOperationException) {
+                errors = ((BulkOperationException) cause).getErrors();
+            } else if (cause instanceof MongoBulkWriteException) {
+                errors = ((MongoBulkWriteException) cause).getWriteErrors();
+            }
+        }
+        if (errors == null) {
+            return null;
+        }
+        return errors.stream()
+                .flatMap(bulkError -> operations.get(bulkError.getIndex()).stream()
+                        .map(record -> new ReviewImportFailure(record.getLine(), bulkError.getMessage())))
+                .sorted(Comparator.comparingLong(ReviewImportFailure::getLine))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Selects a page of reviews ordered by ID, starting after the specified ID.
+     */
+    static Query page(String afterId, int limit) {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .limit(limit);
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(afterId));
+        }
+        return query;
+    }
+
+    /**
+     * Selects all reviews ordered by ID, fetched from the cursor in batches.
+     */
+    static Query all() {
+        return new Query()
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+    }
+
+    /**
+     * Projects only the version field of the reviews matching the criteria, so that the entries are neither read
+     * from disk nor sent over the network.
+     */
+    static Query version(Criteria criteria) {
+        Query query = Query.query(criteria);
+        query.fields().include("version");
+        return query;
+    }
+}
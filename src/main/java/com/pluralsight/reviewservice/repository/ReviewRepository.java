@@ -3,9 +3,13 @@ package com.pluralsight.reviewservice.repository;
 import com.pluralsight.reviewservice.model.Review;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface ReviewRepository extends MongoRepository<Review, String> {
+public interface ReviewRepository extends MongoRepository<Review, String>, ReviewRepositoryCustom {
 
     Optional<Review> findByProductId(Integer productId);
+
+    List<Review> findByProductIdIn(Collection<Integer> productIds);
 }
@@ -0,0 +1,254 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewEntryTotals;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Review operations that cannot be expressed as derived queries and are implemented directly against MongoDB.
+ */
+public interface ReviewRepositoryCustom {
+    /**
+     * Atomically appends an entry to the review for the specified product, creating the review if it does not
+     * exist yet, and increments the review's version. The entry is appended on the server with a single update, and
+     * the review is returned without its entries, so neither the request nor the response carries the entries the
+     * review already has. The review's totalEntries and lastEntryDate aggregates are updated in the same write.
+     *
+     * @param productId The product ID of the review to which to append the entry.
+     * @param entry     The entry to append.
+     * @return          The updated review, without its entries.
+     */
+    Review appendEntry(Integer productId, ReviewEntry entry);
+
+    /**
+     * Atomically appends several entries to the review for the specified product, in order, like appendEntry. The
+     * entries are appended with a single update, which increments the review's version once.
+     *
+     * @param productId The product ID of the review to which to append the entries.
+     * @param entries   The entries to append.
+     * @return          The updated review, without its entries.
+     */
+    Review appendEntries(Integer productId, List<ReviewEntry> entries);
+
+    /**
+     * Replaces the product ID and entries of a review, recomputes its aggregates and increments its version, but only
+     * if the stored review is still at the version carried by the specified review. The check and the write are a
+     * single atomic operation. The entries are not read back; the returned review carries the specified entries.
+     *
+     * @param review    The new state of the review; its version is the version the caller expects to replace.
+     * @return          The updated review, or empty if the review does not exist or is at a different version.
+     */
+    Optional<Review> compareAndSet(Review review);
+
+    /**
+     * Returns a page of reviews ordered by ID, starting after the specified ID. This is keyset pagination: each page
+     * is an index range scan on _id, so the cost of a page does not depend on how deep into the collection it is.
+     *
+     * @param afterId   The ID of the last review of the previous page, or null to start from the beginning.
+     * @param limit     The maximum number of reviews to return.
+     * @return          The reviews in the page, ordered by ID.
+     */
+    List<Review> findPage(String afterId, int limit);
+
+    /**
+     * Streams all reviews, ordered by ID, from a MongoDB cursor. Reviews are fetched from the server in batches as
+     * the stream is consumed; the stream must be closed to release the cursor.
+     *
+     * @return          A stream of all reviews.
+     */
+    Stream<Review> streamAll();
+
+    /**
+     * Returns the version of the review with the specified ID, reading only the version field.
+     *
+     * @param id        The ID of the review.
+     * @return          The version of the review, or empty if there is no such review.
+     */
+    Optional<Integer> findVersionById(String id);
+
+    /**
+     * Returns the version of the review for the specified product ID, reading only the version field.
+     *
+     * @param productId The product ID of the review.
+     * @return          The version of the review, or empty if there is no review for the product.
+     */
+    Optional<Integer> findVersionByProductId(Integer productId);
+
+    /**
+     * Returns a page of the entries of the review with the specified ID. The page is cut out of the entries array on
+     * the server, in the same query that counts the entries, so only the entries in the page are transferred.
+     * Entries are stored in the order in which they were written, which is the order of their dates.
+     *
+     * @param id            The ID of the review.
+     * @param offset        The number of entries to skip.
+     * @param limit         The maximum number of entries to return.
+     * @param newestFirst   True to page from the newest entry backwards, false to page from the oldest forwards.
+     * @return              The page of entries, or empty if there is no review with the specified ID.
+     */
+    Optional<ReviewEntryPage> findEntryPage(String id, int offset, int limit, boolean newestFirst);
+
+    /**
+     * Returns the newest entries of the reviews of the specified products with a single query, cutting them out of
+     * the entries arrays on the server like findEntryPage.
+     *
+     * @param productIds    The product IDs.
+     * @param limit         The maximum number of entries to return per review.
+     * @return              The first page of entries, newest first, of the reviews that exist, in no particular order.
+     */
+    List<ReviewEntryPage> findLatestEntriesByProductIds(Collection<Integer> productIds, int limit);
+
+    /**
+     * Searches the text and usernames of the entries of all reviews with the text index, and returns the matching
+     * entries without the rest of their reviews. A review matches if any of its entries contains one of the words,
+     * and only the entries that contain one of them are returned; words are matched whole, regardless of case.
+     *
+     * @param text      The words to search for, in the syntax of $text.
+     * @param offset    The number of matching entries to skip.
+     * @param limit     The maximum number of entries to return.
+     * @return          The matching entries, ordered by the relevance of their review, then newest first.
+     */
+    List<ReviewEntryMatch> searchEntries(String text, int offset, int limit);
+
+    /**
+     * Returns a page of the entries that a user wrote across all reviews, newest first, without the rest of their
+     * reviews. Only the reviews that hold entries of the user are read, through the index on entries.username and
+     * entries.date, so the cost of a page depends on the user's entries rather than on the number of reviews.
+     *
+     * @param username  The username of the entries.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    List<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit);
+
+    /**
+     * Returns a page of the newest entries of all reviews since a date, newest first, without the rest of their
+     * reviews. Only the reviews that hold entries of the period are read, through the index on entries.date, so the
+     * cost of a page depends on the number of entries of the period rather than on the number of reviews.
+     *
+     * @param since     The date of the oldest entries to return.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    List<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit);
+
+    /**
+     * Bucketed layout: returns the review for the specified product without its entries, creating an empty review
+     * at version 0 in the specified bucket generation if the product has none yet. Only the first of the entries in
+     * the review's own document is read, to tell whether any have to be moved to buckets before appending.
+     *
+     * @param productId The product ID of the review.
+     * @param epoch     The bucket generation of the review if it is created.
+     * @return          The review, with at most one entry.
+     */
+    Review findOrCreateBucketed(Integer productId, String epoch);
+
+    /**
+     * Bucketed layout: records entries that were appended to the buckets of a review in the specified bucket
+     * generation, updating the review's aggregates and incrementing its version. Nothing is recorded if the review
+     * has moved on to another generation or has been deleted in the meantime, since the buckets the entries were
+     * appended to are then discarded.
+     *
+     * @param id            The ID of the review.
+     * @param epoch         The bucket generation the entries were appended to.
+     * @param nextSlot      The slot following the last appended entry.
+     * @param count         The number of appended entries.
+     * @param lastEntryDate The date of the latest appended entry.
+     * @return              The updated review, without entries, or empty if the review is no longer in the generation.
+     */
+    Optional<Review> recordBucketedEntries(String id, String epoch, int nextSlot, int count, Date lastEntryDate);
+
+    /**
+     * Bucketed layout: records that the entries in the review's own document have been copied into slots up to the
+     * specified entry count, and removes them from the review's document, provided the review is still at the
+     * version from which they were copied. The version is not changed since the review's content is not. No slots
+     * are allocated in buckets until then, so the copied entries are all of the review's entries.
+     *
+     * @param id            The ID of the review.
+     * @param version       The version of the review from which the entries were copied.
+     * @param entryCount    The number of slots in use, including the copied entries.
+     * @return              True if the review was at the expected version and has been updated.
+     */
+    boolean completeEntryMigration(String id, Integer version, int entryCount);
+
+    /**
+     * Bucketed layout: returns the current bucket generation of the specified reviews, reading only that field.
+     *
+     * @param ids       The IDs of the reviews.
+     * @return          The bucket generations of the reviews that exist and have one, keyed by review ID.
+     */
+    Map<String, String> findBucketEpochs(Collection<String> ids);
+
+    /**
+     * Bucketed layout: like compareAndSet, but also starts a new bucket generation for the review. The new entries
+     * are stored in the review's own document, from where they can be moved to the new generation's buckets.
+     *
+     * @param review    The new state of the review; its version is the version the caller expects to replace.
+     * @param epoch     The new bucket generation of the review.
+     * @return          The updated review, or empty if the review does not exist or is at a different version.
+     */
+    Optional<Review> compareAndSetBucketed(Review review, String epoch);
+
+    /**
+     * Streams, from a MongoDB cursor, the reviews that still have entries in their own document.
+     *
+     * @return          A stream of reviews with embedded entries, which must be closed to release the cursor.
+     */
+    Stream<Review> streamWithEmbeddedEntries();
+
+    /**
+     * Sets the aggregates of a review, provided it is still at the version from which they were computed. Used to
+     * correct the aggregates of reviews written before they were maintained.
+     *
+     * @param id            The ID of the review.
+     * @param version       The version of the review from which the aggregates were computed.
+     * @param totalEntries  The total number of entries in the review.
+     * @param lastEntryDate The date of the most recent entry.
+     * @return              True if the review was at the expected version and has been updated.
+     */
+    boolean updateAggregates(String id, Integer version, int totalEntries, Date lastEntryDate);
+
+    /**
+     * Returns the aggregates of the reviews of the specified products, projected on the server so that entries are
+     * never transferred. Reviews written before the aggregates were maintained have them computed from their
+     * entries instead.
+     *
+     * @param productIds    The product IDs.
+     * @return              The aggregates of the reviews that exist, in no particular order.
+     */
+    List<ReviewStats> findStats(Collection<Integer> productIds);
+
+    /**
+     * Returns how many entries the reviews hold over all products, counted from their aggregates on the server like
+     * findStats. This reads every review, so it is meant for periodic reporting only.
+     *
+     * @return  The entry totals, which are all 0 if there are no reviews.
+     */
+    ReviewEntryTotals findEntryTotals();
+
+    /**
+     * Writes a batch of imported records with a single unordered bulk write: reviews are inserted, and entries are
+     * appended to the review of their product like appendEntry. Unordered writes continue past failed records, so a
+     * failure only affects its own record; an existing review is never replaced by an imported one. Imported entries
+     * keep their dates and are sorted into place, so the entries of a review stay in date order. The entries of a
+     * product are pushed with a single update, and the aggregates of their reviews are then recomputed from the
+     * entries with a single update for the whole batch.
+     *
+     * @param records   The records to write; reviews must already carry their version and aggregates.
+     * @return          The records that failed, identified by their line.
+     */
+    List<ReviewImportFailure> bulkImport(List<ReviewImportRecord> records);
+}
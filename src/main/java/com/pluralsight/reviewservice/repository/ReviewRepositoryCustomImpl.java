@@ -0,0 +1,297 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewEntryTotals;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * MongoTemplate backed implementation of the custom review operations.
+ */
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    private MongoOperations mongoOperations;
+
+    public ReviewRepositoryCustomImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public Review appendEntry(Integer productId, ReviewEntry entry) {
+        return appendEntries(productId, Collections.singletonList(entry));
+    }
+
+    @Override
+    public Review appendEntries(Integer productId, List<ReviewEntry> entries) {
+        Query query = ReviewQueries.withoutEntries(ReviewQueries.byProductId(productId));
+        AggregationUpdate update = ReviewQueries.appendEntries(entries);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+
+        try {
+            return mongoOperations.findAndModify(query, update, options, Review.class);
+        } catch (DuplicateKeyException e) {
+            // A concurrent request created the review first; the unique productId index rejected our insert, so
+            // retry, which now matches the existing review and updates it
+            return mongoOperations.findAndModify(query, update, options, Review.class);
+        }
+    }
+
+    @Override
+    public Optional<Review> compareAndSet(Review review) {
+        Query query = ReviewQueries.withoutEntries(ReviewQueries.byIdAndVersion(review.getId(), review.getVersion()));
+        Update update = ReviewQueries.replace(review);
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+        return Optional.ofNullable(mongoOperations.findAndModify(query, update, options, Review.class))
+                .map(updated -> ReviewQueries.withEntries(updated, review.getEntries()));
+    }
+
+    @Override
+    public List<Review> findPage(String afterId, int limit) {
+        return mongoOperations.find(ReviewQueries.page(afterId, limit), Review.class);
+    }
+
+    @Override
+    public Stream<Review> streamAll() {
+        return mongoOperations.stream(ReviewQueries.all(), Review.class);
+    }
+
+    @Override
+    public Optional<Integer> findVersionById(String id) {
+        return findVersion(ReviewQueries.version(Criteria.where("id").is(id)));
+    }
+
+    @Override
+    public Optional<Integer> findVersionByProductId(Integer productId) {
+        return findVersion(ReviewQueries.version(Criteria.where("productId").is(productId)));
+    }
+
+    /**
+     * Returns the version of the review matching a version projection query.
+     */
+    private Optional<Integer> findVersion(Query query) {
+        return Optional.ofNullable(mongoOperations.findOne(query, Review.class)).map(Review::getVersion);
+    }
+
+    @Override
+    public Optional<ReviewEntryPage> findEntryPage(String id, int offset, int limit, boolean newestFirst) {
+        TypedAggregation<Review> aggregation = Aggregation.newAggregation(Review.class,
+                Aggregation.match(Criteria.where("id").is(id)),
+                context -> new Document("$project", ReviewQueries.entryPageProjection(offset, limit, newestFirst)));
+
+        ReviewEntryPage result = mongoOperations.aggregate(aggregation, ReviewEntryPage.class).getUniqueMappedResult();
+        if (result == null) {
+            return Optional.empty();
+        }
+        result.setOffset(offset);
+        return Optional.of(result);
+    }
+
+    @Override
+    public List<ReviewEntryPage> findLatestEntriesByProductIds(Collection<Integer> productIds, int limit) {
+        TypedAggregation<Review> aggregation = Aggregation.newAggregation(Review.class,
+                Aggregation.match(Criteria.where("productId").in(productIds)),
+                context -> new Document("$project", ReviewQueries.entryPageProjection(0, limit, true)));
+        return mongoOperations.aggregate(aggregation, ReviewEntryPage.class).getMappedResults();
+    }
+
+    @Override
+    public List<ReviewEntryMatch> searchEntries(String text, int offset, int limit) {
+        List<AggregationOperation> stages = ReviewEntryQueries.search(text, offset, limit, ReviewQueries.REVIEW_ID);
+        if (stages.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return mongoOperations.aggregate(Aggregation.newAggregation(Review.class, stages), ReviewEntryMatch.class)
+                .getMappedResults();
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(Review.class,
+                ReviewEntryQueries.byUsername(username, after, limit, ReviewQueries.REVIEW_ID, ReviewQueries.POSITIONED_ENTRIES)),
+                ReviewEntryMatch.class)
+                .getMappedResults();
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit) {
+        return mongoOperations.aggregate(Aggregation.newAggregation(Review.class,
+                ReviewEntryQueries.since(since, after, limit, ReviewQueries.REVIEW_ID, ReviewQueries.POSITIONED_ENTRIES)),
+                ReviewEntryMatch.class)
+                .getMappedResults();
+    }
+
+    @Override
+    public Review findOrCreateBucketed(Integer productId, String epoch) {
+        Query query = ReviewQueries.byProductId(productId);
+        query.fields().slice("entries", 1);
+        Review review = mongoOperations.findOne(query, Review.class);
+        if (review != null) {
+            return review;
+        }
+
+        Update update = new Update()
+                .setOnInsert("version", 0)
+                .setOnInsert("entries", Collections.emptyList())
+                .setOnInsert("entryCount", 0)
+                .setOnInsert("totalEntries", 0)
+                .setOnInsert("bucketEpoch", epoch);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        try {
+            return mongoOperations.findAndModify(query, update, options, Review.class);
+        } catch (DuplicateKeyException e) {
+            // A concurrent request created the review first
+            return mongoOperations.findOne(query, Review.class);
+        }
+    }
+
+    @Override
+    public Optional<Review> recordBucketedEntries(String id, String epoch, int nextSlot, int count, Date lastEntryDate) {
+        Query query = Query.query(Criteria.where("id").is(id).and("bucketEpoch").is(epoch));
+        query.fields().exclude("entries");
+        // Reviews whose entries were moved to buckets before the aggregates were maintained count their slots
+        Document entryCount = new Document("$ifNull", Arrays.asList("$entryCount", 0));
+        AggregationUpdate update = AggregationUpdate.from(Collections.singletonList(
+                context -> new Document("$set", new Document("entryCount",
+                        new Document("$max", Arrays.asList(entryCount, nextSlot)))
+                        .append("totalEntries", new Document("$add", Arrays.asList(
+                                new Document("$ifNull", Arrays.asList("$totalEntries", entryCount)), count)))
+                        .append("lastEntryDate", new Document("$max", Arrays.asList("$lastEntryDate", lastEntryDate)))
+                        .append("version", new Document("$add", Arrays.asList("$version", 1))))));
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+        return Optional.ofNullable(mongoOperations.findAndModify(query, update, options, Review.class));
+    }
+
+    @Override
+    public boolean completeEntryMigration(String id, Integer version, int entryCount) {
+        Query query = Query.query(Criteria.where("id").is(id).and("version").is(version));
+        Update update = new Update()
+                .set("entryCount", entryCount)
+                .set("totalEntries", entryCount)
+                .set("entries", Collections.emptyList());
+        return mongoOperations.updateFirst(query, update, Review.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public Map<String, String> findBucketEpochs(Collection<String> ids) {
+        Query query = Query.query(Criteria.where("id").in(ids).and("bucketEpoch").ne(null));
+        query.fields().include("bucketEpoch");
+        return mongoOperations.find(query, Review.class).stream()
+                .collect(Collectors.toMap(Review::getId, Review::getBucketEpoch));
+    }
+
+    @Override
+    public Optional<Review> compareAndSetBucketed(Review review, String epoch) {
+        Query query = ReviewQueries.withoutEntries(ReviewQueries.byIdAndVersion(review.getId(), review.getVersion()));
+        Update update = new Update()
+                .set("productId", review.getProductId())
+                .set("entries", review.getEntries())
+                .set("entryCount", 0)
+                .set("totalEntries", review.getEntries().size())
+                .set("lastEntryDate", ReviewStats.lastEntryDate(review.getEntries()))
+                .set("bucketEpoch", epoch)
+                .inc("version", 1);
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+        return Optional.ofNullable(mongoOperations.findAndModify(query, update, options, Review.class))
+                .map(updated -> ReviewQueries.withEntries(updated, review.getEntries()));
+    }
+
+    @Override
+    public Stream<Review> streamWithEmbeddedEntries() {
+        Query query = Query.query(Criteria.where("entries.0").exists(true))
+                .cursorBatchSize(ReviewQueries.STREAM_BATCH_SIZE);
+        return mongoOperations.stream(query, Review.class);
+    }
+
+    @Override
+    public boolean updateAggregates(String id, Integer version, int totalEntries, Date lastEntryDate) {
+        return mongoOperations.updateFirst(ReviewQueries.byIdAndVersion(id, version),
+                ReviewQueries.setAggregates(totalEntries, lastEntryDate), Review.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public List<ReviewStats> findStats(Collection<Integer> productIds) {
+        TypedAggregation<Review> aggregation = Aggregation.newAggregation(Review.class,
+                Aggregation.match(Criteria.where("productId").in(productIds)),
+                context -> new Document("$project", ReviewQueries.statsProjection()));
+        return mongoOperations.aggregate(aggregation, ReviewStats.class).getMappedResults();
+    }
+
+    @Override
+    public ReviewEntryTotals findEntryTotals() {
+        TypedAggregation<Review> aggregation = Aggregation.newAggregation(Review.class,
+                context -> new Document("$project", new Document("entryCount", ReviewQueries.entryCount())),
+                Aggregation.group()
+                        .count().as("reviews")
+                        .sum("entryCount").as("entries")
+                        .max("entryCount").as("maxEntries"));
+        ReviewEntryTotals totals = mongoOperations.aggregate(aggregation, ReviewEntryTotals.class).getUniqueMappedResult();
+        return totals != null ? totals : new ReviewEntryTotals();
+    }
+
+    @Override
+    public List<ReviewImportFailure> bulkImport(List<ReviewImportRecord> records) {
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+        // The records written by each operation, by the index of the operation, which is how failures are reported
+        List<List<ReviewImportRecord>> operations = new ArrayList<>();
+        Map<Integer, List<ReviewImportRecord>> entriesByProduct = new LinkedHashMap<>();
+        for (ReviewImportRecord record : records) {
+            if (record.isEntry()) {
+                entriesByProduct.computeIfAbsent(record.getProductId(), productId -> new ArrayList<>()).add(record);
+            } else {
+                record.getReview().getEntries().sort(Comparator.comparing(ReviewEntry::getDate));
+                bulk.insert(record.getReview());
+                operations.add(Collections.singletonList(record));
+            }
+        }
+
+        // The entries of a product are pushed together, so its review is sorted once per batch
+        entriesByProduct.forEach((productId, entryRecords) -> {
+            bulk.upsert(ReviewQueries.byProductId(productId), ReviewQueries.pushImportedEntries(entryRecords));
+            operations.add(entryRecords);
+        });
+
+        List<ReviewImportFailure> failures;
+        try {
+            bulk.execute();
+            failures = Collections.emptyList();
+        } catch (BulkOperationException e) {
+            failures = ReviewQueries.importFailures(e, operations);
+        }
+
+        if (!entriesByProduct.isEmpty()) {
+            mongoOperations.updateMulti(Query.query(Criteria.where("productId").in(entriesByProduct.keySet())),
+                    ReviewQueries.recomputeAggregates(), Review.class);
+        }
+        return failures;
+    }
+}
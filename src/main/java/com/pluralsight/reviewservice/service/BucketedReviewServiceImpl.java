@@ -0,0 +1,469 @@
+package com.pluralsight.reviewservice.service;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryBucket;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
+import com.pluralsight.reviewservice.repository.ReviewEntryBucketRepository;
+import com.pluralsight.reviewservice.repository.ReviewRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores review entries in ReviewEntryBuckets instead of in the Review document, so that appending an entry writes
+ * a small bucket and a counter rather than rewriting an ever growing document, and pages of entries only read the
+ * buckets they need.
+ *
+ * Reviews written by the embedded layout are read as they are and are moved to buckets when they are next written,
+ * or by the ReviewBucketMigrator. Entries that are still in a Review document after its buckets are read as the
+ * newest entries of the review.
+ */
+@Service
+@Qualifier("storage")
+@ConditionalOnProperty(name = "reviews.storage.layout", havingValue = "bucketed")
+@Timed(value = "reviews.storage", histogram = true)
+public class BucketedReviewServiceImpl implements ReviewService {
+
+    /**
+     * The number of times an entry append is attempted while concurrent writes move the review's entries to buckets.
+     */
+    private static final int MAX_APPEND_ATTEMPTS = 5;
+
+    private ReviewRepository repository;
+    private ReviewEntryBucketRepository bucketRepository;
+
+    /**
+     * Runs the bucket reads of multi-review lookups concurrently, on a virtual thread per read, when
+     * spring.threads.virtual.enabled is set; null to make them one after another on the calling thread, which a
+     * bounded pool of platform threads shared by all requests would not improve on.
+     */
+    private ExecutorService executor;
+
+    @Autowired
+    public BucketedReviewServiceImpl(ReviewRepository repository,
+                                     ReviewEntryBucketRepository bucketRepository,
+                                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(repository, bucketRepository, virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : null);
+    }
+
+    BucketedReviewServiceImpl(ReviewRepository repository, ReviewEntryBucketRepository bucketRepository,
+                              ExecutorService executor) {
+        this.repository = repository;
+        this.bucketRepository = bucketRepository;
+        this.executor = executor;
+    }
+
+    @PreDestroy
+    void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public Optional<Review> findById(String id) {
+        return repository.findById(id).map(this::withBucketedEntries);
+    }
+
+    @Override
+    public Optional<Review> findByProductId(Integer productId) {
+        return repository.findByProductId(productId).map(this::withBucketedEntries);
+    }
+
+    @Override
+    public Map<Integer, Review> findByProductIds(Collection<Integer> productIds) {
+        return fanOut(repository.findByProductIdIn(productIds), this::withBucketedEntries).stream()
+                .collect(Collectors.toMap(Review::getProductId, Function.identity()));
+    }
+
+    @Override
+    public Optional<Integer> findVersionById(String id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    public Optional<Integer> findVersionByProductId(Integer productId) {
+        return repository.findVersionByProductId(productId);
+    }
+
+    @Override
+    public Optional<ReviewEntryPage> findEntries(String id, int offset, int limit, boolean newestFirst) {
+        return repository.findById(id).map(review -> review.getEntryCount() == null
+                ? ReviewEntryPage.of(review, offset, limit, newestFirst)
+                : findBucketedEntries(review, offset, limit, newestFirst));
+    }
+
+    @Override
+    public Optional<ReviewSummary> findSummary(String id, int latest) {
+        return findEntries(id, 0, latest, true).map(ReviewSummary::of);
+    }
+
+    @Override
+    public Map<Integer, ReviewSummary> findSummariesByProductIds(Collection<Integer> productIds, int latest) {
+        // Reviews are small once their entries are in buckets, but each needs its own bucket queries
+        return fanOut(repository.findByProductIdIn(productIds), review -> ReviewSummary.of(review.getEntryCount() == null
+                        ? ReviewEntryPage.of(review, 0, latest, true)
+                        : findBucketedEntries(review, 0, latest, true))).stream()
+                .collect(Collectors.toMap(ReviewSummary::getProductId, Function.identity()));
+    }
+
+    @Override
+    public Optional<ReviewStats> findStats(Integer productId) {
+        return repository.findStats(Collections.singletonList(productId)).stream().findFirst();
+    }
+
+    @Override
+    public List<ReviewStats> findStats(Collection<Integer> productIds) {
+        return repository.findStats(productIds);
+    }
+
+    @Override
+    public List<ReviewEntryMatch> searchEntries(String text, int offset, int limit) {
+        // Entries that are still in their review's own document are searched there, and merged with the bucketed
+        // ones; each source contributes at most the entries up to the end of the page
+        List<ReviewEntryMatch> matches = new ArrayList<>(repository.searchEntries(text, 0, offset + limit));
+        matches.addAll(currentGeneration(bucketRepository.searchEntries(text, offset + limit)));
+        return matches.stream()
+                .sorted(ReviewEntryMatch.BY_SCORE)
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit) {
+        List<ReviewEntryMatch> matches = new ArrayList<>(repository.findEntriesByUsername(username, after, limit));
+        matches.addAll(currentGeneration((from, size) -> bucketRepository.findEntriesByUsername(username, from, size),
+                after, limit));
+        return matches.stream()
+                .sorted(ReviewEntryMatch.NEWEST_FIRST)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit) {
+        List<ReviewEntryMatch> matches = new ArrayList<>(repository.findRecentEntries(since, after, limit));
+        matches.addAll(currentGeneration((from, size) -> bucketRepository.findRecentEntries(since, from, size),
+                after, limit));
+        return matches.stream()
+                .sorted(ReviewEntryMatch.NEWEST_FIRST)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Review> findPage(String afterId, int limit) {
+        return fanOut(repository.findPage(afterId, limit), this::withBucketedEntries);
+    }
+
+    @Override
+    public Stream<Review> streamAll() {
+        return repository.streamAll().map(this::withBucketedEntries);
+    }
+
+    @Override
+    public Review save(Review review) {
+        // Save the entries with the review first, so that they are never lost if moving them to buckets fails
+        review.setVersion(1);
+        review.setEntryCount(0);
+        review.setBucketEpoch(newEpoch());
+        review.setTotalEntries(review.getEntries().size());
+        review.setLastEntryDate(ReviewStats.lastEntryDate(review.getEntries()));
+        Review saved = repository.save(review);
+        migrate(saved);
+        bucketRepository.deleteByReviewIdAndEpochNot(saved.getId(), saved.getBucketEpoch());
+        return saved;
+    }
+
+    @Override
+    public Review update(Review review) {
+        Review updated = repository.compareAndSetBucketed(review, newEpoch())
+                .orElseThrow(() -> new OptimisticLockingFailureException(
+                        "Review " + review.getId() + " is not at version " + review.getVersion()));
+        migrate(updated);
+        bucketRepository.deleteByReviewIdAndEpochNot(updated.getId(), updated.getBucketEpoch());
+        return updated;
+    }
+
+    @Override
+    public Review appendEntry(Integer productId, ReviewEntry entry) {
+        return append(productId, Collections.singletonList(entry));
+    }
+
+    @Override
+    public List<ReviewImportFailure> importRecords(List<ReviewImportRecord> records) {
+        List<ReviewImportRecord> reviews = records.stream()
+                .filter(record -> !record.isEntry())
+                .collect(Collectors.toList());
+        reviews.forEach(record -> {
+            Review review = record.getReview();
+            review.setVersion(1);
+            review.setTotalEntries(review.getEntries().size());
+            review.setLastEntryDate(ReviewStats.lastEntryDate(review.getEntries()));
+        });
+        List<ReviewImportFailure> failures = new ArrayList<>(repository.bulkImport(reviews));
+
+        // Imported entries are appended to the buckets like any other entries, a product at a time and in date
+        // order, after the entries the review already has
+        Map<Integer, List<ReviewImportRecord>> entriesByProduct = records.stream()
+                .filter(ReviewImportRecord::isEntry)
+                .collect(Collectors.groupingBy(ReviewImportRecord::getProductId, LinkedHashMap::new,
+                        Collectors.toList()));
+        entriesByProduct.forEach((productId, entryRecords) -> {
+            List<ReviewEntry> entries = entryRecords.stream()
+                    .map(ReviewImportRecord::getEntry)
+                    .sorted(Comparator.comparing(ReviewEntry::getDate))
+                    .collect(Collectors.toList());
+            try {
+                append(productId, entries);
+            } catch (DataAccessException e) {
+                entryRecords.forEach(record -> failures.add(new ReviewImportFailure(record.getLine(), e.getMessage())));
+            }
+        });
+        failures.sort(Comparator.comparingLong(ReviewImportFailure::getLine));
+        return failures;
+    }
+
+    /**
+     * Appends entries to the review for a product, creating the review if it does not exist yet. Each bucket write
+     * allocates the slots of the entries it stores, so concurrent appends never compete for a slot, and the review
+     * is then updated if it is still in the bucket generation that the entries were stored in.
+     *
+     * @param productId The product ID of the review.
+     * @param entries   The entries to append, in order.
+     * @return          The updated review, without its entries.
+     */
+    private Review append(Integer productId, List<ReviewEntry> entries) {
+        for (int attempt = 0; attempt < MAX_APPEND_ATTEMPTS; attempt++) {
+            Review review = repository.findOrCreateBucketed(productId, newEpoch());
+            if (!review.getEntries().isEmpty()) {
+                // The review still has entries in its own document, which have to be given slots before these
+                repository.findByProductId(productId).ifPresent(this::migrate);
+                continue;
+            }
+
+            // Start at the bucket of the next slot the review knows of; full buckets are skipped
+            int sequence = ReviewEntryBucket.sequenceOf(review.getEntryCount() == null ? 0 : review.getEntryCount());
+            int stored = 0;
+            int nextSlot = 0;
+            while (stored < entries.size()) {
+                List<Integer> slots = bucketRepository.appendEntries(review.getId(), review.getBucketEpoch(),
+                        productId, sequence++, entries.subList(stored, entries.size()));
+                if (!slots.isEmpty()) {
+                    stored += slots.size();
+                    nextSlot = slots.get(slots.size() - 1) + 1;
+                }
+            }
+
+            Optional<Review> recorded = repository.recordBucketedEntries(review.getId(), review.getBucketEpoch(),
+                    nextSlot, entries.size(), ReviewStats.lastEntryDate(entries));
+            if (recorded.isPresent()) {
+                return recorded.get();
+            }
+            // The review was replaced or deleted, and the buckets the entries were stored in are being discarded
+        }
+        throw new OptimisticLockingFailureException("Could not append entries to the review for product "
+                + productId + " after " + MAX_APPEND_ATTEMPTS + " attempts");
+    }
+
+    @Override
+    public void delete(String id) {
+        repository.deleteById(id);
+        bucketRepository.deleteByReviewId(id);
+    }
+
+    /**
+     * Moves the entries in a review's own document to the review's buckets. The entries are copied into the next
+     * free slots first and only removed from the review if it has not been written in the meantime, so a failed or
+     * concurrent migration never loses entries; slots that were already copied are not copied again.
+     *
+     * @param review    The review, as read from the database.
+     * @return          True if the review's entries are in buckets, false if the review changed and must be re-read.
+     */
+    public boolean migrate(Review review) {
+        List<ReviewEntry> entries = review.getEntries();
+        if (entries.isEmpty()) {
+            return true;
+        }
+
+        int entryCount = review.getEntryCount() == null ? 0 : review.getEntryCount();
+        for (int i = 0; i < entries.size(); i++) {
+            bucketRepository.pushEntry(review.getId(), review.getBucketEpoch(), review.getProductId(),
+                    entryCount + i, entries.get(i));
+        }
+
+        if (!repository.completeEntryMigration(review.getId(), review.getVersion(), entryCount + entries.size())) {
+            return false;
+        }
+        review.setEntryCount(entryCount + entries.size());
+        return true;
+    }
+
+    /**
+     * Applies a read to each of the reviews, concurrently on the executor if there is one, and waits for all of them.
+     * The results are in the order of the reviews.
+     */
+    private <T> List<T> fanOut(List<Review> reviews, Function<Review, T> read) {
+        if (executor == null) {
+            return reviews.stream().map(read).collect(Collectors.toList());
+        }
+        List<CompletableFuture<T>> futures = reviews.stream()
+                .map(review -> CompletableFuture.supplyAsync(() -> read.apply(review), executor))
+                .collect(Collectors.toList());
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            // Surface the failure of a read as if it had been made on the calling thread
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the entries of a review read from the database with all of its entries: those in its buckets,
+     * followed by any that are still in its own document.
+     */
+    private Review withBucketedEntries(Review review) {
+        if (review.getEntryCount() == null) {
+            return review;
+        }
+
+        List<ReviewEntry> embedded = new ArrayList<>(review.getEntries());
+        review.getEntries().clear();
+        bucketRepository.findByReviewIdAndEpochOrderBySequence(review.getId(), review.getBucketEpoch())
+                .forEach(bucket -> addEntries(bucket, review.getEntries()));
+        review.getEntries().addAll(embedded);
+        return review;
+    }
+
+    /**
+     * Returns a page of the entries of a bucketed review, reading only the buckets that hold entries of the page.
+     */
+    private ReviewEntryPage findBucketedEntries(Review review, int offset, int limit, boolean newestFirst) {
+        SortedMap<Integer, Integer> sizes = bucketRepository.findBucketSizes(review.getId(), review.getBucketEpoch());
+        int bucketed = sizes.values().stream().mapToInt(Integer::intValue).sum();
+        int total = bucketed + review.getEntries().size();
+
+        // The page as a range of positions in oldest first order
+        int from = newestFirst ? Math.max(0, total - offset - limit) : Math.min(offset, total);
+        int to = newestFirst ? Math.max(0, total - offset) : Math.min(offset + limit, total);
+
+        List<Integer> sequences = new ArrayList<>();
+        int firstPosition = -1;
+        int position = 0;
+        for (Map.Entry<Integer, Integer> size : sizes.entrySet()) {
+            if (position < to && position + size.getValue() > from) {
+                sequences.add(size.getKey());
+                if (firstPosition < 0) {
+                    firstPosition = position;
+                }
+            }
+            position += size.getValue();
+        }
+
+        List<ReviewEntry> entries = new ArrayList<>();
+        if (!sequences.isEmpty()) {
+            bucketRepository.findByReviewIdAndEpochAndSequenceInOrderBySequence(
+                    review.getId(), review.getBucketEpoch(), sequences)
+                    .forEach(bucket -> addEntries(bucket, entries));
+        }
+        entries.addAll(review.getEntries());
+
+        // Entries holds positions firstPosition onwards, followed by the embedded entries from position bucketed on
+        int start = sequences.isEmpty() ? bucketed : firstPosition;
+        int pageFrom = Math.min(Math.max(0, from - start), entries.size());
+        List<ReviewEntry> page = new ArrayList<>(entries.subList(pageFrom,
+                Math.min(Math.max(pageFrom, to - start), entries.size())));
+        if (newestFirst) {
+            Collections.reverse(page);
+        }
+
+        return new ReviewEntryPage(review.getId(), review.getProductId(), review.getVersion(), total, offset, page);
+    }
+
+    /**
+     * Leaves out the entries found in buckets of a generation that has been replaced, which are only there until
+     * they are deleted after the replacement.
+     */
+    private List<ReviewEntryMatch> currentGeneration(List<ReviewEntryMatch> matches) {
+        if (matches.isEmpty()) {
+            return matches;
+        }
+        Map<String, String> epochs = repository.findBucketEpochs(matches.stream()
+                .map(ReviewEntryMatch::getReviewId)
+                .collect(Collectors.toSet()));
+        return matches.stream()
+                .filter(match -> match.getEpoch() != null && match.getEpoch().equals(epochs.get(match.getReviewId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads keyset pages of entries from buckets until it has found the specified number of entries of current bucket
+     * generations, or there are no more, so that a page is only short when it is the last one.
+     * @param query The query for a keyset page of entries, given the last entry of the previous page and the size.
+     * @param after The last entry of the previous page, or null for the first page.
+     * @param limit The number of entries to find.
+     * @return      At most limit entries of current bucket generations, in the order of the query.
+     */
+    private List<ReviewEntryMatch> currentGeneration(BiFunction<ReviewEntryMatch, Integer, List<ReviewEntryMatch>> query,
+                                                     ReviewEntryMatch after, int limit) {
+        List<ReviewEntryMatch> current = new ArrayList<>();
+        ReviewEntryMatch from = after;
+        while (current.size() < limit) {
+            int size = limit - current.size();
+            List<ReviewEntryMatch> page = query.apply(from, size);
+            current.addAll(currentGeneration(page));
+            if (page.size() < size) {
+                break;
+            }
+            from = page.get(page.size() - 1);
+        }
+        return current;
+    }
+
+    private static void addEntries(ReviewEntryBucket bucket, List<ReviewEntry> entries) {
+        bucket.getEntries().stream()
+                .sorted(Comparator.comparingInt(ReviewEntryBucket.Entry::getSlot))
+                .map(ReviewEntryBucket.Entry::toReviewEntry)
+                .forEach(entries::add);
+    }
+
+    private static String newEpoch() {
+        return new ObjectId().toHexString();
+    }
+}
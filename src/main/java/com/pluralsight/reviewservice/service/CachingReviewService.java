@@ -0,0 +1,472 @@
+package com.pluralsight.reviewservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pluralsight.reviewservice.cache.ReviewInvalidation;
+import com.pluralsight.reviewservice.cache.ReviewInvalidationBus;
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A read-through cache in front of the ReviewService that stores reviews by ID and by product ID. Entries are
+ * bounded by size and time-to-live, and are refreshed or invalidated by every write that goes through this node.
+ * Writes are also published on the ReviewInvalidationBus, so that the other nodes of the deployment drop their
+ * older copies instead of serving them until they expire.
+ *
+ * A cached review is only ever replaced by one with the same or a higher version, so once this node has written a
+ * version it never serves an older one. Cached reviews are shared between callers and must not be modified.
+ *
+ * The statistics of both caches are published as the cache.* meters of the "reviews" and "reviewProductIds" caches,
+ * and through JMX when it is enabled.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "reviews.cache.enabled", havingValue = "true", matchIfMissing = true)
+@ManagedResource(objectName = "com.pluralsight.reviewservice:name=ReviewCache", description = "Review cache")
+@Timed(value = "reviews.service", histogram = true)
+public class CachingReviewService implements ReviewService {
+
+    /**
+     * The service that reads and writes reviews in the database.
+     */
+    private ReviewService delegate;
+
+    /**
+     * Reviews by review ID.
+     */
+    private Cache<String, Review> reviewsById;
+
+    /**
+     * Review IDs by product ID, so product lookups share the cached reviews. Its statistics count product lookups
+     * only; invalidations read it through its map view.
+     */
+    private Cache<Integer, String> reviewIdsByProductId;
+
+    /**
+     * Orders invalidations and loads, so that a load can tell whether what it read was invalidated in the meantime.
+     */
+    private AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The sequence number of the last invalidation of every review ID and product ID invalidated within the TTL, so
+     * that only the loads of those reviews are not cached when they race with an invalidation.
+     */
+    private Cache<Object, Long> invalidatedAt;
+
+    /**
+     * The sequence number of the last time the whole cache was invalidated.
+     */
+    private volatile long allInvalidatedAt;
+
+    private ReviewInvalidationBus invalidationBus;
+
+    public CachingReviewService(@Qualifier("storage") ReviewService delegate,
+                                @Value("${reviews.cache.max-size:10000}") long maxSize,
+                                @Value("${reviews.cache.ttl:60s}") Duration ttl,
+                                ReviewInvalidationBus invalidationBus,
+                                MeterRegistry registry) {
+        this.delegate = delegate;
+        this.invalidationBus = invalidationBus;
+        this.reviewsById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.reviewIdsByProductId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.invalidatedAt = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        invalidationBus.subscribe(this::apply);
+        CaffeineCacheMetrics.monitor(registry, reviewsById, "reviews");
+        CaffeineCacheMetrics.monitor(registry, reviewIdsByProductId, "reviewProductIds");
+    }
+
+    @Override
+    public Optional<Review> findById(String id) {
+        Review cached = reviewsById.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long readAt = sequence.get();
+        return delegate.findById(id).map(review -> cache(review, readAt));
+    }
+
+    @Override
+    public Optional<Review> findByProductId(Integer productId) {
+        Review cached = cachedByProductId(productId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long readAt = sequence.get();
+        return delegate.findByProductId(productId).map(review -> cache(review, readAt));
+    }
+
+    @Override
+    public Map<Integer, Review> findByProductIds(Collection<Integer> productIds) {
+        // Answer what we can from the cache and load the rest with a single query
+        Map<Integer, Review> reviews = new HashMap<>();
+        List<Integer> uncached = new ArrayList<>();
+        for (Integer productId : productIds) {
+            Review cached = cachedByProductId(productId);
+            if (cached != null) {
+                reviews.put(productId, cached);
+            } else {
+                uncached.add(productId);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            long readAt = sequence.get();
+            delegate.findByProductIds(uncached).forEach((productId, review) -> reviews.put(productId, cache(review, readAt)));
+        }
+        return reviews;
+    }
+
+    @Override
+    public Optional<Integer> findVersionById(String id) {
+        Review cached = reviewsById.getIfPresent(id);
+        return cached != null ? Optional.of(cached.getVersion()) : delegate.findVersionById(id);
+    }
+
+    @Override
+    public Optional<Integer> findVersionByProductId(Integer productId) {
+        Review cached = cachedByProductId(productId);
+        return cached != null ? Optional.of(cached.getVersion()) : delegate.findVersionByProductId(productId);
+    }
+
+    @Override
+    public Optional<ReviewEntryPage> findEntries(String id, int offset, int limit, boolean newestFirst) {
+        // Slice a cached review in memory; otherwise let the database slice it rather than loading it whole
+        Review cached = reviewsById.getIfPresent(id);
+        return cached != null
+                ? Optional.of(ReviewEntryPage.of(cached, offset, limit, newestFirst))
+                : delegate.findEntries(id, offset, limit, newestFirst);
+    }
+
+    @Override
+    public Optional<ReviewSummary> findSummary(String id, int latest) {
+        Review cached = reviewsById.getIfPresent(id);
+        return cached != null
+                ? Optional.of(ReviewSummary.of(ReviewEntryPage.of(cached, 0, latest, true)))
+                : delegate.findSummary(id, latest);
+    }
+
+    @Override
+    public Map<Integer, ReviewSummary> findSummariesByProductIds(Collection<Integer> productIds, int latest) {
+        Map<Integer, ReviewSummary> summaries = new HashMap<>();
+        List<Integer> uncached = new ArrayList<>();
+        for (Integer productId : productIds) {
+            Review cached = cachedByProductId(productId);
+            if (cached != null) {
+                summaries.put(productId, ReviewSummary.of(ReviewEntryPage.of(cached, 0, latest, true)));
+            } else {
+                uncached.add(productId);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            summaries.putAll(delegate.findSummariesByProductIds(uncached, latest));
+        }
+        return summaries;
+    }
+
+    @Override
+    public Optional<ReviewStats> findStats(Integer productId) {
+        Review cached = cachedByProductId(productId);
+        return cached != null ? Optional.of(ReviewStats.of(cached)) : delegate.findStats(productId);
+    }
+
+    @Override
+    public List<ReviewStats> findStats(Collection<Integer> productIds) {
+        // Answer what we can from cached reviews and fetch the rest with a single query
+        List<ReviewStats> stats = new ArrayList<>();
+        List<Integer> uncached = new ArrayList<>();
+        for (Integer productId : productIds) {
+            Review cached = cachedByProductId(productId);
+            if (cached != null) {
+                stats.add(ReviewStats.of(cached));
+            } else {
+                uncached.add(productId);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            stats.addAll(delegate.findStats(uncached));
+        }
+        return stats;
+    }
+
+    @Override
+    public List<ReviewEntryMatch> searchEntries(String text, int offset, int limit) {
+        return delegate.searchEntries(text, offset, limit);
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit) {
+        return delegate.findEntriesByUsername(username, after, limit);
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit) {
+        return delegate.findRecentEntries(since, after, limit);
+    }
+
+    @Override
+    public List<Review> findPage(String afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<Review> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Review save(Review review) {
+        // A save overwrites the stored review and resets its version, so drop what we have rather than merge, and
+        // have the other nodes drop theirs whatever their version
+        Review savedReview = delegate.save(review);
+        invalidate(savedReview.getId(), savedReview.getProductId());
+        invalidationBus.publish(savedReview.getId(), savedReview.getProductId(), null);
+        return savedReview;
+    }
+
+    @Override
+    public Review update(Review review) {
+        return publish(cache(delegate.update(review), sequence.get()));
+    }
+
+    @Override
+    public Review appendEntry(Integer productId, ReviewEntry entry) {
+        // The review is returned without its entries, so it cannot replace the cached review
+        Review appended = delegate.appendEntry(productId, entry);
+        invalidate(appended.getId(), productId);
+        return publish(appended);
+    }
+
+    @Override
+    public List<ReviewImportFailure> importRecords(List<ReviewImportRecord> records) {
+        List<ReviewImportFailure> failures = delegate.importRecords(records);
+        // Imported entries change the reviews of their products; imported reviews are new and cannot be cached
+        records.stream()
+                .filter(ReviewImportRecord::isEntry)
+                .map(ReviewImportRecord::getProductId)
+                .distinct()
+                .forEach(productId -> {
+                    String id = reviewIdsByProductId.asMap().get(productId);
+                    if (id != null) {
+                        invalidate(id, productId);
+                    }
+                });
+        // The other nodes may have cached any of the products, and the new versions are not known here
+        records.stream()
+                .filter(ReviewImportRecord::isEntry)
+                .map(ReviewImportRecord::getProductId)
+                .distinct()
+                .forEach(productId -> invalidationBus.publish(null, productId, null));
+        return failures;
+    }
+
+    @Override
+    public void delete(String id) {
+        delegate.delete(id);
+        invalidate(id, null);
+        invalidationBus.publish(id, null, null);
+    }
+
+    /**
+     * Returns the cached review of a product. The product ID of the review is checked, since the mapping from
+     * product ID to review ID is not removed when another node changes the product ID of a review.
+     */
+    private Review cachedByProductId(Integer productId) {
+        String id = reviewIdsByProductId.getIfPresent(productId);
+        Review cached = id != null ? reviewsById.getIfPresent(id) : null;
+        return cached != null && productId.equals(cached.getProductId()) ? cached : null;
+    }
+
+    /**
+     * Tells the other nodes about a review written through this one, at a version higher than any before it.
+     */
+    private Review publish(Review review) {
+        invalidationBus.publish(review.getId(), review.getProductId(), review.getVersion());
+        return review;
+    }
+
+    /**
+     * Applies an invalidation published by another node: drops the cached review unless it is already at the
+     * written version or newer.
+     * @param invalidation  The invalidation to apply.
+     * @return              True if a cached review was dropped.
+     */
+    boolean apply(ReviewInvalidation invalidation) {
+        if (invalidation.getReviewId() == null && invalidation.getProductId() == null) {
+            boolean cached = reviewsById.estimatedSize() > 0;
+            invalidateAll();
+            return cached;
+        }
+
+        String id = invalidation.getReviewId() != null
+                ? invalidation.getReviewId()
+                : reviewIdsByProductId.asMap().get(invalidation.getProductId());
+        // Even when nothing is cached, a load of the review that is in flight may have read the older version
+        markInvalidated(id);
+        markInvalidated(invalidation.getProductId());
+        Review cached = id != null ? reviewsById.getIfPresent(id) : null;
+        if (cached == null) {
+            return false;
+        }
+        if (invalidation.getVersion() != null && cached.getVersion() >= invalidation.getVersion()) {
+            return false;
+        }
+        reviewsById.invalidate(id);
+        return true;
+    }
+
+    /**
+     * Caches a review read from or written to the database, unless a newer version is already cached.
+     * @param review        The review to cache.
+     * @param readAt        The sequence number observed before the review was read from the database.
+     * @return              The most recent version of the review: the cached one if it is newer.
+     */
+    private Review cache(Review review, long readAt) {
+        if (allInvalidatedAt > readAt || invalidatedSince(review.getId(), readAt)
+                || invalidatedSince(review.getProductId(), readAt)) {
+            // The review was invalidated while we were reading it, so what we read may already be stale
+            return review;
+        }
+        reviewIdsByProductId.put(review.getProductId(), review.getId());
+        return reviewsById.asMap().merge(review.getId(), review,
+                (cached, candidate) -> candidate.getVersion() >= cached.getVersion() ? candidate : cached);
+    }
+
+    /**
+     * Removes a review from the cache, along with the mappings to it from the product ID of the cached review and
+     * from the specified product ID. A mapping from another product ID that is left behind resolves to no cached
+     * review, and is replaced when the product's review is next loaded.
+     * @param id        The ID of the review to remove.
+     * @param productId The product ID of the review as written, or null if it is not known.
+     */
+    private void invalidate(String id, Integer productId) {
+        markInvalidated(id);
+        Review cached = reviewsById.asMap().remove(id);
+        if (cached != null) {
+            reviewIdsByProductId.asMap().remove(cached.getProductId(), id);
+        }
+        if (productId != null) {
+            reviewIdsByProductId.asMap().remove(productId, id);
+        }
+    }
+
+    /**
+     * Records that a review ID or product ID was invalidated, after every load that is in flight started.
+     * @param key   The review ID or product ID, or null if it is not known.
+     */
+    private void markInvalidated(Object key) {
+        if (key != null) {
+            invalidatedAt.put(key, sequence.incrementAndGet());
+        }
+    }
+
+    /**
+     * Returns true if a review ID or product ID was invalidated after the specified sequence number.
+     */
+    private boolean invalidatedSince(Object key, long readAt) {
+        Long at = key != null ? invalidatedAt.getIfPresent(key) : null;
+        return at != null && at > readAt;
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of the review cache.
+     * @return  The review cache statistics.
+     */
+    public CacheStats stats() {
+        return reviewsById.stats();
+    }
+
+    @ManagedAttribute(description = "Number of lookups served from the cache")
+    public long getHitCount() {
+        return stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of lookups that went to the database")
+    public long getMissCount() {
+        return stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Number of reviews evicted by size or time-to-live")
+    public long getEvictionCount() {
+        return stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Number of cached reviews")
+    public long getSize() {
+        return reviewsById.estimatedSize();
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of the product ID to review ID mappings. A hit only finds the
+     * review ID; the review itself is then looked up in the review cache.
+     * @return  The product ID cache statistics.
+     */
+    public CacheStats productIdStats() {
+        return reviewIdsByProductId.stats();
+    }
+
+    @ManagedAttribute(description = "Number of product lookups that found the review ID in the cache")
+    public long getProductIdHitCount() {
+        return productIdStats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of product lookups that did not find the review ID in the cache")
+    public long getProductIdMissCount() {
+        return productIdStats().missCount();
+    }
+
+    @ManagedAttribute(description = "Number of product ID mappings evicted by size or time-to-live")
+    public long getProductIdEvictionCount() {
+        return productIdStats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Number of cached product ID mappings")
+    public long getProductIdSize() {
+        return reviewIdsByProductId.estimatedSize();
+    }
+
+    @ManagedOperation(description = "Removes every review from the cache")
+    public void invalidateAll() {
+        allInvalidatedAt = sequence.incrementAndGet();
+        reviewsById.invalidateAll();
+        reviewIdsByProductId.invalidateAll();
+    }
+}
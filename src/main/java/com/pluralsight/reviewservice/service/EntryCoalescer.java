@@ -0,0 +1,170 @@
+package com.pluralsight.reviewservice.service;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Group commit for the entries appended to the same product. The first append to a product opens a batch and waits
+ * up to the window for more appends to join it, or until it is full, then writes all of its entries with a single
+ * update. Every append returns once that write has been acknowledged, with the review as the batch wrote it, or
+ * fails with the exception that failed the batch: callers get the same acknowledgement and durability as if they
+ * had written alone. Appends to different products never wait for each other.
+ *
+ * Reports the number of entries per write as reviews.entries.batch.size and the number of entries waiting in open
+ * batches as reviews.entries.pending.
+ */
+class EntryCoalescer {
+
+    /**
+     * Writes the entries of a batch, in order, with a single update.
+     */
+    private BiFunction<Integer, List<ReviewEntry>, Review> writer;
+
+    private long windowNanos;
+
+    private int maxBatchSize;
+
+    /**
+     * The batch that appends to each product join, until it is closed.
+     */
+    private ConcurrentMap<Integer, Batch> batches = new ConcurrentHashMap<>();
+
+    private AtomicInteger pending = new AtomicInteger();
+
+    private DistributionSummary batchSizes;
+
+    EntryCoalescer(BiFunction<Integer, List<ReviewEntry>, Review> writer, Duration window, int maxBatchSize,
+                   MeterRegistry registry) {
+        this.writer = writer;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+
+        this.batchSizes = DistributionSummary.builder("reviews.entries.batch.size")
+                .description("Number of entries appended to a review per write")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("reviews.entries.pending", pending, AtomicInteger::get)
+                .description("Number of entries waiting for their batch to be written")
+                .register(registry);
+    }
+
+    /**
+     * Appends an entry to the review of a product as part of the product's current batch.
+     * @param productId The product ID of the review to which to append the entry.
+     * @param entry     The entry to append.
+     * @return          The review as written by the batch that held the entry.
+     */
+    Review append(Integer productId, ReviewEntry entry) {
+        Batch batch;
+        boolean first;
+        while (true) {
+            batch = batches.computeIfAbsent(productId, id -> new Batch());
+            int position = batch.add(entry);
+            if (position >= 0) {
+                first = position == 0;
+                break;
+            }
+            // The batch is closed or full, and its writer has not unregistered it yet
+            batches.remove(productId, batch);
+        }
+        pending.incrementAndGet();
+
+        if (first) {
+            List<ReviewEntry> entries = batch.awaitAndClose();
+            batches.remove(productId, batch);
+            try {
+                batch.result.complete(writer.apply(productId, entries));
+            } catch (RuntimeException | Error e) {
+                batch.result.completeExceptionally(e);
+            } finally {
+                pending.addAndGet(-entries.size());
+                batchSizes.record(entries.size());
+            }
+        }
+
+        try {
+            return batch.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The entries that will be written together. A lock rather than a monitor guards it, so that waiting does not
+     * pin a virtual thread to its carrier.
+     */
+    private class Batch {
+
+        private ReentrantLock lock = new ReentrantLock();
+
+        private Condition full = lock.newCondition();
+
+        private List<ReviewEntry> entries = new ArrayList<>();
+
+        private boolean closed;
+
+        private CompletableFuture<Review> result = new CompletableFuture<>();
+
+        /**
+         * Adds an entry unless the batch is closed or full.
+         * @return  The position of the entry in the batch, or -1 if it was not added.
+         */
+        int add(ReviewEntry entry) {
+            lock.lock();
+            try {
+                if (closed || entries.size() >= maxBatchSize) {
+                    return -1;
+                }
+                entries.add(entry);
+                if (entries.size() == maxBatchSize) {
+                    full.signal();
+                }
+                return entries.size() - 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Waits until the batch is full or the window has passed, and closes it to further entries.
+         * @return  The entries of the batch.
+         */
+        List<ReviewEntry> awaitAndClose() {
+            lock.lock();
+            try {
+                long remaining = windowNanos;
+                while (entries.size() < maxBatchSize && remaining > 0) {
+                    remaining = full.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                // Write what we have: the other appends in the batch are waiting for it
+                Thread.currentThread().interrupt();
+            } finally {
+                closed = true;
+                lock.unlock();
+            }
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.pluralsight.reviewservice.service;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The non-blocking counterpart of ReviewService, used by the reactive API. Methods return immediately and complete
+ * their Mono or Flux when MongoDB answers, so no thread waits on the database.
+ */
+public interface ReactiveReviewService {
+    /**
+     * Returns the review with the specified ID.
+     * @param id        The ID of the review to return.
+     * @return          The review with the specified ID, or empty.
+     */
+    Mono<Review> findById(String id);
+
+    /**
+     * Returns the review with the specified product ID.
+     * @param productId The product ID for which to return the review.
+     * @return          The review for the specified product ID, or empty.
+     */
+    Mono<Review> findByProductId(Integer productId);
+
+    /**
+     * Returns the reviews for the specified products with a single query.
+     * @param productIds    The product IDs for which to return reviews.
+     * @return              The reviews that exist, keyed by product ID.
+     */
+    Mono<Map<Integer, Review>> findByProductIds(Collection<Integer> productIds);
+
+    /**
+     * Returns the current version of the review with the specified ID without loading its entries.
+     * @param id        The ID of the review.
+     * @return          The version of the review with the specified ID, or empty.
+     */
+    Mono<Integer> findVersionById(String id);
+
+    /**
+     * Returns the current version of the review for the specified product ID without loading its entries.
+     * @param productId The product ID of the review.
+     * @return          The version of the review for the specified product ID, or empty.
+     */
+    Mono<Integer> findVersionByProductId(Integer productId);
+
+    /**
+     * Returns a page of the entries of the review with the specified ID.
+     * @param id            The ID of the review.
+     * @param offset        The number of entries to skip.
+     * @param limit         The maximum number of entries to return.
+     * @param newestFirst   True to order entries from newest to oldest, false from oldest to newest.
+     * @return              The page of entries of the review with the specified ID, or empty.
+     */
+    Mono<ReviewEntryPage> findEntries(String id, int offset, int limit, boolean newestFirst);
+
+    /**
+     * Returns the entry count and the most recent entries of the review with the specified ID.
+     * @param id            The ID of the review.
+     * @param latest        The maximum number of recent entries to return.
+     * @return              The summary of the review with the specified ID, or empty.
+     */
+    Mono<ReviewSummary> findSummary(String id, int latest);
+
+    /**
+     * Returns the summaries of the reviews for the specified products, reading only their most recent entries.
+     * @param productIds    The product IDs for which to return summaries.
+     * @param latest        The maximum number of recent entries to return per review.
+     * @return              The summaries of the reviews that exist, keyed by product ID.
+     */
+    Mono<Map<Integer, ReviewSummary>> findSummariesByProductIds(Collection<Integer> productIds, int latest);
+
+    /**
+     * Returns the entry count and latest entry date of the review for the specified product, without its entries.
+     * @param productId The product ID of the review.
+     * @return          The aggregates of the review for the specified product ID, or empty.
+     */
+    Mono<ReviewStats> findStats(Integer productId);
+
+    /**
+     * Returns the entry counts and latest entry dates of the reviews for the specified products, without entries.
+     * @param productIds    The product IDs of the reviews.
+     * @return              The aggregates of the reviews that exist, in no particular order.
+     */
+    Flux<ReviewStats> findStats(Collection<Integer> productIds);
+
+    /**
+     * Searches the text and usernames of the entries of all reviews for any of the specified words.
+     * @param text      The words to search for; a word prefixed with "-" excludes reviews that contain it.
+     * @param offset    The number of matching entries to skip.
+     * @param limit     The maximum number of entries to return.
+     * @return          The matching entries, most relevant first.
+     */
+    Flux<ReviewEntryMatch> searchEntries(String text, int offset, int limit);
+
+    /**
+     * Returns a page of the entries that a user wrote across all reviews, newest first.
+     * @param username  The username of the entries.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    Flux<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit);
+
+    /**
+     * Returns a page of the newest entries of all reviews since a date, newest first.
+     * @param since     The date of the oldest entries to return.
+     * @param after     The last entry of the previous page, or null for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    Flux<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit);
+
+    /**
+     * Returns a page of reviews ordered by ID.
+     * @param afterId   The ID of the last review of the previous page, or null for the first page.
+     * @param limit     The maximum number of reviews to return.
+     * @return          The reviews in the page.
+     */
+    Flux<Review> findPage(String afterId, int limit);
+
+    /**
+     * Streams all reviews in the database, fetching them from the cursor as the subscriber requests them.
+     * @return          All reviews in the database.
+     */
+    Flux<Review> streamAll();
+
+    /**
+     * Saves the specified review to the database.
+     * @param review    The review to save.
+     * @return          The saved review, including a newly generated ID.
+     */
+    Mono<Review> save(Review review);
+
+    /**
+     * Updates the specified review in the database if, and only if, the stored review is still at the version
+     * carried by the specified review. The version of the updated review is incremented.
+     * @param review    The review to update, carrying the version that the caller last read.
+     * @return          The updated review, or an OptimisticLockingFailureException if the stored review does not
+     *                  exist or is at a different version.
+     */
+    Mono<Review> update(Review review);
+
+    /**
+     * Appends an entry to the review for the specified product ID, creating the review if it does not exist yet.
+     * @param productId The product ID of the review to which to add the entry.
+     * @param entry     The entry to add.
+     * @return          The updated review, with its version incremented, without its entries.
+     */
+    Mono<Review> appendEntry(Integer productId, ReviewEntry entry);
+
+    /**
+     * Writes a batch of imported reviews and entries with a single bulk write. Imported reviews start at version 1;
+     * existing reviews are not replaced.
+     * @param records   The records to import.
+     * @return          The records that could not be written.
+     */
+    Mono<List<ReviewImportFailure>> importRecords(List<ReviewImportRecord> records);
+
+    /**
+     * Deletes the review with the specified ID.
+     * @param id        The ID of the review to delete.
+     * @return          Completes when the review has been deleted.
+     */
+    Mono<Void> delete(String id);
+}
@@ -0,0 +1,151 @@
+package com.pluralsight.reviewservice.service;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
+import com.pluralsight.reviewservice.repository.ReactiveReviewRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes reviews with the embedded storage layout through the reactive MongoDB driver. The bucketed layout
+ * is only supported by the blocking services.
+ */
+@Service
+@ConditionalOnProperty(name = "reviews.storage.layout", havingValue = "embedded", matchIfMissing = true)
+public class ReactiveReviewServiceImpl implements ReactiveReviewService {
+
+    private ReactiveReviewRepository repository;
+
+    public ReactiveReviewServiceImpl(ReactiveReviewRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Mono<Review> findById(String id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    public Mono<Review> findByProductId(Integer productId) {
+        return repository.findByProductId(productId);
+    }
+
+    @Override
+    public Mono<Map<Integer, Review>> findByProductIds(Collection<Integer> productIds) {
+        return repository.findByProductIdIn(productIds).collectMap(Review::getProductId);
+    }
+
+    @Override
+    public Mono<Integer> findVersionById(String id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    public Mono<Integer> findVersionByProductId(Integer productId) {
+        return repository.findVersionByProductId(productId);
+    }
+
+    @Override
+    public Mono<ReviewEntryPage> findEntries(String id, int offset, int limit, boolean newestFirst) {
+        return repository.findEntryPage(id, offset, limit, newestFirst);
+    }
+
+    @Override
+    public Mono<ReviewSummary> findSummary(String id, int latest) {
+        return repository.findEntryPage(id, 0, latest, true).map(ReviewSummary::of);
+    }
+
+    @Override
+    public Mono<Map<Integer, ReviewSummary>> findSummariesByProductIds(Collection<Integer> productIds, int latest) {
+        return repository.findLatestEntriesByProductIds(productIds, latest)
+                .collectMap(ReviewEntryPage::getProductId, ReviewSummary::of);
+    }
+
+    @Override
+    public Mono<ReviewStats> findStats(Integer productId) {
+        return repository.findStats(Collections.singletonList(productId)).next();
+    }
+
+    @Override
+    public Flux<ReviewStats> findStats(Collection<Integer> productIds) {
+        return repository.findStats(productIds);
+    }
+
+    @Override
+    public Flux<ReviewEntryMatch> searchEntries(String text, int offset, int limit) {
+        return repository.searchEntries(text, offset, limit);
+    }
+
+    @Override
+    public Flux<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit) {
+        return repository.findEntriesByUsername(username, after, limit);
+    }
+
+    @Override
+    public Flux<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit) {
+        return repository.findRecentEntries(since, after, limit);
+    }
+
+    @Override
+    public Flux<Review> findPage(String afterId, int limit) {
+        return repository.findPage(afterId, limit);
+    }
+
+    @Override
+    public Flux<Review> streamAll() {
+        return repository.streamAll();
+    }
+
+    @Override
+    public Mono<Review> save(Review review) {
+        review.setVersion(1);
+        review.setTotalEntries(review.getEntries().size());
+        review.setLastEntryDate(ReviewStats.lastEntryDate(review.getEntries()));
+        return repository.save(review);
+    }
+
+    @Override
+    public Mono<Review> update(Review review) {
+        return repository.compareAndSet(review)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new OptimisticLockingFailureException(
+                        "Review " + review.getId() + " is not at version " + review.getVersion()))));
+    }
+
+    @Override
+    public Mono<Review> appendEntry(Integer productId, ReviewEntry entry) {
+        return repository.appendEntry(productId, entry);
+    }
+
+    @Override
+    public Mono<List<ReviewImportFailure>> importRecords(List<ReviewImportRecord> records) {
+        records.stream()
+                .filter(record -> !record.isEntry())
+                .map(ReviewImportRecord::getReview)
+                .forEach(review -> {
+                    review.setVersion(1);
+                    review.setTotalEntries(review.getEntries().size());
+                    review.setLastEntryDate(ReviewStats.lastEntryDate(review.getEntries()));
+                });
+        return repository.bulkImport(records);
+    }
+
+    @Override
+    public Mono<Void> delete(String id) {
+        return repository.deleteById(id);
+    }
+}
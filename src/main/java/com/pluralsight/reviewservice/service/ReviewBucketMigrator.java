@@ -0,0 +1,92 @@
+package com.pluralsight.reviewservice.service;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.repository.ReviewRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Moves the entries of reviews written by the embedded layout into buckets, in a background thread started when the
+ * application is ready. Reviews are migrated one at a time and the migration can be stopped and restarted at any
+ * point, so it is safe to run while the service takes traffic and on several instances at once.
+ *
+ * Only enable this once every instance runs the bucketed layout: an instance that still runs the embedded layout
+ * does not see entries that have been moved to buckets. There is no migration back to the embedded layout.
+ */
+@Component
+@ConditionalOnExpression("'${reviews.storage.layout:embedded}' == 'bucketed' and ${reviews.storage.migrate:false}")
+public class ReviewBucketMigrator {
+
+    private static final Logger logger = LogManager.getLogger(ReviewBucketMigrator.class);
+
+    /**
+     * The number of times a review is re-read and migrated again when it is written during its migration.
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
+    private ReviewRepository repository;
+    private BucketedReviewServiceImpl service;
+
+    public ReviewBucketMigrator(ReviewRepository repository, BucketedReviewServiceImpl service) {
+        this.repository = repository;
+        this.service = service;
+    }
+
+    /**
+     * Starts the migration once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::migrateAll, "review-bucket-migrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Migrates every review that still has entries in its own document.
+     */
+    void migrateAll() {
+        logger.info("Moving embedded review entries to buckets");
+        int migrated = 0;
+        int failed = 0;
+        try (Stream<Review> reviews = repository.streamWithEmbeddedEntries()) {
+            for (Review review : (Iterable<Review>) reviews::iterator) {
+                if (migrate(review)) {
+                    migrated++;
+                } else {
+                    failed++;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Moving embedded review entries to buckets stopped after " + migrated + " reviews", e);
+            return;
+        }
+        logger.info("Moved the embedded entries of " + migrated + " reviews to buckets, " + failed + " reviews failed");
+    }
+
+    /**
+     * Migrates a single review, re-reading it as long as it is written concurrently.
+     */
+    boolean migrate(Review review) {
+        Optional<Review> current = Optional.of(review);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && current.isPresent(); attempt++) {
+            if (service.migrate(current.get())) {
+                return true;
+            }
+            current = repository.findById(review.getId());
+        }
+        if (current.isPresent()) {
+            logger.warn("Review " + review.getId() + " kept changing while its entries were moved to buckets");
+            return false;
+        }
+        // The review was deleted
+        return true;
+    }
+}
@@ -1,9 +1,21 @@
 package com.pluralsight.reviewservice.service;
 
 import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ReviewService {
     /**
@@ -21,10 +33,108 @@ public interface ReviewService {
     Optional<Review> findByProductId(Integer productId);
 
     /**
-     * Returns all reviews in the database.
-     * @return          All reviews in the database.
+     * Returns the reviews for the specified products with a single query.
+     * @param productIds    The product IDs for which to return reviews.
+     * @return              The reviews that exist, keyed by product ID.
      */
-    List<Review> findAll();
+    Map<Integer, Review> findByProductIds(Collection<Integer> productIds);
+
+    /**
+     * Returns the current version of the review with the specified ID without loading its entries.
+     * @param id        The ID of the review.
+     * @return          The version of the review with the specified ID.
+     */
+    Optional<Integer> findVersionById(String id);
+
+    /**
+     * Returns the current version of the review for the specified product ID without loading its entries.
+     * @param productId The product ID of the review.
+     * @return          The version of the review for the specified product ID.
+     */
+    Optional<Integer> findVersionByProductId(Integer productId);
+
+    /**
+     * Returns a page of the entries of the review with the specified ID.
+     * @param id            The ID of the review.
+     * @param offset        The number of entries to skip.
+     * @param limit         The maximum number of entries to return.
+     * @param newestFirst   True to order entries from newest to oldest, false from oldest to newest.
+     * @return              The page of entries of the review with the specified ID.
+     */
+    Optional<ReviewEntryPage> findEntries(String id, int offset, int limit, boolean newestFirst);
+
+    /**
+     * Returns the entry count and the most recent entries of the review with the specified ID.
+     * @param id            The ID of the review.
+     * @param latest        The maximum number of recent entries to return.
+     * @return              The summary of the review with the specified ID.
+     */
+    Optional<ReviewSummary> findSummary(String id, int latest);
+
+    /**
+     * Returns the summaries of the reviews for the specified products, reading only their most recent entries.
+     * @param productIds    The product IDs for which to return summaries.
+     * @param latest        The maximum number of recent entries to return per review.
+     * @return              The summaries of the reviews that exist, keyed by product ID.
+     */
+    Map<Integer, ReviewSummary> findSummariesByProductIds(Collection<Integer> productIds, int latest);
+
+    /**
+     * Returns the entry count and latest entry date of the review for the specified product, without its entries.
+     * @param productId The product ID of the review.
+     * @return          The aggregates of the review for the specified product ID.
+     */
+    Optional<ReviewStats> findStats(Integer productId);
+
+    /**
+     * Returns the entry counts and latest entry dates of the reviews for the specified products, without entries.
+     * @param productIds    The product IDs of the reviews.
+     * @return              The aggregates of the reviews that exist, in no particular order.
+     */
+    List<ReviewStats> findStats(Collection<Integer> productIds);
+
+    /**
+     * Searches the text and usernames of the entries of all reviews for any of the specified words.
+     * @param text      The words to search for; a word prefixed with "-" excludes reviews that contain it.
+     * @param offset    The number of matching entries to skip.
+     * @param limit     The maximum number of entries to return.
+     * @return          The matching entries, most relevant first.
+     */
+    List<ReviewEntryMatch> searchEntries(String text, int offset, int limit);
+
+    /**
+     * Returns a page of the entries that a user wrote across all reviews, newest first.
+     * @param username  The username of the entries.
+     * @param after     The last entry of the previous page, of which only the date and review ID are used, or null
+     *                  for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    List<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit);
+
+    /**
+     * Returns a page of the newest entries of all reviews since a date, newest first.
+     * @param since     The date of the oldest entries to return.
+     * @param after     The last entry of the previous page, of which only the date and review ID are used, or null
+     *                  for the first page.
+     * @param limit     The maximum number of entries to return.
+     * @return          The entries, ordered by date, newest first, and by review ID.
+     */
+    List<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit);
+
+    /**
+     * Returns a page of reviews ordered by ID.
+     * @param afterId   The ID of the last review of the previous page, or null for the first page.
+     * @param limit     The maximum number of reviews to return.
+     * @return          The reviews in the page.
+     */
+    List<Review> findPage(String afterId, int limit);
+
+    /**
+     * Streams all reviews in the database from a cursor. The caller must close the stream.
+     * @return          A stream of all reviews in the database.
+     */
+    Stream<Review> streamAll();
 
     /**
      * Saves the specified review to the database.
@@ -34,12 +144,33 @@ public interface ReviewService {
     Review save(Review review);
 
     /**
-     * Updates the specified review in the database.
-     * @param review    The review to update.
+     * Updates the specified review in the database if, and only if, the stored review is still at the version
+     * carried by the specified review. The version of the updated review is incremented.
+     * @param review    The review to update, carrying the version that the caller last read.
      * @return          The updated review.
+     * @throws OptimisticLockingFailureException If the review does not exist or has been modified since the caller
+     *                  read it.
      */
     Review update(Review review);
 
+    /**
+     * Atomically appends an entry to the review for the specified product, creating the review if needed.
+     * @param productId The product ID of the review to which to add the entry.
+     * @param entry     The entry to add.
+     * @return          The updated review, with its version incremented, without its entries, which are only read
+     *                  by the entry queries.
+     */
+    Review appendEntry(Integer productId, ReviewEntry entry);
+
+    /**
+     * Writes a batch of imported reviews and entries with a single bulk write; with the bucketed storage layout, the
+     * entries are appended to the buckets of their reviews a product at a time. Imported reviews start at version 1;
+     * existing reviews are not replaced.
+     * @param records   The records to import.
+     * @return          The records that could not be written.
+     */
+    List<ReviewImportFailure> importRecords(List<ReviewImportRecord> records);
+
     /**
      * Deletes the review with the specified ID.
      * @param id        The ID of the review to delete.
@@ -1,20 +1,60 @@
 package com.pluralsight.reviewservice.service;
 
 import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
 import com.pluralsight.reviewservice.repository.ReviewRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Stores the entries of a review in the Review document itself; see BucketedReviewServiceImpl for the alternative.
+ * Entries appended to the same review within reviews.entries.coalesce.window of each other are written together,
+ * see EntryCoalescer.
+ */
 @Service
+@Qualifier("storage")
+@ConditionalOnProperty(name = "reviews.storage.layout", havingValue = "embedded", matchIfMissing = true)
+@Timed(value = "reviews.storage", histogram = true)
 public class ReviewServiceImpl implements ReviewService {
 
     private ReviewRepository repository;
 
-    public ReviewServiceImpl(ReviewRepository repository) {
+    /**
+     * Null when appends are written one by one.
+     */
+    private EntryCoalescer coalescer;
+
+    public ReviewServiceImpl(ReviewRepository repository,
+                             MeterRegistry registry,
+                             @Value("${reviews.entries.coalesce.window:0ms}") Duration coalesceWindow,
+                             @Value("${reviews.entries.coalesce.max-batch-size:100}") int coalesceMaxBatchSize) {
         this.repository = repository;
+        if (!coalesceWindow.isZero()) {
+            this.coalescer = new EntryCoalescer(repository::appendEntries, coalesceWindow, coalesceMaxBatchSize,
+                    registry);
+        }
     }
 
     @Override
@@ -28,20 +68,103 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
     @Override
-    public List<Review> findAll() {
-        return repository.findAll();
+    public Map<Integer, Review> findByProductIds(Collection<Integer> productIds) {
+        return repository.findByProductIdIn(productIds).stream()
+                .collect(Collectors.toMap(Review::getProductId, Function.identity()));
+    }
+
+    @Override
+    public Optional<Integer> findVersionById(String id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    public Optional<Integer> findVersionByProductId(Integer productId) {
+        return repository.findVersionByProductId(productId);
+    }
+
+    @Override
+    public Optional<ReviewEntryPage> findEntries(String id, int offset, int limit, boolean newestFirst) {
+        return repository.findEntryPage(id, offset, limit, newestFirst);
+    }
+
+    @Override
+    public Optional<ReviewSummary> findSummary(String id, int latest) {
+        return repository.findEntryPage(id, 0, latest, true).map(ReviewSummary::of);
+    }
+
+    @Override
+    public Map<Integer, ReviewSummary> findSummariesByProductIds(Collection<Integer> productIds, int latest) {
+        return repository.findLatestEntriesByProductIds(productIds, latest).stream()
+                .collect(Collectors.toMap(ReviewEntryPage::getProductId, ReviewSummary::of));
+    }
+
+    @Override
+    public Optional<ReviewStats> findStats(Integer productId) {
+        return repository.findStats(Collections.singletonList(productId)).stream().findFirst();
+    }
+
+    @Override
+    public List<ReviewStats> findStats(Collection<Integer> productIds) {
+        return repository.findStats(productIds);
+    }
+
+    @Override
+    public List<ReviewEntryMatch> searchEntries(String text, int offset, int limit) {
+        return repository.searchEntries(text, offset, limit);
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findEntriesByUsername(String username, ReviewEntryMatch after, int limit) {
+        return repository.findEntriesByUsername(username, after, limit);
+    }
+
+    @Override
+    public List<ReviewEntryMatch> findRecentEntries(Date since, ReviewEntryMatch after, int limit) {
+        return repository.findRecentEntries(since, after, limit);
+    }
+
+    @Override
+    public List<Review> findPage(String afterId, int limit) {
+        return repository.findPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<Review> streamAll() {
+        return repository.streamAll();
     }
 
     @Override
     public Review save(Review review) {
         review.setVersion(1);
+        review.setTotalEntries(review.getEntries().size());
+        review.setLastEntryDate(ReviewStats.lastEntryDate(review.getEntries()));
         return repository.save(review);
     }
 
     @Override
     public Review update(Review review) {
-        review.setVersion(review.getVersion()+1);
-        return repository.save(review);
+        return repository.compareAndSet(review)
+                .orElseThrow(() -> new OptimisticLockingFailureException(
+                        "Review " + review.getId() + " is not at version " + review.getVersion()));
+    }
+
+    @Override
+    public Review appendEntry(Integer productId, ReviewEntry entry) {
+        return coalescer != null ? coalescer.append(productId, entry) : repository.appendEntry(productId, entry);
+    }
+
+    @Override
+    public List<ReviewImportFailure> importRecords(List<ReviewImportRecord> records) {
+        records.stream()
+                .filter(record -> !record.isEntry())
+                .map(ReviewImportRecord::getReview)
+                .forEach(review -> {
+                    review.setVersion(1);
+                    review.setTotalEntries(review.getEntries().size());
+                    review.setLastEntryDate(ReviewStats.lastEntryDate(review.getEntries()));
+                });
+        return repository.bulkImport(records);
     }
 
     @Override
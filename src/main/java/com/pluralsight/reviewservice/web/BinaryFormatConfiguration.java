@@ -0,0 +1,44 @@
+package com.pluralsight.reviewservice.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Registers the message converters of the binary formats that ReviewController offers instead of JSON. They are built
+ * from the Jackson2ObjectMapperBuilder of Boot's Jackson auto-configuration, so they are kept out of the application
+ * class: test slices skip this class, along with the rest of the web layer, instead of failing on the missing builder.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BinaryFormatConfiguration {
+
+    /**
+     * Serves Smile to clients that ask for application/x-jackson-smile.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binaryObjectMapper(builder.smile()));
+    }
+
+    /**
+     * Serves CBOR to clients that ask for application/cbor.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binaryObjectMapper(builder.cbor()));
+    }
+
+    /**
+     * Builds the ObjectMapper of a binary format with the application's Jackson configuration, except that dates are
+     * written as epoch milliseconds: these formats are for clients that want compact payloads, not readable ones.
+     */
+    private static ObjectMapper binaryObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    }
+}
@@ -0,0 +1,546 @@
+package com.pluralsight.reviewservice.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewImportReport;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
+import com.pluralsight.reviewservice.service.ReactiveReviewService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.pluralsight.reviewservice.web.ReviewController.APPLICATION_NDJSON_VALUE;
+import static com.pluralsight.reviewservice.web.ReviewController.DEFAULT_ENTRY_PAGE_SIZE;
+import static com.pluralsight.reviewservice.web.ReviewController.DEFAULT_PAGE_SIZE;
+import static com.pluralsight.reviewservice.web.ReviewController.MAX_BATCH_SIZE;
+import static com.pluralsight.reviewservice.web.ReviewController.MAX_ENTRY_PAGE_SIZE;
+import static com.pluralsight.reviewservice.web.ReviewController.MAX_PAGE_SIZE;
+import static com.pluralsight.reviewservice.web.ReviewController.MAX_SEARCH_RESULTS;
+import static com.pluralsight.reviewservice.web.ReviewController.NEXT_TOKEN_HEADER;
+import static com.pluralsight.reviewservice.web.ReviewController.eTagMatches;
+import static com.pluralsight.reviewservice.web.ReviewController.entryToken;
+import static com.pluralsight.reviewservice.web.ReviewController.parseEntryToken;
+import static com.pluralsight.reviewservice.web.ReviewController.parseImportRecord;
+import static com.pluralsight.reviewservice.web.ReviewController.parseReviewToken;
+import static com.pluralsight.reviewservice.web.ReviewController.reviewToken;
+
+/**
+ * The reactive API, which mirrors the endpoints of ReviewController on WebFlux. It is served instead of
+ * ReviewController when the application runs as a reactive web application, which the "reactive" profile selects.
+ * Requests never block a thread while waiting for MongoDB, so concurrency is not capped by a request thread pool.
+ *
+ * Reviews are always served as JSON, from the database: there is no ReviewResponseCache and no Smile or CBOR.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReviewController {
+
+    private static final Logger logger = LogManager.getLogger(ReactiveReviewController.class);
+
+    private ReactiveReviewService service;
+
+    private ObjectMapper objectMapper;
+
+    /**
+     * The number of imported records written per bulk write.
+     */
+    private int bulkBatchSize;
+
+    private ReviewWriteLog writeLog;
+
+    /**
+     * How far back the feed of recent entries reaches.
+     */
+    private Duration recentMaxAge;
+
+    public ReactiveReviewController(ReactiveReviewService service, ObjectMapper objectMapper,
+                                    @Value("${reviews.bulk.batch-size:1000}") int bulkBatchSize,
+                                    @Value("${reviews.logging.payload-sample-rate:0}") double payloadSampleRate,
+                                    @Value("${reviews.entries.recent.max-age:7d}") Duration recentMaxAge) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+        this.bulkBatchSize = bulkBatchSize;
+        this.recentMaxAge = recentMaxAge;
+        this.writeLog = new ReviewWriteLog(logger, objectMapper, payloadSampleRate);
+    }
+
+    /**
+     * Returns the review with the specified ID, or 304 Not Modified after looking up only the version if the
+     * request's If-None-Match header matches it.
+     * @param id            The ID of the review to return.
+     * @param ifNoneMatch   The ETags the client already has, if any.
+     * @return              The review with the specified ID, 304 Not Modified, or 404 Not Found.
+     */
+    @GetMapping("/review/{id}")
+    public Mono<ResponseEntity<Review>> getReview(@PathVariable String id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Deferred, so that the review is only looked up if the version does not match
+        Mono<ResponseEntity<Review>> review = Mono.defer(() -> service.findById(id))
+                .map(found -> ResponseEntity.ok()
+                        .eTag(Integer.toString(found.getVersion()))
+                        .location(URI.create("/review/" + found.getId()))
+                        .body(found));
+        if (ifNoneMatch == null) {
+            return review.defaultIfEmpty(ResponseEntity.notFound().build());
+        }
+
+        return service.findVersionById(id)
+                .flatMap(version -> eTagMatches(ifNoneMatch, version, true)
+                        ? Mono.just(ReviewController.<Review>notModified(version))
+                        : review)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the entry count and the most recent entries of the review with the specified ID, like
+     * ReviewController.getReviewSummary.
+     * @param id        The ID of the review to summarize.
+     * @param latest    The maximum number of recent entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @return          The summary of the review with the specified ID, or 404 Not Found.
+     */
+    @GetMapping(value = "/review/{id}", params = "view=summary")
+    public Mono<ResponseEntity<ReviewSummary>> getReviewSummary(@PathVariable String id,
+                                                                @RequestParam(value = "latest", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int latest) {
+        return service.findSummary(id, Math.max(1, Math.min(latest, MAX_ENTRY_PAGE_SIZE)))
+                .map(summary -> ResponseEntity.ok()
+                        .eTag(Integer.toString(summary.getVersion()))
+                        .body(summary))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns a page of the entries of the review with the specified ID, like ReviewController.getReviewEntries.
+     * @param id        The ID of the review.
+     * @param offset    The number of entries to skip.
+     * @param limit     The maximum number of entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @param sort      "-date" for newest entries first (the default) or "date" for oldest entries first.
+     * @return          The page of entries, 400 Bad Request for an unsupported sort, or 404 Not Found.
+     */
+    @GetMapping("/review/{id}/entries")
+    public Mono<ResponseEntity<ReviewEntryPage>> getReviewEntries(@PathVariable String id,
+                                                                  @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                                                  @RequestParam(value = "limit", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int limit,
+                                                                  @RequestParam(value = "sort", defaultValue = "-date") String sort) {
+        if (!sort.equals("date") && !sort.equals("-date")) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return service.findEntries(id, Math.max(0, offset), Math.max(1, Math.min(limit, MAX_ENTRY_PAGE_SIZE)), sort.startsWith("-"))
+                .map(page -> ResponseEntity.ok()
+                        .eTag(Integer.toString(page.getVersion()))
+                        .body(page))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the entry count and latest entry date of the review for the specified product, without its entries,
+     * like ReviewController.getReviewStats.
+     * @param productId     The product ID of the review.
+     * @param ifNoneMatch   The ETags the client already has, if any.
+     * @return              The aggregates of the review, 304 Not Modified, or 404 Not Found.
+     */
+    @GetMapping("/review/{productId}/stats")
+    public Mono<ResponseEntity<ReviewStats>> getReviewStats(@PathVariable Integer productId,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return service.findStats(productId)
+                .map(stats -> ifNoneMatch != null && eTagMatches(ifNoneMatch, stats.getVersion(), true)
+                        ? ReviewController.<ReviewStats>notModified(stats.getVersion())
+                        : ResponseEntity.ok()
+                                .eTag(Integer.toString(stats.getVersion()))
+                                .body(stats))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the entry counts and latest entry dates of the reviews for the specified products with a single query.
+     * @param productIds    The product IDs, as a comma separated list or repeated parameters.
+     * @return              The aggregates of the reviews that exist, or 400 Bad Request for more than
+     *                      MAX_BATCH_SIZE products.
+     */
+    @GetMapping("/reviews/stats")
+    public Mono<ResponseEntity<List<ReviewStats>>> getReviewStats(@RequestParam("productId") Set<Integer> productIds) {
+        if (productIds.size() > MAX_BATCH_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return service.findStats(productIds).collectList().map(ResponseEntity::ok);
+    }
+
+    /**
+     * Searches the text and usernames of review entries across all products, like ReviewController.searchEntries.
+     * @param q         The words to search for: entries that contain any of them match. A word prefixed with "-"
+     *                  leaves out reviews that contain it.
+     * @param offset    The number of matching entries to skip.
+     * @param limit     The maximum number of entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @return          The matching entries, most relevant first, or 400 Bad Request if there is nothing to search
+     *                  for or the page ends beyond MAX_SEARCH_RESULTS.
+     */
+    @GetMapping("/reviews/search")
+    public Mono<ResponseEntity<List<ReviewEntryMatch>>> searchEntries(@RequestParam("q") String q,
+                                                                      @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                                                      @RequestParam(value = "limit", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_ENTRY_PAGE_SIZE));
+        if (q.isBlank() || Math.max(0, offset) + pageSize > MAX_SEARCH_RESULTS) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return service.searchEntries(q, Math.max(0, offset), pageSize).collectList().map(ResponseEntity::ok);
+    }
+
+    /**
+     * Returns either a page of reviews or the review for the specified productId, like ReviewController.getReviews.
+     * @param productId     The productId for the review to return, or null to return a page of reviews.
+     * @param after         The next-page token returned with the previous page, omitted for the first page.
+     * @param limit         The maximum number of reviews to return, capped at MAX_PAGE_SIZE.
+     * @param ifNoneMatch   The ETags the client already has for the product's review, if any.
+     * @param request       The request, to build the link to the next page.
+     * @return              A list of reviews, or 304 Not Modified if the product's review matches If-None-Match.
+     */
+    @GetMapping(value = "/reviews", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<Review>>> getReviews(@RequestParam(value = "productId", required = false) Integer productId,
+                                                         @RequestParam(value = "after", required = false) String after,
+                                                         @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                         ServerHttpRequest request) {
+        if (productId != null) {
+            Mono<ResponseEntity<List<Review>>> review = Mono.defer(() -> service.findByProductId(productId))
+                    .map(found -> ResponseEntity.ok()
+                            .eTag(Integer.toString(found.getVersion()))
+                            .body(Collections.singletonList(found)))
+                    .defaultIfEmpty(ResponseEntity.ok(new ArrayList<>()));
+            if (ifNoneMatch == null) {
+                return review;
+            }
+            return service.findVersionByProductId(productId)
+                    .filter(version -> eTagMatches(ifNoneMatch, version, true))
+                    .map(ReviewController::<List<Review>>notModified)
+                    .switchIfEmpty(review);
+        }
+
+        String afterId;
+        try {
+            afterId = after != null ? parseReviewToken(after) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return service.findPage(afterId, pageSize).collectList().map(reviews -> {
+            if (reviews.size() < pageSize) {
+                return ResponseEntity.ok(reviews);
+            }
+
+            // The page is full, so there may be more: hand out the last ID as the token for the next page
+            return withNextPage(reviews, reviewToken(reviews.get(reviews.size() - 1)), pageSize, request);
+        });
+    }
+
+    /**
+     * Returns a page of the entries that a user wrote across all products, newest first, like
+     * ReviewController.getUserEntries.
+     * @param username  The username of the entries.
+     * @param after     The next-page token returned with the previous page, omitted for the first page.
+     * @param limit     The maximum number of entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @param request   The request, to build the link to the next page.
+     * @return          The entries with their review ID and product ID, or 400 Bad Request for an invalid token.
+     */
+    @GetMapping("/users/{username}/entries")
+    public Mono<ResponseEntity<List<ReviewEntryMatch>>> getUserEntries(@PathVariable String username,
+                                                                       @RequestParam(value = "after", required = false) String after,
+                                                                       @RequestParam(value = "limit", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int limit,
+                                                                       ServerHttpRequest request) {
+        ReviewEntryMatch last;
+        try {
+            last = after != null ? parseEntryToken(after) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_ENTRY_PAGE_SIZE));
+        return service.findEntriesByUsername(username, last, pageSize).collectList()
+                .map(entries -> entryPage(entries, pageSize, request));
+    }
+
+    /**
+     * Returns a page of the newest entries across all products, newest first, like
+     * ReviewController.getRecentEntries.
+     * @param since     The date of the oldest entries to return, in ISO 8601 format; defaults to the start of the
+     *                  period that is served.
+     * @param after     The next-page token returned with the previous page, omitted for the first page.
+     * @param limit     The maximum number of entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @param request   The request, to build the link to the next page.
+     * @return          The entries with their review ID and product ID, or 400 Bad Request for an invalid token or
+     *                  a date before the period that is served.
+     */
+    @GetMapping("/entries/recent")
+    public Mono<ResponseEntity<List<ReviewEntryMatch>>> getRecentEntries(@RequestParam(value = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date since,
+                                                                         @RequestParam(value = "after", required = false) String after,
+                                                                         @RequestParam(value = "limit", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int limit,
+                                                                         ServerHttpRequest request) {
+        Date oldest = new Date(System.currentTimeMillis() - recentMaxAge.toMillis());
+        if (since != null && since.before(oldest)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        ReviewEntryMatch last;
+        try {
+            last = after != null ? parseEntryToken(after) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_ENTRY_PAGE_SIZE));
+        return service.findRecentEntries(since != null ? since : oldest, last, pageSize).collectList()
+                .map(entries -> entryPage(entries, pageSize, request));
+    }
+
+    /**
+     * Returns the reviews, or review summaries, for many products with a single database query, like
+     * ReviewController.getReviewsBatch.
+     * @param productIds    The product IDs of the reviews to return.
+     * @param view          "summary" to return summaries instead of whole reviews.
+     * @param latest        With the summary view, the maximum number of recent entries per review, capped at
+     *                      MAX_ENTRY_PAGE_SIZE.
+     * @return              The reviews or summaries that exist, keyed by product ID, or 400 Bad Request for more than
+     *                      MAX_BATCH_SIZE products or an unsupported view.
+     */
+    @PostMapping("/reviews/batch")
+    public Mono<ResponseEntity<Map<Integer, ?>>> getReviewsBatch(@RequestBody Set<Integer> productIds,
+                                                                 @RequestParam(value = "view", required = false) String view,
+                                                                 @RequestParam(value = "latest", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int latest) {
+        if (productIds.size() > MAX_BATCH_SIZE || (view != null && !view.equals("summary"))) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        if (view != null) {
+            return service.findSummariesByProductIds(productIds, Math.max(1, Math.min(latest, MAX_ENTRY_PAGE_SIZE)))
+                    .map(ResponseEntity::ok);
+        }
+        return service.findByProductIds(productIds).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Streams all reviews as newline delimited JSON, one review per line. Reviews are read from the database cursor
+     * as the client consumes the response, so a slow client slows down the cursor instead of filling memory.
+     * @param response  The response, to allocate the buffers of the lines.
+     * @return          All reviews, one JSON document per line.
+     */
+    @GetMapping(value = "/reviews", produces = APPLICATION_NDJSON_VALUE)
+    public Flux<DataBuffer> streamReviews(ServerHttpResponse response) {
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        return service.streamAll().map(review -> toJsonLine(bufferFactory, review));
+    }
+
+    /**
+     * Creates a new review.
+     * @param review    The review to create.
+     * @return          The newly created review, or 409 Conflict if the productId already has a review.
+     */
+    @PostMapping("/review")
+    public Mono<ResponseEntity<Review>> createReview(@RequestBody Review review) {
+        writeLog.received("create", review);
+
+        // Set the date for any entries in the review to now since we're creating the review now
+        review.getEntries().forEach(entry -> entry.setDate(new Date()));
+
+        return service.save(review)
+                .doOnNext(newReview -> writeLog.written("create", newReview))
+                .map(newReview -> ResponseEntity
+                        .created(URI.create("/review/" + newReview.getId()))
+                        .eTag(Integer.toString(newReview.getVersion()))
+                        .body(newReview))
+                .onErrorResume(DuplicateKeyException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build()));
+    }
+
+    /**
+     * Imports reviews and entries from newline delimited JSON, like ReviewController.importReviews. The upload is
+     * decoded one line at a time, and each batch of reviews.bulk.batch-size lines is parsed and written before the
+     * next one, so the upload is never held in memory as a whole.
+     * @param lines The lines of the upload.
+     * @return      A report of how many records were imported and which ones failed, and why.
+     */
+    @PostMapping(value = "/reviews/bulk", consumes = APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<ReviewImportReport>> importReviews(@RequestBody Flux<String> lines) {
+        ReviewImportReport report = new ReviewImportReport();
+        return lines.index()
+                .filter(line -> !line.getT2().trim().isEmpty())
+                .buffer(bulkBatchSize)
+                // Batches are handled one at a time, so the report is only ever updated by one of them
+                .concatMap(batch -> {
+                    List<ReviewImportRecord> records = new ArrayList<>(batch.size());
+                    for (Tuple2<Long, String> line : batch) {
+                        long lineNumber = line.getT1() + 1;
+                        try {
+                            records.add(parseImportRecord(objectMapper, lineNumber, line.getT2()));
+                        } catch (JsonProcessingException e) {
+                            report.addFailure(new ReviewImportFailure(lineNumber, e.getOriginalMessage()));
+                        }
+                    }
+                    if (records.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    return service.importRecords(records)
+                            .doOnNext(failures -> report.addBatch(records.size(), failures));
+                })
+                .then(Mono.fromSupplier(() -> {
+                    logger.info("Imported {} of {} records, {} failed", report.getImported(), report.getRecords(), report.getFailed());
+                    return ResponseEntity.ok(report);
+                }));
+    }
+
+    /**
+     * Creates a new review entry for the review with the specified productId.
+     * @param productId     The productId of the review to which to add the new review entry.
+     * @param entry         The entry to add to the review.
+     * @return              The updated review, without its entries.
+     */
+    @PostMapping("/review/{productId}/entry")
+    public Mono<ResponseEntity<Review>> addEntryToReview(@PathVariable Integer productId, @RequestBody ReviewEntry entry) {
+        writeLog.received(productId, entry);
+
+        entry.setDate(new Date());
+        return service.appendEntry(productId, entry)
+                .doOnNext(updatedReview -> writeLog.written("entry", updatedReview))
+                .map(updatedReview -> ResponseEntity
+                        .ok()
+                        .location(URI.create("/review/" + updatedReview.getId()))
+                        .eTag(Integer.toString(updatedReview.getVersion()))
+                        .body(updatedReview));
+    }
+
+    /**
+     * Replaces the review with the specified ID if it is still at the version given by the If-Match header or, when
+     * the header is omitted, by the version in the request body, like ReviewController.updateReview.
+     * @param id        The ID of the review to update.
+     * @param review    The new state of the review.
+     * @param ifMatch   The ETag of the version the client expects to replace, if any.
+     * @return          The updated review, 404 Not Found, 409 Conflict if the productId already has another review,
+     *                  or 412 Precondition Failed if the review has been modified since the client read it.
+     */
+    @PutMapping("/review/{id}")
+    public Mono<ResponseEntity<Review>> updateReview(@PathVariable String id,
+                                                     @RequestBody Review review,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("Updating review with ID {}", id);
+
+        return service.findVersionById(id).flatMap(currentVersion -> {
+            // Resolve the version the client expects to replace
+            if (ifMatch != null) {
+                if (!eTagMatches(ifMatch, currentVersion, false)) {
+                    return Mono.just(ReviewController.<Review>preconditionFailed(currentVersion));
+                }
+                review.setVersion(currentVersion);
+            }
+            review.setId(id);
+
+            return service.update(review)
+                    .doOnNext(updatedReview -> writeLog.written("update", updatedReview))
+                    .map(updatedReview -> ResponseEntity
+                            .ok()
+                            .location(URI.create("/review/" + updatedReview.getId()))
+                            .eTag(Integer.toString(updatedReview.getVersion()))
+                            .body(updatedReview))
+                    // Another writer got there first
+                    .onErrorResume(OptimisticLockingFailureException.class, e -> service.findVersionById(id)
+                            .map(ReviewController::<Review>preconditionFailed)
+                            .defaultIfEmpty(ResponseEntity.notFound().build()))
+                    .onErrorResume(DuplicateKeyException.class,
+                            e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build()));
+        }).defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Deletes the review with the specified ID. Note that this is the review ID, not the product ID.
+     * @param id    The ID of the review to delete.
+     * @return      A 200 OK on success, a 404 Not Found if the review does not exist.
+     */
+    @DeleteMapping("/review/{id}")
+    public Mono<ResponseEntity<Void>> deleteReview(@PathVariable String id) {
+        logger.info("Deleting review with ID {}", id);
+
+        return service.findVersionById(id)
+                .flatMap(version -> service.delete(id).thenReturn(ResponseEntity.ok().<Void>build()))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Builds the response of a page of entries, with the next page headers if the page is full.
+     */
+    private static ResponseEntity<List<ReviewEntryMatch>> entryPage(List<ReviewEntryMatch> entries, int pageSize,
+                                                                    ServerHttpRequest request) {
+        if (entries.size() < pageSize) {
+            return ResponseEntity.ok(entries);
+        }
+        return withNextPage(entries, entryToken(entries.get(entries.size() - 1)), pageSize, request);
+    }
+
+    /**
+     * Builds the response of a full page like ReviewController.withNextPage, with the URL of the next page built
+     * from the reactive request.
+     */
+    private static <T> ResponseEntity<List<T>> withNextPage(List<T> page, String nextToken, int pageSize,
+                                                            ServerHttpRequest request) {
+        String next = UriComponentsBuilder.fromUri(request.getURI())
+                .replaceQueryParam("after", nextToken)
+                .replaceQueryParam("limit", pageSize)
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(NEXT_TOKEN_HEADER, nextToken)
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(page);
+    }
+
+    /**
+     * Serializes a review as a line of newline delimited JSON.
+     */
+    private DataBuffer toJsonLine(DataBufferFactory bufferFactory, Review review) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(review);
+            return bufferFactory.allocateBuffer(json.length + 1)
+                    .write(json)
+                    .write((byte) '\n');
+        } catch (JsonProcessingException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+}
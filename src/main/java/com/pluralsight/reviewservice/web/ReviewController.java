@@ -1,126 +1,611 @@
 package com.pluralsight.reviewservice.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pluralsight.reviewservice.model.Review;
 import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewImportReport;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
 import com.pluralsight.reviewservice.service.ReviewService;
 
 import java.util.Arrays;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
- * A RestController that manages product reviews.
+ * A RestController that manages product reviews. This is the servlet API; ReactiveReviewController serves the
+ * reactive one.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ReviewController {
 
     private static final Logger logger = LogManager.getLogger(ReviewController.class);
 
+    /**
+     * Media type for newline delimited JSON.
+     */
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * Media type for Smile, the binary JSON format, which clients can ask for instead of JSON.
+     */
+    static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * The binary media types that clients can ask for instead of JSON, as a more compact wire format.
+     */
+    static final List<MediaType> BINARY_MEDIA_TYPES = Arrays.asList(
+            MediaType.parseMediaType(APPLICATION_SMILE_VALUE), MediaType.APPLICATION_CBOR);
+
+    /**
+     * Response header that carries the token for the next page of reviews.
+     */
+    static final String NEXT_TOKEN_HEADER = "X-Next-Token";
+
+    /**
+     * The number of reviews returned per page when no limit is requested.
+     */
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * The maximum number of reviews returned per page.
+     */
+    static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * The number of review entries returned per page, or in a summary, when no limit is requested.
+     */
+    static final int DEFAULT_ENTRY_PAGE_SIZE = 10;
+
+    /**
+     * The maximum number of review entries returned per page.
+     */
+    static final int MAX_ENTRY_PAGE_SIZE = 100;
+
+    /**
+     * How deep into the results of a search entries can be paged; every page sorts all matches up to its end.
+     */
+    static final int MAX_SEARCH_RESULTS = 1000;
+
+    /**
+     * The maximum number of products that can be looked up in a single batch request.
+     */
+    static final int MAX_BATCH_SIZE = 100;
+
     private ReviewService service;
 
-    public ReviewController(ReviewService service) {
+    private ObjectMapper objectMapper;
+
+    /**
+     * The number of imported records written per bulk write.
+     */
+    private int bulkBatchSize;
+
+    private ReviewWriteLog writeLog;
+
+    private ReviewResponseCache responseCache;
+
+    /**
+     * How far back the feed of recent entries reaches.
+     */
+    private Duration recentMaxAge;
+
+    public ReviewController(ReviewService service, ObjectMapper objectMapper, ReviewResponseCache responseCache,
+                            @Value("${reviews.bulk.batch-size:1000}") int bulkBatchSize,
+                            @Value("${reviews.logging.payload-sample-rate:0}") double payloadSampleRate,
+                            @Value("${reviews.entries.recent.max-age:7d}") Duration recentMaxAge) {
         this.service = service;
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.bulkBatchSize = bulkBatchSize;
+        this.recentMaxAge = recentMaxAge;
+        this.writeLog = new ReviewWriteLog(logger, objectMapper, payloadSampleRate);
     }
 
     /**
-     * Returns the review with the specified ID.
-     * @param id    The ID of the review to return.
-     * @return      The review with the specified ID, or 404 Not Found.
+     * Returns the review with the specified ID. If the request carries an If-None-Match header that matches the
+     * current version of the review, a 304 Not Modified is returned after looking up only the version.
+     *
+     * The review is written from the JSON, or gzipped JSON, kept by the ReviewResponseCache for its current version,
+     * so it is only loaded and serialized again after it changes. Clients that explicitly accept Smile or CBOR are
+     * instead served the review in the negotiated format.
+     * @param id                The ID of the review to return.
+     * @param ifNoneMatch       The ETags the client already has, if any.
+     * @param accept            The media types the client accepts, if any.
+     * @param acceptEncoding    The content codings the client accepts, if any.
+     * @return                  The review with the specified ID, 304 Not Modified, or 404 Not Found.
      */
     @GetMapping("/review/{id}")
-    public ResponseEntity<?> getReview(@PathVariable String id) {
-        return service.findById(id)
-                .map(review -> {
-                    try {
-                        return ResponseEntity
-                                .ok()
-                                .eTag(Integer.toString(review.getVersion()))
-                                .location(new URI("/review/" + review.getId()))
-                                .body(review);
-                    } catch (URISyntaxException e ) {
-                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-                    }
-                })
+    public ResponseEntity<?> getReview(@PathVariable String id,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Optional<Integer> version = service.findVersionById(id);
+        if (!version.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (ifNoneMatch != null && eTagMatches(ifNoneMatch, version.get(), true)) {
+            return varyByAccept(notModified(version.get()));
+        }
+
+        try {
+            // The review is only loaded if it is served in a binary format or the cache has no response for its
+            // current version
+            ReviewResponseCache.CachedResponse response = acceptsBinary(accept) ? null
+                    : responseCache.get(id, version.get());
+            if (response == null) {
+                Optional<Review> review = service.findById(id);
+                if (!review.isPresent()) {
+                    return ResponseEntity.notFound().build();
+                }
+                if (acceptsBinary(accept)) {
+                    return reviewResponse(id, review.get().getVersion()).body(review.get());
+                }
+                response = responseCache.put(review.get());
+            }
+
+            ResponseEntity.BodyBuilder builder = reviewResponse(id, response.getVersion())
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (response.getGzip() == null) {
+                return builder.body(response.getJson());
+            }
+
+            builder.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(acceptEncoding)) {
+                return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzip());
+            }
+            return builder.body(response.getJson());
+        } catch (URISyntaxException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Starts a 200 OK response for the specified version of a review.
+     * @param id        The ID of the review.
+     * @param version   The version of the review in the response.
+     * @return          A response builder with the version's ETag, the review's location and Vary: Accept.
+     * @throws URISyntaxException   If the ID does not make a valid location.
+     */
+    private static ResponseEntity.BodyBuilder reviewResponse(String id, int version) throws URISyntaxException {
+        return ResponseEntity.ok()
+                .eTag(Integer.toString(version))
+                .location(new URI("/review/" + id))
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * Returns the entry count and the most recent entries of the review with the specified ID, rather than its whole
+     * history of entries.
+     * @param id        The ID of the review to summarize.
+     * @param latest    The maximum number of recent entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @return          The summary of the review with the specified ID, or 404 Not Found.
+     */
+    @GetMapping(value = "/review/{id}", params = "view=summary")
+    public ResponseEntity<ReviewSummary> getReviewSummary(@PathVariable String id,
+                                                          @RequestParam(value = "latest", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int latest) {
+        return service.findSummary(id, Math.max(1, Math.min(latest, MAX_ENTRY_PAGE_SIZE)))
+                .map(summary -> ResponseEntity.ok()
+                        .eTag(Integer.toString(summary.getVersion()))
+                        .body(summary))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns a page of the entries of the review with the specified ID.
+     * @param id        The ID of the review.
+     * @param offset    The number of entries to skip.
+     * @param limit     The maximum number of entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @param sort      "-date" for newest entries first (the default) or "date" for oldest entries first.
+     * @return          The page of entries, 400 Bad Request for an unsupported sort, or 404 Not Found.
+     */
+    @GetMapping("/review/{id}/entries")
+    public ResponseEntity<ReviewEntryPage> getReviewEntries(@PathVariable String id,
+                                                            @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                                            @RequestParam(value = "limit", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int limit,
+                                                            @RequestParam(value = "sort", defaultValue = "-date") String sort) {
+        if (!sort.equals("date") && !sort.equals("-date")) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return service.findEntries(id, Math.max(0, offset), Math.max(1, Math.min(limit, MAX_ENTRY_PAGE_SIZE)), sort.startsWith("-"))
+                .map(page -> ResponseEntity.ok()
+                        .eTag(Integer.toString(page.getVersion()))
+                        .body(page))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the entry count and latest entry date of the review for the specified product, without its entries.
+     * @param productId     The product ID of the review.
+     * @param ifNoneMatch   The ETags the client already has, if any.
+     * @return              The aggregates of the review, 304 Not Modified, or 404 Not Found.
+     */
+    @GetMapping("/review/{productId}/stats")
+    public ResponseEntity<ReviewStats> getReviewStats(@PathVariable Integer productId,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return service.findStats(productId)
+                .map(stats -> ifNoneMatch != null && eTagMatches(ifNoneMatch, stats.getVersion(), true)
+                        ? ReviewController.<ReviewStats>notModified(stats.getVersion())
+                        : ResponseEntity.ok()
+                                .eTag(Integer.toString(stats.getVersion()))
+                                .body(stats))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Returns either all reviews or the review for the specified productId.
+     * Returns the entry counts and latest entry dates of the reviews for the specified products with a single query.
+     * @param productIds    The product IDs, as a comma separated list or repeated parameters.
+     * @return              The aggregates of the reviews that exist, or 400 Bad Request for more than
+     *                      MAX_BATCH_SIZE products.
+     */
+    @GetMapping("/reviews/stats")
+    public ResponseEntity<List<ReviewStats>> getReviewStats(@RequestParam("productId") Set<Integer> productIds) {
+        if (productIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.findStats(productIds));
+    }
+
+    /**
+     * Searches the text and usernames of review entries across all products, with the text index, and returns the
+     * matching entries without the rest of their reviews. Words are matched whole and regardless of case.
+     * @param q         The words to search for: entries that contain any of them match. A word prefixed with "-"
+     *                  leaves out reviews that contain it.
+     * @param offset    The number of matching entries to skip.
+     * @param limit     The maximum number of entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @return          The matching entries with their review ID, product ID and relevance score, most relevant first,
+     *                  or 400 Bad Request if there is nothing to search for or the page ends beyond
+     *                  MAX_SEARCH_RESULTS.
+     */
+    @GetMapping("/reviews/search")
+    public ResponseEntity<List<ReviewEntryMatch>> searchEntries(@RequestParam("q") String q,
+                                                                @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                                                @RequestParam(value = "limit", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_ENTRY_PAGE_SIZE));
+        if (q.isBlank() || Math.max(0, offset) + pageSize > MAX_SEARCH_RESULTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.searchEntries(q, Math.max(0, offset), pageSize));
+    }
+
+    /**
+     * Returns either a page of reviews or the review for the specified productId. Pages are ordered by review ID;
+     * when a page is full, the response carries the token for the next page in the X-Next-Token header and a
+     * Link header with rel="next". The reviews are written as JSON, or as Smile or CBOR if the client asks for it, so
+     * every response varies by Accept.
      * @param productId The productId for the review to return. This request parameter is optional, if it is omitted
-     *                  then all reviews are returned.
-     * @return          A list of reviews.
+     *                  then a page of reviews is returned.
+     * @param after     The next-page token returned with the previous page, omitted for the first page.
+     * @param limit     The maximum number of reviews to return, capped at MAX_PAGE_SIZE.
+     * @param ifNoneMatch The ETags the client already has for the product's review, if any.
+     * @return          A list of reviews, or 304 Not Modified if the product's review matches If-None-Match.
      */
-    @GetMapping("/reviews")
-    public Iterable<Review> getReviews(@RequestParam(value = "productId", required = false) Optional<String> productId) {
-        return productId.map(pid -> {
-            return service.findByProductId(Integer.valueOf(pid))
-                    .map(Arrays::asList)
-                    .orElseGet(ArrayList::new);
-        }).orElse(service.findAll());
+    @GetMapping(value = "/reviews", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<Review>> getReviews(@RequestParam(value = "productId", required = false) Optional<String> productId,
+                                                   @RequestParam(value = "after", required = false) String after,
+                                                   @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (productId.isPresent()) {
+            Integer pid = Integer.valueOf(productId.get());
+            if (ifNoneMatch != null) {
+                Optional<Integer> version = service.findVersionByProductId(pid);
+                if (version.isPresent() && eTagMatches(ifNoneMatch, version.get(), true)) {
+                    return varyByAccept(notModified(version.get()));
+                }
+            }
+
+            return service.findByProductId(pid)
+                    .map(review -> ResponseEntity.ok()
+                            .eTag(Integer.toString(review.getVersion()))
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(Arrays.asList(review)))
+                    .orElseGet(() -> ResponseEntity.ok()
+                            .varyBy(HttpHeaders.ACCEPT)
+                            .body(new ArrayList<>()));
+        }
+
+        String afterId;
+        try {
+            afterId = after != null ? parseReviewToken(after) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Review> reviews = service.findPage(afterId, pageSize);
+        if (reviews.size() < pageSize) {
+            return ResponseEntity.ok()
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(reviews);
+        }
+
+        // The page is full, so there may be more: hand out the last ID as the token for the next page
+        return varyByAccept(withNextPage(reviews, reviewToken(reviews.get(reviews.size() - 1)), pageSize));
+    }
+
+    /**
+     * Returns a page of the entries that a user wrote across all products, newest first, without the rest of their
+     * reviews. When a page is full, the response carries the token for the next page in the X-Next-Token header and
+     * a Link header with rel="next", like GET /reviews.
+     * @param username  The username of the entries.
+     * @param after     The next-page token returned with the previous page, omitted for the first page.
+     * @param limit     The maximum number of entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @return          The entries with their review ID and product ID, or 400 Bad Request for an invalid token.
+     */
+    @GetMapping("/users/{username}/entries")
+    public ResponseEntity<List<ReviewEntryMatch>> getUserEntries(@PathVariable String username,
+                                                                 @RequestParam(value = "after", required = false) String after,
+                                                                 @RequestParam(value = "limit", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int limit) {
+        ReviewEntryMatch last;
+        try {
+            last = after != null ? parseEntryToken(after) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_ENTRY_PAGE_SIZE));
+        List<ReviewEntryMatch> entries = service.findEntriesByUsername(username, last, pageSize);
+        if (entries.size() < pageSize) {
+            return ResponseEntity.ok(entries);
+        }
+        return withNextPage(entries, entryToken(entries.get(entries.size() - 1)), pageSize);
+    }
+
+    /**
+     * Returns a page of the newest entries across all products, newest first, without the rest of their reviews.
+     * Only the entries of the last reviews.entries.recent.max-age are served, so that a page reads the entries of
+     * that period through the index on their date, however many reviews there are. Full pages carry the token for
+     * the next page like GET /users/{username}/entries.
+     * @param since     The date of the oldest entries to return, in ISO 8601 format; defaults to the start of the
+     *                  period that is served.
+     * @param after     The next-page token returned with the previous page, omitted for the first page.
+     * @param limit     The maximum number of entries to return, capped at MAX_ENTRY_PAGE_SIZE.
+     * @return          The entries with their review ID and product ID, or 400 Bad Request for an invalid token or
+     *                  a date before the period that is served.
+     */
+    @GetMapping("/entries/recent")
+    public ResponseEntity<List<ReviewEntryMatch>> getRecentEntries(@RequestParam(value = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date since,
+                                                                   @RequestParam(value = "after", required = false) String after,
+                                                                   @RequestParam(value = "limit", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int limit) {
+        Date oldest = new Date(System.currentTimeMillis() - recentMaxAge.toMillis());
+        if (since != null && since.before(oldest)) {
+            return ResponseEntity.badRequest().build();
+        }
+        ReviewEntryMatch last;
+        try {
+            last = after != null ? parseEntryToken(after) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_ENTRY_PAGE_SIZE));
+        List<ReviewEntryMatch> entries = service.findRecentEntries(since != null ? since : oldest, last, pageSize);
+        if (entries.size() < pageSize) {
+            return ResponseEntity.ok(entries);
+        }
+        return withNextPage(entries, entryToken(entries.get(entries.size() - 1)), pageSize);
+    }
+
+    /**
+     * Returns the reviews, or review summaries, for many products with a single database query.
+     * @param productIds    The product IDs of the reviews to return.
+     * @param view          "summary" to return summaries instead of whole reviews.
+     * @param latest        With the summary view, the maximum number of recent entries per review, capped at
+     *                      MAX_ENTRY_PAGE_SIZE.
+     * @return              The reviews or summaries that exist, keyed by product ID, or 400 Bad Request for more than
+     *                      MAX_BATCH_SIZE products or an unsupported view.
+     */
+    @PostMapping("/reviews/batch")
+    public ResponseEntity<Map<Integer, ?>> getReviewsBatch(@RequestBody Set<Integer> productIds,
+                                                           @RequestParam(value = "view", required = false) String view,
+                                                           @RequestParam(value = "latest", defaultValue = "" + DEFAULT_ENTRY_PAGE_SIZE) int latest) {
+        if (productIds.size() > MAX_BATCH_SIZE || (view != null && !view.equals("summary"))) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (view != null) {
+            return ResponseEntity.ok(service.findSummariesByProductIds(productIds, Math.max(1, Math.min(latest, MAX_ENTRY_PAGE_SIZE))));
+        }
+        return ResponseEntity.ok(service.findByProductIds(productIds));
+    }
+
+    /**
+     * Streams all reviews as newline delimited JSON, one review per line. Reviews are written to the response as
+     * they are read from the database cursor, so memory use does not grow with the size of the collection. This
+     * variant is selected with "Accept: application/x-ndjson" and always streams the whole collection.
+     * @return          A streaming response body that writes all reviews.
+     */
+    @GetMapping(value = "/reviews", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamReviews() {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<Review> reviews = service.streamAll();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // Each review goes on its own line, so suppress the default separator between root values
+                generator.setRootValueSeparator(null);
+                Iterator<Review> iterator = reviews.iterator();
+                while (iterator.hasNext()) {
+                    generator.writeObject(iterator.next());
+                    generator.writeRaw('\n');
+                    generator.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
     }
 
     /**
      * Creates a new review.
      * @param review    The review to create.
-     * @return          The newly created review.
+     * @return          The newly created review, or 409 Conflict if the productId already has a review.
      */
     @PostMapping("/review")
     public ResponseEntity<Review> createReview(@RequestBody Review review) {
-        logger.info("Creating new review for product id: {}, {}", review.getProductId(), review);
+        writeLog.received("create", review);
 
         // Set the date for any entries in the review to now since we're creating the review now
         review.getEntries().forEach(entry -> entry.setDate(new Date()));
 
-        // Save the review to the database
-        Review newReview = service.save(review);
-        logger.info("Saved review: {}", newReview);
-
         try {
+            // Save the review to the database
+            Review newReview = service.save(review);
+            // A save overwrites a review with the same ID and resets its version, so drop any response kept for it
+            responseCache.invalidate(newReview.getId());
+            writeLog.written("create", newReview);
+
             // Build a created response
             return ResponseEntity
                     .created(new URI("/review/" + newReview.getId()))
                     .eTag(Integer.toString(newReview.getVersion()))
                     .body(newReview);
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (URISyntaxException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Imports reviews and entries from newline delimited JSON. Each line is either a review, which is inserted, or
+     * an object with a productId and an entry, which is appended to the product's review. The upload is read one
+     * line at a time and written in unordered bulk writes of reviews.bulk.batch-size records, so it is never held in
+     * memory as a whole. Entries without a date are dated now; other dates are kept as imported.
+     * @param body  The uploaded records.
+     * @return      A report of how many records were imported and which ones failed, and why.
+     * @throws IOException  If the upload cannot be read.
+     */
+    @PostMapping(value = "/reviews/bulk", consumes = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ReviewImportReport> importReviews(InputStream body) throws IOException {
+        ReviewImportReport report = new ReviewImportReport();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<ReviewImportRecord> batch = new ArrayList<>(bulkBatchSize);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            try {
+                batch.add(parseImportRecord(objectMapper, lineNumber, line));
+            } catch (JsonProcessingException e) {
+                report.addFailure(new ReviewImportFailure(lineNumber, e.getOriginalMessage()));
+            }
+
+            if (batch.size() == bulkBatchSize) {
+                report.addBatch(batch.size(), service.importRecords(batch));
+                batch = new ArrayList<>(bulkBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            report.addBatch(batch.size(), service.importRecords(batch));
+        }
+
+        logger.info("Imported {} of {} records, {} failed", report.getImported(), report.getRecords(), report.getFailed());
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Parses a line of a bulk import.
+     * @throws JsonProcessingException  If the line is not a review or an entry record.
+     */
+    static ReviewImportRecord parseImportRecord(ObjectMapper objectMapper, long lineNumber, String line)
+            throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        if (!node.hasNonNull("productId")) {
+            throw JsonMappingException.from((JsonParser) null, "productId is required");
+        }
+        JsonNode productId = node.get("productId");
+        if (!productId.isIntegralNumber() || !productId.canConvertToInt()) {
+            throw JsonMappingException.from((JsonParser) null, "productId must be an integer");
+        }
+
+        if (node.has("entry")) {
+            if (!node.get("entry").isObject()) {
+                throw JsonMappingException.from((JsonParser) null, "entry must be an object");
+            }
+            ReviewEntry entry = objectMapper.treeToValue(node.get("entry"), ReviewEntry.class);
+            if (entry.getDate() == null) {
+                entry.setDate(new Date());
+            }
+            return ReviewImportRecord.ofEntry(lineNumber, productId.intValue(), entry);
+        }
+
+        Review review = objectMapper.treeToValue(node, Review.class);
+        review.getEntries().stream()
+                .filter(entry -> entry.getDate() == null)
+                .forEach(entry -> entry.setDate(new Date()));
+        return ReviewImportRecord.ofReview(lineNumber, review);
+    }
+
     /**
      * Creates a new review entry for the review with the specified productId.
      * @param productId     The productId of the review to which to add the new review entry.
      * @param entry         The entry to add to the review.
-     * @return              The complete updated review.
+     * @return              The updated review, without its entries.
      */
     @PostMapping("/review/{productId}/entry")
     public ResponseEntity<Review> addEntryToReview(@PathVariable Integer productId, @RequestBody ReviewEntry entry) {
-        logger.info("Add review entry for product id: {}, {}", productId, entry);
+        writeLog.received(productId, entry);
 
-        // Retrieve the review for the specified productId; if there is no review, create a new one
-        Review review = service.findByProductId(productId).orElseGet(() -> new Review(productId));
-
-        // Add this new entry to the review
+        // Append the entry atomically; the review is created if it does not exist yet
         entry.setDate(new Date());
-        review.getEntries().add(entry);
-
-        // Save the review
-        Review updatedReview = service.save(review);
-        logger.info("Updated review: {}", updatedReview);
+        Review updatedReview = service.appendEntry(productId, entry);
+        responseCache.invalidate(updatedReview.getId());
+        writeLog.written("entry", updatedReview);
 
         try {
             // Build a created response
@@ -134,6 +619,56 @@ public class ReviewController {
         }
     }
 
+    /**
+     * Replaces the review with the specified ID. The update is only applied if the stored review is still at the
+     * version given by the If-Match header or, when the header is omitted, by the version in the request body.
+     * @param id        The ID of the review to update.
+     * @param review    The new state of the review.
+     * @param ifMatch   The ETag of the version the client expects to replace, if any.
+     * @return          The updated review, 404 Not Found, 409 Conflict if the productId already has another review,
+     *                  or 412 Precondition Failed if the review has been modified since the client read it.
+     */
+    @PutMapping("/review/{id}")
+    public ResponseEntity<?> updateReview(@PathVariable String id,
+                                          @RequestBody Review review,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.info("Updating review with ID {}", id);
+
+        Optional<Integer> currentVersion = service.findVersionById(id);
+        if (!currentVersion.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Resolve the version the client expects to replace
+        if (ifMatch != null) {
+            if (!eTagMatches(ifMatch, currentVersion.get(), false)) {
+                return preconditionFailed(currentVersion.get());
+            }
+            review.setVersion(currentVersion.get());
+        }
+        review.setId(id);
+
+        try {
+            Review updatedReview = service.update(review);
+            responseCache.invalidate(id);
+            writeLog.written("update", updatedReview);
+            return ResponseEntity
+                    .ok()
+                    .location(new URI("/review/" + updatedReview.getId()))
+                    .eTag(Integer.toString(updatedReview.getVersion()))
+                    .body(updatedReview);
+        } catch (OptimisticLockingFailureException e) {
+            // Another writer got there first
+            return service.findVersionById(id)
+                    .<ResponseEntity<?>>map(ReviewController::preconditionFailed)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (URISyntaxException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Deletes the review with the specified ID. Note that this is the review ID, not the product ID.
      * @param id    The ID of the review to delete.
@@ -150,8 +685,177 @@ public class ReviewController {
         // Delete the review if it exists in the database
         return existingReview.map(review -> {
             service.delete(review.getId());
+            responseCache.invalidate(review.getId());
             return ResponseEntity.ok().build();
         }).orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Adds Vary: Accept to a response whose representation depends on the negotiated media type, so that caches do
+     * not serve it to clients that asked for another one.
+     * @param response  The response.
+     * @return          The response with Accept added to its Vary header.
+     */
+    static <T> ResponseEntity<T> varyByAccept(ResponseEntity<T> response) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(response.getHeaders());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+
+    /**
+     * Builds a 304 Not Modified response for the specified review version.
+     * @param version   The current version of the review.
+     * @return          A bodiless 304 Not Modified response that carries the version's ETag.
+     */
+    static <T> ResponseEntity<T> notModified(Integer version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(Integer.toString(version))
+                .build();
+    }
+
+    /**
+     * Builds the response of a full page, which carries the token for the next page in the X-Next-Token header and
+     * the URL of the next page, with the token as the "after" parameter, in a Link header.
+     * @param page      The full page.
+     * @param nextToken The token that identifies the last item of the page.
+     * @param pageSize  The size of the page, which the next page keeps.
+     * @return          A 200 OK response with the page and the next page headers.
+     */
+    static <T> ResponseEntity<List<T>> withNextPage(List<T> page, String nextToken, int pageSize) {
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", nextToken)
+                .replaceQueryParam("limit", pageSize)
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(NEXT_TOKEN_HEADER, nextToken)
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(page);
+    }
+
+    /**
+     * Returns the next-page token of a page of reviews that ends with the specified review: its ID, Base64 encoded
+     * for URLs, so that the token can be checked when it comes back.
+     */
+    static String reviewToken(Review last) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(last.getId().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a next-page token of a page of reviews into the ID of the page's last review.
+     * @throws IllegalArgumentException If the token was not made by reviewToken.
+     */
+    static String parseReviewToken(String token) {
+        try {
+            String id = StandardCharsets.UTF_8.newDecoder()
+                    .decode(ByteBuffer.wrap(Base64.getUrlDecoder().decode(token)))
+                    .toString();
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Invalid next-page token " + token);
+            }
+            return id;
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException("Invalid next-page token " + token, e);
+        }
+    }
+
+    /**
+     * Returns the next-page token of a page of entries that ends with the specified entry: the entry's date, in
+     * milliseconds, its position and its review ID.
+     */
+    static String entryToken(ReviewEntryMatch last) {
+        return last.getDate().getTime() + "_" + last.getPosition() + "_" + last.getReviewId();
+    }
+
+    /**
+     * Parses a next-page token of a page of entries into the date, position and review ID of the page's last entry.
+     * @throws IllegalArgumentException If the token was not made by entryToken.
+     */
+    static ReviewEntryMatch parseEntryToken(String token) {
+        int separator = token.indexOf('_');
+        int positionSeparator = separator < 0 ? -1 : token.indexOf('_', separator + 1);
+        if (positionSeparator < 0 || positionSeparator == token.length() - 1) {
+            throw new IllegalArgumentException("Invalid next-page token " + token);
+        }
+        ReviewEntryMatch last = new ReviewEntryMatch();
+        last.setDate(new Date(Long.parseLong(token.substring(0, separator))));
+        last.setPosition(Integer.parseInt(token.substring(separator + 1, positionSeparator)));
+        last.setReviewId(token.substring(positionSeparator + 1));
+        return last;
+    }
+
+    /**
+     * Builds a 412 Precondition Failed response for the specified current review version.
+     * @param version   The current version of the review.
+     * @return          A bodiless 412 Precondition Failed response that carries the current version's ETag.
+     */
+    static <T> ResponseEntity<T> preconditionFailed(Integer version) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag(Integer.toString(version))
+                .build();
+    }
+
+    /**
+     * Returns true if an If-None-Match or If-Match header value matches the ETag of the specified review version.
+     * The header may be "*" or a comma separated list of ETags. If-None-Match uses weak comparison, so weak ETags
+     * match; If-Match uses strong comparison, so they never do.
+     * @param header            The If-None-Match or If-Match header value.
+     * @param version           The current version of the review.
+     * @param weakComparison    True to compare weak ETags as if they were strong.
+     * @return                  True if one of the ETags in the header is the ETag of the version.
+     */
+    static boolean eTagMatches(String header, Integer version, boolean weakComparison) {
+        String eTag = "\"" + version + "\"";
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (weakComparison && candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether an Accept header explicitly asks for one of the BINARY_MEDIA_TYPES, rather than matching them
+     * with a wildcard, so that binary responses are only served to clients that opted in.
+     */
+    static boolean acceptsBinary(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .filter(type -> type.getQualityValue() > 0)
+                    .anyMatch(type -> BINARY_MEDIA_TYPES.stream().anyMatch(type::equalsTypeAndSubtype));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether an Accept-Encoding header accepts gzip, that is, lists it, or "*", without a zero quality.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = Arrays.stream(parts).skip(1)
+                    .map(String::trim)
+                    .anyMatch(parameter -> parameter.matches("(?i)q\\s*=\\s*0(\\.0*)?"));
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
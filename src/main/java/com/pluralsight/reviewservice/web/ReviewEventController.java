@@ -0,0 +1,157 @@
+package com.pluralsight.reviewservice.web;
+
+import com.pluralsight.reviewservice.model.ReviewEvent;
+import com.pluralsight.reviewservice.repository.ReviewChangeStream;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams review events as server-sent events, so that consumers such as search indexing and cache nodes learn about
+ * writes as they happen instead of polling GET /reviews. Each event's SSE ID is its change stream resume token: a
+ * consumer that reconnects with the Last-Event-ID header receives the events it missed while it was away.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReviewEventController {
+
+    private static final Logger logger = LogManager.getLogger(ReviewEventController.class);
+
+    /**
+     * The header with which an EventSource reconnects after the last event it received.
+     */
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private ReviewChangeStream changeStream;
+
+    /**
+     * How long a stream stays open before the consumer has to reconnect.
+     */
+    private Duration timeout;
+
+    /**
+     * How long a quiet stream waits before it sends a heartbeat, which carries the latest resume token and detects
+     * consumers that went away.
+     */
+    private Duration heartbeatInterval;
+
+    private int maxSubscribers;
+
+    private AtomicInteger subscribers = new AtomicInteger();
+
+    /**
+     * Each subscriber blocks a thread on its change stream, so they get virtual threads rather than pool threads.
+     */
+    private ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("review-events-", 0).factory());
+
+    public ReviewEventController(ReviewChangeStream changeStream,
+                                 @Value("${reviews.events.timeout:30m}") Duration timeout,
+                                 @Value("${reviews.events.heartbeat-interval:15s}") Duration heartbeatInterval,
+                                 @Value("${reviews.events.max-subscribers:100}") int maxSubscribers) {
+        this.changeStream = changeStream;
+        this.timeout = timeout;
+        this.heartbeatInterval = heartbeatInterval;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * Interrupts the streams that are still open, which closes their change streams, and stops taking new ones.
+     */
+    @PreDestroy
+    void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Streams the creation, replacement and deletion of reviews and the entries added to them, as "created",
+     * "updated", "deleted" and "entry" events with a JSON ReviewEvent as data.
+     * @param lastEventId   The ID of the last event the consumer received, to resume after it.
+     * @param after         The same as Last-Event-ID, for consumers that cannot set headers.
+     * @return              The event stream, 410 Gone if the stream cannot be resumed after the specified event, in
+     *                      which case the consumer has to rescan with GET /reviews, or 503 Service Unavailable if too
+     *                      many consumers are connected or the stream cannot be opened.
+     */
+    @GetMapping(value = "/reviews/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+                                                   @RequestParam(value = "after", required = false) String after) {
+        String resumeToken = lastEventId != null ? lastEventId : after;
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        ReviewChangeStream.Cursor cursor;
+        try {
+            cursor = changeStream.open(resumeToken, heartbeatInterval);
+        } catch (ReviewChangeStream.ResumeFailedException e) {
+            subscribers.decrementAndGet();
+            logger.info("Cannot resume review events after {}: {}", resumeToken, e.getMostSpecificCause().getMessage());
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (DataAccessException e) {
+            // The consumer can retry with the same resume token once the database is back
+            subscribers.decrementAndGet();
+            logger.warn("Cannot open the review event stream: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        AtomicBoolean done = new AtomicBoolean();
+        emitter.onCompletion(() -> done.set(true));
+        emitter.onTimeout(() -> done.set(true));
+        emitter.onError(e -> done.set(true));
+        executor.execute(() -> stream(cursor, emitter, done));
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Sends events from the change stream until the emitter completes, the consumer goes away or the stream ends.
+     */
+    private void stream(ReviewChangeStream.Cursor cursor, SseEmitter emitter, AtomicBoolean done) {
+        try (cursor) {
+            while (!done.get()) {
+                ReviewEvent event = cursor.tryNext();
+                if (event != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(event.getResumeToken())
+                            .name(event.getType().name().toLowerCase())
+                            .data(event, MediaType.APPLICATION_JSON));
+                } else if (cursor.isInvalidated()) {
+                    break;
+                } else {
+                    // Nothing happened for a while: move the consumer's resume point past the quiet period
+                    SseEmitter.SseEventBuilder heartbeat = SseEmitter.event().comment("heartbeat");
+                    String resumeToken = cursor.getResumeToken();
+                    emitter.send(resumeToken != null ? heartbeat.id(resumeToken) : heartbeat);
+                }
+            }
+            emitter.complete();
+        } catch (IOException e) {
+            // The consumer went away; the container completes the emitter
+            logger.debug("Review event consumer disconnected: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            logger.warn("Review event stream failed", e);
+            emitter.completeWithError(e);
+        } finally {
+            subscribers.decrementAndGet();
+        }
+    }
+}
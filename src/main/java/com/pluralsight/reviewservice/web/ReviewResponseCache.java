@@ -0,0 +1,224 @@
+package com.pluralsight.reviewservice.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.pluralsight.reviewservice.model.Review;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized GET /review/{id} responses, so that reading a review that has not changed writes stored bytes to the
+ * response instead of serializing the review again. A response is stored per review ID together with the version it
+ * was serialized from; a lookup for any other version misses, and the response for the newer version replaces it.
+ * Hits and misses are recorded per lookup of a version, so a response stored for another version counts as a miss.
+ * Responses of at least reviews.response-cache.gzip-min-size are also stored gzipped, for clients that accept it.
+ *
+ * The cache is bounded by the total size of the stored bytes rather than by the number of reviews, since a review
+ * with a long history of entries can be many times the size of a new one.
+ */
+@Component
+@ManagedResource(objectName = "com.pluralsight.reviewservice:name=ReviewResponseCache", description = "Review response cache")
+public class ReviewResponseCache implements MeterBinder {
+
+    /**
+     * The bytes of a serialized review.
+     */
+    static class CachedResponse {
+
+        private final int version;
+
+        private final byte[] json;
+
+        /**
+         * The gzipped JSON, or null if the JSON is too small to be worth compressing.
+         */
+        private final byte[] gzip;
+
+        CachedResponse(int version, byte[] json, byte[] gzip) {
+            this.version = version;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        int getVersion() {
+            return version;
+        }
+
+        byte[] getJson() {
+            return json;
+        }
+
+        byte[] getGzip() {
+            return gzip;
+        }
+
+        int size() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+
+    private ObjectMapper objectMapper;
+
+    /**
+     * Responses by review ID.
+     */
+    private Cache<String, CachedResponse> responses;
+
+    /**
+     * The statistics of the responses cache, to which lookups record their own hits and misses.
+     */
+    private ConcurrentStatsCounter statsCounter = new ConcurrentStatsCounter();
+
+    /**
+     * The smallest JSON response that is also stored gzipped, or -1 to never gzip.
+     */
+    private long gzipMinSize;
+
+    public ReviewResponseCache(ObjectMapper objectMapper,
+                               @Value("${reviews.response-cache.max-size:64MB}") DataSize maxSize,
+                               @Value("${reviews.response-cache.gzip:true}") boolean gzip,
+                               @Value("${reviews.response-cache.gzip-min-size:1KB}") DataSize gzipMinSize) {
+        this.objectMapper = objectMapper;
+        this.gzipMinSize = gzip ? gzipMinSize.toBytes() : -1;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String id, CachedResponse response) -> response.size())
+                .recordStats(() -> statsCounter)
+                .build();
+    }
+
+    /**
+     * Returns the stored response for a version of a review, without loading the review.
+     * @param id        The ID of the review.
+     * @param version   The version of the review.
+     * @return          The serialized review, or null if the cache has no response for the version.
+     */
+    CachedResponse get(String id, int version) {
+        // Looked up through the map view, which records no statistics, so that a response for another version is
+        // recorded as a miss rather than a hit
+        CachedResponse cached = responses.asMap().get(id);
+        if (cached != null && cached.getVersion() == version) {
+            statsCounter.recordHits(1);
+            return cached;
+        }
+        statsCounter.recordMisses(1);
+        return null;
+    }
+
+    /**
+     * Serializes a review and stores it, unless the cache already has a response for a newer version.
+     * @param review    The review to serialize.
+     * @return          The serialized review.
+     */
+    CachedResponse put(Review review) {
+        CachedResponse response = serialize(review);
+        // A reader that loaded the review just before a write must not replace the response for the newer version
+        responses.asMap().merge(review.getId(), response,
+                (current, loaded) -> current.getVersion() > loaded.getVersion() ? current : loaded);
+        return response;
+    }
+
+    /**
+     * Drops the response for a review that was written or deleted, rather than waiting for it to be evicted.
+     * @param id    The ID of the review.
+     */
+    void invalidate(String id) {
+        responses.invalidate(id);
+    }
+
+    /**
+     * Performs pending maintenance, such as evicting responses over the memory budget, now rather than in the
+     * background.
+     */
+    void cleanUp() {
+        responses.cleanUp();
+    }
+
+    private CachedResponse serialize(Review review) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(review);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Could not write review " + review.getId(), e);
+        }
+        return new CachedResponse(review.getVersion(), json,
+                gzipMinSize >= 0 && json.length >= gzipMinSize ? gzip(json) : null);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Publishes the cache statistics as the cache.* meters of the "reviewResponses" cache, and the total size of the
+     * cached responses as reviews.response.cache.bytes.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, responses, "reviewResponses");
+        Gauge.builder("reviews.response.cache.bytes", this, ReviewResponseCache::getWeightedSize)
+                .description("Total size of the cached responses")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private CacheStats stats() {
+        return responses.stats();
+    }
+
+    @ManagedAttribute(description = "Number of responses written from the cache")
+    public long getHitCount() {
+        return stats().hitCount();
+    }
+
+    @ManagedAttribute(description = "Number of responses that were serialized")
+    public long getMissCount() {
+        return stats().missCount();
+    }
+
+    @ManagedAttribute(description = "Number of responses evicted to stay within the memory budget")
+    public long getEvictionCount() {
+        return stats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "Number of cached responses")
+    public long getSize() {
+        return responses.estimatedSize();
+    }
+
+    @ManagedAttribute(description = "Total size in bytes of the cached responses")
+    public long getWeightedSize() {
+        return responses.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+
+    @ManagedOperation(description = "Removes every response from the cache")
+    public void invalidateAll() {
+        responses.invalidateAll();
+    }
+}
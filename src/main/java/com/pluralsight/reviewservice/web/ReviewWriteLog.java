@@ -0,0 +1,101 @@
+package com.pluralsight.reviewservice.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs the writes of the review API as key=value lines of a bounded size: the review's ID, productId, version and
+ * number of entries, never the entries themselves, which would make every write of a large review format and ship
+ * megabytes of log.
+ *
+ * Full payloads go to the separate PAYLOAD_LOGGER as JSON: every write when that logger is at DEBUG, otherwise the
+ * fraction of writes set by reviews.logging.payload-sample-rate at INFO.
+ */
+class ReviewWriteLog {
+
+    /**
+     * The name of the logger that full review payloads are written to.
+     */
+    static final String PAYLOAD_LOGGER = "com.pluralsight.reviewservice.payload";
+
+    private Logger logger;
+
+    private Logger payloadLogger;
+
+    private ObjectMapper objectMapper;
+
+    /**
+     * The fraction of writes, from 0 to 1, whose payload is logged when the payload logger is not at DEBUG.
+     */
+    private double payloadSampleRate;
+
+    ReviewWriteLog(Logger logger, ObjectMapper objectMapper, double payloadSampleRate) {
+        this(logger, LogManager.getLogger(PAYLOAD_LOGGER), objectMapper, payloadSampleRate);
+    }
+
+    ReviewWriteLog(Logger logger, Logger payloadLogger, ObjectMapper objectMapper, double payloadSampleRate) {
+        this.logger = logger;
+        this.payloadLogger = payloadLogger;
+        this.objectMapper = objectMapper;
+        this.payloadSampleRate = payloadSampleRate;
+    }
+
+    /**
+     * Logs a request to write a whole review, before it is written.
+     * @param action    What is done with the review, such as "create" or "update".
+     * @param review    The review as it was received.
+     */
+    void received(String action, Review review) {
+        logger.info("review.{} id={} productId={} version={} entries={}",
+                action, review.getId(), review.getProductId(), review.getVersion(), review.getEntries().size());
+        payload(action + ".request", review);
+    }
+
+    /**
+     * Logs a request to append an entry, before it is written.
+     * @param productId The productId of the review the entry is appended to.
+     * @param entry     The entry as it was received.
+     */
+    void received(Integer productId, ReviewEntry entry) {
+        logger.info("review.entry productId={} username={} length={}", productId, entry.getUsername(),
+                entry.getReview() != null ? entry.getReview().length() : 0);
+        payload("entry.request", entry);
+    }
+
+    /**
+     * Logs a review after it was written.
+     * @param action    What was done with the review, such as "create" or "update".
+     * @param review    The review as it was stored.
+     */
+    void written(String action, Review review) {
+        logger.info("review.{}.done id={} productId={} version={} entries={}", action, review.getId(),
+                review.getProductId(), review.getVersion(),
+                review.getTotalEntries() != null ? review.getTotalEntries() : review.getEntries().size());
+        payload(action + ".done", review);
+    }
+
+    private void payload(String event, Object payload) {
+        boolean all = payloadLogger.isDebugEnabled();
+        if (!all && (payloadSampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= payloadSampleRate)) {
+            return;
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            json = "unserializable: " + e.getOriginalMessage();
+        }
+        if (all) {
+            payloadLogger.debug("review.{} payload={}", event, json);
+        } else {
+            payloadLogger.info("review.{} payload={}", event, json);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.pluralsight.reviewservice.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@DataMongoTest
+class MongoInvalidationTransportTest {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private MongoInvalidationTransport transport;
+
+    @BeforeEach
+    void beforeEach() {
+        transport = new MongoInvalidationTransport(mongoTemplate, DataSize.ofKilobytes(64));
+        transport.start();
+    }
+
+    @AfterEach
+    void afterEach() {
+        transport.stop();
+        mongoTemplate.dropCollection(MongoInvalidationTransport.COLLECTION);
+    }
+
+    @Test
+    void testPublishedInvalidationsAreDelivered() throws Exception {
+        BlockingQueue<ReviewInvalidation> received = new LinkedBlockingQueue<>();
+        transport.subscribe(received::add);
+
+        transport.publish(new ReviewInvalidation("node-1", "reviewId", 1, 2, System.currentTimeMillis()));
+
+        ReviewInvalidation invalidation = received.poll(10, TimeUnit.SECONDS);
+        Assertions.assertNotNull(invalidation, "The invalidation should be delivered through the capped collection");
+        Assertions.assertEquals("node-1", invalidation.getOrigin());
+        Assertions.assertEquals("reviewId", invalidation.getReviewId());
+        Assertions.assertEquals(2, invalidation.getVersion().intValue());
+    }
+
+    @Test
+    void testInvalidationsFromSkewedClocksAreDelivered() throws Exception {
+        BlockingQueue<ReviewInvalidation> received = new LinkedBlockingQueue<>();
+        transport.subscribe(received::add);
+
+        // Published by a node whose clock is an hour behind
+        long publishedAt = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+        transport.publish(new ReviewInvalidation("node-1", "reviewId", 1, 2, publishedAt));
+
+        ReviewInvalidation invalidation = received.poll(10, TimeUnit.SECONDS);
+        Assertions.assertNotNull(invalidation, "The invalidation should be delivered whatever the publisher's clock");
+        Assertions.assertEquals(publishedAt, invalidation.getPublishedAt());
+    }
+}
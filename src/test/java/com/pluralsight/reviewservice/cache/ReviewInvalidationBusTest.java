@@ -0,0 +1,72 @@
+package com.pluralsight.reviewservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class ReviewInvalidationBusTest {
+
+    private LoopbackInvalidationTransport transport;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void beforeEach() {
+        transport = new LoopbackInvalidationTransport();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Invalidations reach the other nodes but not the publishing one")
+    void testDelivery() {
+        ReviewInvalidationBus publisher = new ReviewInvalidationBus(transport, new SimpleMeterRegistry(), "node-1");
+        ReviewInvalidationBus receiver = new ReviewInvalidationBus(transport, registry, "node-2");
+        List<ReviewInvalidation> published = new ArrayList<>();
+        List<ReviewInvalidation> received = new ArrayList<>();
+        publisher.subscribe(published::add);
+        receiver.subscribe(received::add);
+
+        publisher.publish("reviewId", 1, 2);
+
+        Assertions.assertTrue(published.isEmpty(), "The publishing node should ignore its own invalidation");
+        Assertions.assertEquals(1, received.size());
+        Assertions.assertEquals("node-1", received.get(0).getOrigin());
+        Assertions.assertEquals(2, received.get(0).getVersion().intValue());
+    }
+
+    @Test
+    @DisplayName("Received invalidations are counted by outcome and their lag is recorded")
+    void testMetrics() {
+        ReviewInvalidationBus receiver = new ReviewInvalidationBus(transport, registry, "node-2");
+        receiver.subscribe(invalidation -> invalidation.getVersion() > 1);
+
+        transport.publish(new ReviewInvalidation("node-1", "reviewId", 1, 2, System.currentTimeMillis() - 50));
+        transport.publish(new ReviewInvalidation("node-1", "reviewId", 1, 1, System.currentTimeMillis()));
+
+        Assertions.assertEquals(1, registry.get("reviews.cache.invalidations.received").tag("outcome", "evicted").counter().count());
+        Assertions.assertEquals(1, registry.get("reviews.cache.invalidations.received").tag("outcome", "current").counter().count());
+        Assertions.assertEquals(2, registry.get("reviews.cache.invalidation.lag").timer().count());
+        Assertions.assertTrue(registry.get("reviews.cache.invalidation.lag").timer().max(TimeUnit.MILLISECONDS) >= 50);
+    }
+
+    @Test
+    @DisplayName("Invalidations made up by the transport are applied but not recorded")
+    void testTransportInvalidationsAreNotRecorded() {
+        ReviewInvalidationBus receiver = new ReviewInvalidationBus(transport, registry, "node-2");
+        List<ReviewInvalidation> received = new ArrayList<>();
+        receiver.subscribe(received::add);
+
+        transport.publish(new ReviewInvalidation(ReviewInvalidation.TRANSPORT_ORIGIN, null, null, null, 0));
+
+        Assertions.assertEquals(1, received.size(), "The invalidation should still drop the cached reviews");
+        Assertions.assertEquals(0, registry.get("reviews.cache.invalidations.received").tag("outcome", "evicted").counter().count());
+        Assertions.assertEquals(0, registry.get("reviews.cache.invalidations.received").tag("outcome", "current").counter().count());
+        Assertions.assertEquals(0, registry.get("reviews.cache.invalidation.lag").timer().count());
+    }
+}
@@ -53,7 +53,7 @@ public class ReviewServiceIntegrationTest {
 
                 // Validate the response code and content type
                 .andExpect(status().isOk())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
 
                 // Validate the headers
                 .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
@@ -95,7 +95,7 @@ public class ReviewServiceIntegrationTest {
 
                 // Validate the response code and content type
                 .andExpect(status().isCreated())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
 
                 // Validate the headers
                 .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
@@ -124,12 +124,13 @@ public class ReviewServiceIntegrationTest {
 
                 // Validate the response code and content type
                 .andExpect(status().isOk())
-                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
                 .andExpect(header().string(HttpHeaders.LOCATION, "/review/1"))
 
                 // Validate the returned fields
                 .andExpect(jsonPath("$.id", is("1")))
                 .andExpect(jsonPath("$.productId", is(1)))
+                .andExpect(jsonPath("$.version", is(2)))
                 .andExpect(jsonPath("$.entries.length()", is(2)))
                 .andExpect(jsonPath("$.entries[0].username", is("user1")))
                 .andExpect(jsonPath("$.entries[0].review", is("This is a review")))
@@ -0,0 +1,67 @@
+package com.pluralsight.reviewservice.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Records every latency of a stream of requests, so that percentiles are exact rather than estimated. Each load
+ * driver worker has its own recorder, and they are merged when the run is over; a recorder is not thread-safe.
+ */
+public class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private boolean sorted = true;
+
+    /**
+     * Records the latency of a request.
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+        sorted = false;
+    }
+
+    /**
+     * Adds the latencies recorded by another recorder.
+     */
+    public void addAll(LatencyRecorder other) {
+        if (count + other.count > latencies.length) {
+            latencies = Arrays.copyOf(latencies, Math.max(count + other.count, latencies.length * 2));
+        }
+        System.arraycopy(other.latencies, 0, latencies, count, other.count);
+        count += other.count;
+        sorted = false;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the latency that the specified percentage of requests did not exceed, by the nearest-rank method.
+     * @param percentile    The percentile, from 0 to 100.
+     * @return              The latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(latencies, 0, count);
+            sorted = true;
+        }
+        // Allow for the rounding of percentiles such as 99.9, which are not exact in binary
+        int rank = (int) Math.ceil(percentile / 100 * count - 1e-9);
+        return latencies[Math.min(count, Math.max(1, rank)) - 1];
+    }
+
+    /**
+     * Returns the highest latency, or 0 if nothing was recorded.
+     */
+    public long max() {
+        return percentile(100);
+    }
+}
@@ -0,0 +1,46 @@
+package com.pluralsight.reviewservice.loadtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LatencyRecorderTest {
+
+    @Test
+    @DisplayName("Percentiles use the nearest rank of the recorded latencies")
+    void testPercentiles() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        // Record 1..2000 out of order, so that the recorder has to grow and sort
+        for (int i = 2000; i >= 1; i--) {
+            recorder.record(i);
+        }
+
+        Assertions.assertEquals(2000, recorder.getCount());
+        Assertions.assertEquals(1000, recorder.percentile(50));
+        Assertions.assertEquals(1980, recorder.percentile(99));
+        Assertions.assertEquals(1998, recorder.percentile(99.9));
+        Assertions.assertEquals(2000, recorder.max());
+    }
+
+    @Test
+    @DisplayName("Merged recorders report over all of their latencies")
+    void testAddAll() {
+        LatencyRecorder first = new LatencyRecorder();
+        LatencyRecorder second = new LatencyRecorder();
+        first.record(10);
+        second.record(30);
+        second.record(20);
+
+        first.addAll(second);
+
+        Assertions.assertEquals(3, first.getCount());
+        Assertions.assertEquals(20, first.percentile(50));
+        Assertions.assertEquals(30, first.max());
+    }
+
+    @Test
+    @DisplayName("An empty recorder reports 0")
+    void testEmpty() {
+        Assertions.assertEquals(0, new LatencyRecorder().percentile(99));
+    }
+}
@@ -0,0 +1,123 @@
+package com.pluralsight.reviewservice.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A closed-loop HTTP load driver: each of a fixed number of workers sends a request, waits for its response and
+ * immediately sends the next, so the offered load adapts to how fast the service answers. Each request is an
+ * operation drawn from a weighted mix. Latencies are recorded only after the warm-up.
+ */
+public class LoadDriver {
+
+    private HttpClient httpClient;
+    private URI baseUri;
+    private ZipfDistribution products;
+    private Map<LoadOperation, Integer> mix;
+    private int totalWeight;
+    private long seed;
+
+    /**
+     * @param baseUri   The URI of the service.
+     * @param products  The popularity of the products the operations pick from.
+     * @param mix       The relative weight of each operation; operations that are absent are never sent.
+     * @param seed      The seed from which each worker's random operations and products are drawn, so that a
+     *                  worker sends the same sequence of requests on every run.
+     */
+    public LoadDriver(URI baseUri, ZipfDistribution products, Map<LoadOperation, Integer> mix, long seed) {
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        this.baseUri = baseUri;
+        this.products = products;
+        this.mix = new EnumMap<>(mix);
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.seed = seed;
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("The operation mix must have a positive weight");
+        }
+    }
+
+    /**
+     * Runs the load and returns the latencies recorded after the warm-up.
+     * @param concurrency   The number of workers, and so of requests in flight.
+     * @param warmup        How long to send requests before recording them.
+     * @param duration      How long to record requests after the warm-up.
+     * @return              The report of the recorded requests.
+     */
+    public LoadReport run(int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long end = recordFrom + duration.toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            // The seeds of the workers are drawn in order, so every run gives worker i the same seed
+            Random seeds = new Random(seed);
+            List<Future<LoadReport>> results = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                Random random = new Random(seeds.nextLong());
+                results.add(workers.submit(() -> work(random, recordFrom, end)));
+            }
+
+            LoadReport report = new LoadReport(duration);
+            for (Future<LoadReport> result : results) {
+                report.addAll(result.get());
+            }
+            return report;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A load driver worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * The loop of a single worker.
+     */
+    private LoadReport work(Random random, long recordFrom, long end) {
+        LoadReport report = new LoadReport(Duration.ZERO);
+        long now = System.nanoTime();
+        while (now < end) {
+            LoadOperation operation = nextOperation(random);
+            long sent = now;
+            boolean succeeded;
+            try {
+                HttpResponse<Void> response = httpClient.send(
+                        operation.request(baseUri, products, random), HttpResponse.BodyHandlers.discarding());
+                succeeded = response.statusCode() < 400;
+            } catch (IOException e) {
+                succeeded = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            now = System.nanoTime();
+            if (sent >= recordFrom && now <= end) {
+                report.record(operation, now - sent, succeeded);
+            }
+        }
+        return report;
+    }
+
+    private LoadOperation nextOperation(Random random) {
+        int draw = random.nextInt(totalWeight);
+        for (Map.Entry<LoadOperation, Integer> weight : mix.entrySet()) {
+            draw -= weight.getValue();
+            if (draw < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Weights changed while drawing an operation");
+    }
+}
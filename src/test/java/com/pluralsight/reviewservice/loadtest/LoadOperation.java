@@ -0,0 +1,78 @@
+package com.pluralsight.reviewservice.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The API calls the load driver can make. Each call picks its products from the Zipfian product popularity, so that
+ * popular products get most of the traffic.
+ */
+public enum LoadOperation {
+
+    /**
+     * GET /reviews?productId={productId}
+     */
+    REVIEW {
+        @Override
+        HttpRequest request(URI baseUri, ZipfDistribution products, Random random) {
+            return HttpRequest.newBuilder(baseUri.resolve("/reviews?productId=" + products.sample(random))).GET().build();
+        }
+    },
+
+    /**
+     * GET /review/{productId}/stats
+     */
+    STATS {
+        @Override
+        HttpRequest request(URI baseUri, ZipfDistribution products, Random random) {
+            return HttpRequest.newBuilder(baseUri.resolve("/review/" + products.sample(random) + "/stats")).GET().build();
+        }
+    },
+
+    /**
+     * POST /reviews/batch?view=summary for BATCH_SIZE products
+     */
+    BATCH {
+        @Override
+        HttpRequest request(URI baseUri, ZipfDistribution products, Random random) {
+            String productIds = IntStream.range(0, BATCH_SIZE)
+                    .mapToObj(i -> Integer.toString(products.sample(random)))
+                    .collect(Collectors.joining(",", "[", "]"));
+            return HttpRequest.newBuilder(baseUri.resolve("/reviews/batch?view=summary"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(productIds))
+                    .build();
+        }
+    },
+
+    /**
+     * POST /review/{productId}/entry
+     */
+    ENTRY {
+        @Override
+        HttpRequest request(URI baseUri, ZipfDistribution products, Random random) {
+            String entry = "{\"username\":\"load-user" + random.nextInt(1000) + "\",\"review\":\"Great product, would buy again.\"}";
+            return HttpRequest.newBuilder(baseUri.resolve("/review/" + products.sample(random) + "/entry"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(entry))
+                    .build();
+        }
+    };
+
+    /**
+     * The number of products looked up by a BATCH call.
+     */
+    static final int BATCH_SIZE = 10;
+
+    /**
+     * Builds the next request of this operation.
+     * @param baseUri   The URI of the service.
+     * @param products  The popularity of the products.
+     * @param random    The worker's source of randomness.
+     * @return          The request.
+     */
+    abstract HttpRequest request(URI baseUri, ZipfDistribution products, Random random);
+}
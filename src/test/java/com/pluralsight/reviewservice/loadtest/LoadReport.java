@@ -0,0 +1,92 @@
+package com.pluralsight.reviewservice.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The latencies, errors and throughput of a load run, per operation and in total.
+ */
+public class LoadReport {
+
+    private Duration duration;
+    private Map<LoadOperation, LatencyRecorder> latencies = new EnumMap<>(LoadOperation.class);
+    private Map<LoadOperation, Integer> errors = new EnumMap<>(LoadOperation.class);
+
+    /**
+     * @param duration  The time over which requests were recorded, to compute the throughput.
+     */
+    public LoadReport(Duration duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Records a request. Failed requests are counted as errors, and their latency is not recorded.
+     */
+    public void record(LoadOperation operation, long nanos, boolean succeeded) {
+        if (succeeded) {
+            latencies.computeIfAbsent(operation, o -> new LatencyRecorder()).record(nanos);
+        } else {
+            errors.merge(operation, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Adds the requests recorded by another report, such as that of a single worker.
+     */
+    public void addAll(LoadReport other) {
+        other.latencies.forEach((operation, recorder) ->
+                latencies.computeIfAbsent(operation, o -> new LatencyRecorder()).addAll(recorder));
+        other.errors.forEach((operation, count) -> errors.merge(operation, count, Integer::sum));
+    }
+
+    /**
+     * Returns the report as name/value pairs per operation, plus "total", for writing as JSON.
+     */
+    public Map<String, Map<String, Object>> toMap() {
+        Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+        LatencyRecorder total = new LatencyRecorder();
+        int totalErrors = 0;
+        for (LoadOperation operation : LoadOperation.values()) {
+            LatencyRecorder recorder = latencies.get(operation);
+            int operationErrors = errors.getOrDefault(operation, 0);
+            if (recorder != null || operationErrors > 0) {
+                recorder = recorder != null ? recorder : new LatencyRecorder();
+                rows.put(operation.name().toLowerCase(), row(recorder, operationErrors));
+                total.addAll(recorder);
+                totalErrors += operationErrors;
+            }
+        }
+        rows.put("total", row(total, totalErrors));
+        return rows;
+    }
+
+    /**
+     * Prints the report as a table, with latencies in milliseconds.
+     */
+    public void print(PrintStream out) {
+        out.printf("%-8s %10s %8s %12s %10s %10s %10s %10s%n",
+                "", "requests", "errors", "requests/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        toMap().forEach((name, row) -> out.printf("%-8s %10d %8d %12.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name, row.get("requests"), row.get("errors"), row.get("throughput"),
+                row.get("p50"), row.get("p99"), row.get("p999"), row.get("max")));
+    }
+
+    private Map<String, Object> row(LatencyRecorder recorder, int errorCount) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("requests", recorder.getCount());
+        row.put("errors", errorCount);
+        row.put("throughput", recorder.getCount() / (duration.toNanos() / 1e9));
+        row.put("p50", millis(recorder.percentile(50)));
+        row.put("p99", millis(recorder.percentile(99)));
+        row.put("p999", millis(recorder.percentile(99.9)));
+        row.put("max", millis(recorder.max()));
+        return row;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,105 @@
+package com.pluralsight.reviewservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pluralsight.reviewservice.ReviewserviceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Runs a reproducible load test: starts the service against a fresh embedded MongoDB, loads a synthetic Zipfian
+ * dataset and drives a closed-loop mix of read and write calls against it, then prints p50/p99/p999 latency and
+ * throughput per operation. The driver runs in the same JVM as the service, so compare runs made on the same machine.
+ *
+ * Options, with their defaults:
+ *   --products=10000                   Number of products, each with a review
+ *   --entries=1000000                  Number of review entries spread over the products
+ *   --exponent=1.0                     Exponent of the Zipfian popularity of products, for the dataset and the calls
+ *   --seed=42                          Seed of the dataset and of the requests each worker sends
+ *   --mix=review:80,stats:10,entry:10  Relative weights of the operations: review, stats, batch and entry
+ *   --concurrency=32                   Number of requests in flight
+ *   --warmup=10s                       Time to run before recording
+ *   --duration=30s                     Time to record
+ *   --report=                          File to which to write the report as JSON, if any
+ *   --url=                             Drive an already running service, which must hold the dataset, instead
+ * Any other option is passed to the service, such as --reviews.storage.layout=bucketed.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        SimpleCommandLinePropertySource options = new SimpleCommandLinePropertySource(args);
+        int products = Integer.parseInt(option(options, "products", "10000"));
+        int entries = Integer.parseInt(option(options, "entries", "1000000"));
+        double exponent = Double.parseDouble(option(options, "exponent", "1.0"));
+        long seed = Long.parseLong(option(options, "seed", "42"));
+        Map<LoadOperation, Integer> mix = parseMix(option(options, "mix", "review:80,stats:10,entry:10"));
+        int concurrency = Integer.parseInt(option(options, "concurrency", "32"));
+        Duration warmup = DurationStyle.detectAndParse(option(options, "warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(option(options, "duration", "30s"));
+        String report = option(options, "report", "");
+        String url = option(options, "url", "");
+
+        ConfigurableApplicationContext context = null;
+        try {
+            URI baseUri;
+            if (url.isEmpty()) {
+                context = new SpringApplicationBuilder(ReviewserviceApplication.class)
+                        .properties("server.port=0", "logging.level.com.pluralsight.reviewservice=WARN")
+                        .run(args);
+                baseUri = URI.create("http://localhost:"
+                        + ((WebServerApplicationContext) context).getWebServer().getPort());
+
+                long started = System.nanoTime();
+                long loaded = new ReviewDataset(products, entries, exponent, seed).load(context.getBean(MongoTemplate.class));
+                System.out.printf("Loaded %d reviews with %d entries in %d ms%n", products, loaded,
+                        (System.nanoTime() - started) / 1_000_000);
+            } else {
+                baseUri = URI.create(url);
+            }
+
+            System.out.printf("Driving %s with %d workers, mix %s, for %s after %s warm-up%n", baseUri, concurrency, mix,
+                    duration, warmup);
+            LoadReport result = new LoadDriver(baseUri, new ZipfDistribution(products, exponent), mix, seed)
+                    .run(concurrency, warmup, duration);
+
+            result.print(System.out);
+            if (!report.isEmpty()) {
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(report), result.toMap());
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static String option(SimpleCommandLinePropertySource options, String name, String defaultValue) {
+        String value = options.getProperty(name);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Parses an operation mix such as "review:80,entry:20".
+     */
+    static Map<LoadOperation, Integer> parseMix(String mix) {
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (String weight : mix.split(",")) {
+            String[] parts = weight.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in the mix, found " + weight);
+            }
+            weights.put(LoadOperation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
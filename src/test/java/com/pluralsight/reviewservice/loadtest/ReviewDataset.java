@@ -0,0 +1,144 @@
+package com.pluralsight.reviewservice.loadtest;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A synthetic set of reviews for products 1 to n, whose entries are spread over the products by a Zipfian
+ * distribution: product 1 has the most entries, and most products have only a few. The same parameters always
+ * produce the same reviews, except that entry dates are relative to the time they are loaded.
+ *
+ * Reviews are written in the embedded storage layout; the bucket migration moves them to buckets when the service
+ * runs with the bucketed layout.
+ */
+public class ReviewDataset {
+
+    /**
+     * The most entries given to a single review, which keeps the largest Review document well below MongoDB's 16MB
+     * document limit. Entries drawn for a review beyond this are dropped.
+     */
+    static final int MAX_ENTRIES_PER_REVIEW = 50_000;
+
+    /**
+     * A bulk insert is sent once it holds this many reviews or this many entries, whichever comes first.
+     */
+    private static final int BATCH_REVIEWS = 1_000;
+    private static final int BATCH_ENTRIES = 20_000;
+
+    /**
+     * Entry dates are spread over this period before the load.
+     */
+    private static final long DATE_RANGE_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+    /**
+     * The number of entries written per user on average, which sizes the pool of usernames.
+     */
+    private static final int ENTRIES_PER_USER = 10;
+
+    private static final String[] TEXTS = {
+            "Great product, would buy again.",
+            "Does what it says. The battery lasts all day and it charges quickly.",
+            "Stopped working after two weeks. Support replaced it without any fuss, though.",
+            "Good value for the price.",
+            "Not what I expected from the pictures; the colour is much darker and the material feels cheap."
+    };
+
+    private int products;
+    private int entries;
+    private double exponent;
+    private long seed;
+
+    /**
+     * @param products  The number of products, each of which gets a review.
+     * @param entries   The number of entries to draw over the reviews.
+     * @param exponent  The exponent of the Zipfian distribution; 0 spreads the entries evenly.
+     * @param seed      The seed of the random draws.
+     */
+    public ReviewDataset(int products, int entries, double exponent, long seed) {
+        this.products = products;
+        this.entries = entries;
+        this.exponent = exponent;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the number of entries of the review of each product, indexed by productId - 1.
+     */
+    public int[] entryCounts() {
+        Random random = new Random(seed);
+        ZipfDistribution distribution = new ZipfDistribution(products, exponent);
+        int[] counts = new int[products];
+        for (int i = 0; i < entries; i++) {
+            int product = distribution.sample(random) - 1;
+            if (counts[product] < MAX_ENTRIES_PER_REVIEW) {
+                counts[product]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Inserts the reviews through unordered bulk inserts. The collection is expected to hold no reviews for the
+     * dataset's products.
+     * @param mongoOperations   The MongoDB connection.
+     * @return                  The number of entries inserted.
+     */
+    public long load(MongoOperations mongoOperations) {
+        int[] counts = entryCounts();
+        Random random = new Random(seed + 1);
+        int users = Math.max(1, entries / ENTRIES_PER_USER);
+        long now = System.currentTimeMillis();
+
+        long inserted = 0;
+        List<Review> batch = new ArrayList<>();
+        int batchEntries = 0;
+        for (int product = 0; product < products; product++) {
+            batch.add(review(product + 1, counts[product], users, now, random));
+            batchEntries += counts[product];
+            inserted += counts[product];
+            if (batch.size() >= BATCH_REVIEWS || batchEntries >= BATCH_ENTRIES) {
+                insert(mongoOperations, batch);
+                batch = new ArrayList<>();
+                batchEntries = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(mongoOperations, batch);
+        }
+        return inserted;
+    }
+
+    /**
+     * Builds the review of a product with its entries in date order, and its aggregates.
+     */
+    private static Review review(int productId, int entryCount, int users, long now, Random random) {
+        long[] dates = new long[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            dates[i] = now - (long) (random.nextDouble() * DATE_RANGE_MILLIS);
+        }
+        Arrays.sort(dates);
+
+        Review review = new Review(productId, 1);
+        for (long date : dates) {
+            review.getEntries().add(new ReviewEntry("user" + random.nextInt(users), new Date(date),
+                    TEXTS[random.nextInt(TEXTS.length)]));
+        }
+        review.setTotalEntries(entryCount);
+        review.setLastEntryDate(ReviewStats.lastEntryDate(review.getEntries()));
+        return review;
+    }
+
+    private static void insert(MongoOperations mongoOperations, List<Review> reviews) {
+        mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class).insert(reviews).execute();
+    }
+}
@@ -0,0 +1,49 @@
+package com.pluralsight.reviewservice.loadtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+class ReviewDatasetTest {
+
+    @Test
+    @DisplayName("The same parameters produce the same entry counts")
+    void testEntryCountsAreReproducible() {
+        int[] first = new ReviewDataset(1000, 50_000, 1.0, 42).entryCounts();
+        int[] second = new ReviewDataset(1000, 50_000, 1.0, 42).entryCounts();
+
+        Assertions.assertArrayEquals(first, second, "The entry counts should only depend on the parameters");
+        Assertions.assertEquals(50_000, Arrays.stream(first).sum(), "Every entry should be given to a review");
+    }
+
+    @Test
+    @DisplayName("Entries are skewed towards the lowest productIds")
+    void testEntryCountsAreSkewed() {
+        int[] counts = new ReviewDataset(1000, 100_000, 1.0, 42).entryCounts();
+
+        // With an exponent of 1, product 1 gets about 1 / H(1000), or 13%, of the entries
+        Assertions.assertTrue(counts[0] > 12_000 && counts[0] < 14_000, "Product 1 should have about 13% of the entries");
+        Assertions.assertTrue(counts[0] > counts[9] && counts[9] > counts[99], "Popularity should fall with the rank");
+        Assertions.assertTrue(Arrays.stream(counts, 500, 1000).allMatch(count -> count < 100),
+                "The long tail should have few entries per product");
+    }
+
+    @Test
+    @DisplayName("An exponent of 0 spreads the entries evenly")
+    void testEntryCountsAreEvenWithoutSkew() {
+        int[] counts = new ReviewDataset(10, 100_000, 0, 42).entryCounts();
+
+        Assertions.assertTrue(Arrays.stream(counts).allMatch(count -> count > 9_500 && count < 10_500),
+                "Every product should have about a tenth of the entries");
+    }
+
+    @Test
+    @DisplayName("No review gets more than the maximum number of entries")
+    void testEntryCountsAreCapped() {
+        int[] counts = new ReviewDataset(1, ReviewDataset.MAX_ENTRIES_PER_REVIEW + 10, 1.0, 42).entryCounts();
+
+        Assertions.assertEquals(ReviewDataset.MAX_ENTRIES_PER_REVIEW, counts[0]);
+    }
+}
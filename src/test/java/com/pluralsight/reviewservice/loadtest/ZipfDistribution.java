@@ -0,0 +1,52 @@
+package com.pluralsight.reviewservice.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws ranks from 1 to n with a probability proportional to 1 / rank^exponent, so that a few low ranks are drawn far
+ * more often than the long tail of high ranks, like the popularity of products. An exponent of 0 draws every rank
+ * equally often; around 1 is typical of real popularity.
+ */
+public class ZipfDistribution {
+
+    /**
+     * The probability of drawing each rank or a lower one, indexed by rank - 1.
+     */
+    private double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be at least 1, was " + n);
+        }
+
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        // Make sure rounding never leaves a draw above the last rank
+        cumulative[n - 1] = 1.0;
+    }
+
+    /**
+     * Draws a rank.
+     * @param random    The source of randomness, which is seeded for reproducible draws.
+     * @return          A rank from 1 to n.
+     */
+    public int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return (index >= 0 ? index : -index - 1) + 1;
+    }
+
+    /**
+     * Returns the number of ranks.
+     */
+    public int size() {
+        return cumulative.length;
+    }
+}
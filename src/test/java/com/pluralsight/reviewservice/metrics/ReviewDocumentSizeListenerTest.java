@@ -0,0 +1,62 @@
+package com.pluralsight.reviewservice.metrics;
+
+import com.pluralsight.reviewservice.model.Review;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+
+import java.util.Arrays;
+import java.util.Date;
+
+class ReviewDocumentSizeListenerTest {
+
+    private SimpleMeterRegistry registry;
+
+    /**
+     * The listener that we want to test.
+     */
+    private ReviewDocumentSizeListener listener;
+
+    @BeforeEach
+    void beforeEach() {
+        registry = new SimpleMeterRegistry();
+        listener = new ReviewDocumentSizeListener(registry);
+    }
+
+    @Test
+    @DisplayName("Reads and writes are recorded separately by their BSON size")
+    void testRecordsDocumentSizes() {
+        Document small = new Document("_id", "1").append("productId", 1).append("version", 1);
+        Document large = new Document("_id", "2").append("productId", 2).append("version", 1)
+                .append("entries", Arrays.asList(
+                        new Document("username", "user1").append("date", new Date()).append("review", "This is a review"),
+                        new Document("username", "user2").append("date", new Date()).append("review", "This is a review")));
+
+        listener.onAfterLoad(new AfterLoadEvent<>(small, Review.class, "Reviews"));
+        listener.onAfterLoad(new AfterLoadEvent<>(large, Review.class, "Reviews"));
+        listener.onBeforeSave(new BeforeSaveEvent<>(new Review(3, 1), small, "Reviews"));
+
+        DistributionSummary reads = registry.get("reviews.document.size").tag("operation", "read").summary();
+        DistributionSummary writes = registry.get("reviews.document.size").tag("operation", "write").summary();
+        Assertions.assertEquals(2, reads.count(), "Both reads should be recorded");
+        Assertions.assertEquals(ReviewDocumentSizeListener.size(small) + ReviewDocumentSizeListener.size(large),
+                reads.totalAmount());
+        Assertions.assertEquals(1, writes.count(), "The write should be recorded");
+        Assertions.assertEquals(ReviewDocumentSizeListener.size(small), writes.totalAmount());
+    }
+
+    @Test
+    @DisplayName("The size is the size MongoDB stores")
+    void testSize() {
+        // int32 length, then the field: type byte, "productId" and its terminator, int32 value, then the terminator
+        Document document = new Document("productId", 1);
+
+        Assertions.assertEquals(4 + 1 + 10 + 4 + 1, ReviewDocumentSizeListener.size(document));
+    }
+}
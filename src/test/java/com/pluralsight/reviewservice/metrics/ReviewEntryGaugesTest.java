@@ -0,0 +1,61 @@
+package com.pluralsight.reviewservice.metrics;
+
+import com.pluralsight.reviewservice.model.ReviewEntryTotals;
+import com.pluralsight.reviewservice.repository.ReviewRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewEntryGaugesTest {
+
+    @Mock
+    private ReviewRepository repository;
+
+    private SimpleMeterRegistry registry;
+
+    /**
+     * The gauges that we want to test.
+     */
+    private ReviewEntryGauges gauges;
+
+    @BeforeEach
+    void beforeEach() {
+        registry = new SimpleMeterRegistry();
+        gauges = new ReviewEntryGauges(repository, registry);
+    }
+
+    @Test
+    @DisplayName("The gauges report the totals of the last refresh")
+    void testRefresh() {
+        Assertions.assertEquals(0, registry.get("reviews.count").gauge().value(), "Nothing is counted before a refresh");
+
+        doReturn(new ReviewEntryTotals(4, 10, 7)).when(repository).findEntryTotals();
+        gauges.refresh();
+
+        Assertions.assertEquals(4, registry.get("reviews.count").gauge().value());
+        Assertions.assertEquals(10, registry.get("reviews.entries").gauge().value());
+        Assertions.assertEquals(7, registry.get("reviews.entries.per.review").tag("statistic", "max").gauge().value());
+        Assertions.assertEquals(2.5, registry.get("reviews.entries.per.review").tag("statistic", "mean").gauge().value());
+    }
+
+    @Test
+    @DisplayName("A failed refresh keeps the previous totals")
+    void testRefreshFailure() {
+        doReturn(new ReviewEntryTotals(4, 10, 7)).when(repository).findEntryTotals();
+        gauges.refresh();
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(repository).findEntryTotals();
+        gauges.refresh();
+
+        Assertions.assertEquals(4, registry.get("reviews.count").gauge().value());
+    }
+}
@@ -0,0 +1,103 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+
+@DataMongoTest
+class ReviewChangeStreamTest {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ReviewRepository repository;
+
+    private ReviewChangeStream changeStream;
+
+    @BeforeEach
+    void beforeEach() {
+        changeStream = new ReviewChangeStream(mongoTemplate);
+    }
+
+    @AfterEach
+    void afterEach() {
+        // Remove the reviews without dropping the collection, which would invalidate open change streams
+        repository.deleteAll();
+    }
+
+    /**
+     * Waits a few seconds for the next event.
+     */
+    private static ReviewEvent nextEvent(ReviewChangeStream.Cursor cursor) {
+        for (int attempt = 0; attempt < 10; attempt++) {
+            ReviewEvent event = cursor.tryNext();
+            if (event != null) {
+                return event;
+            }
+        }
+        return Assertions.fail("No review event arrived");
+    }
+
+    @Test
+    void testEvents() {
+        try (ReviewChangeStream.Cursor cursor = changeStream.open(null, Duration.ofSeconds(1))) {
+            Review review = repository.save(new Review(20, 1));
+            repository.appendEntry(20, new ReviewEntry("test-user", new Date(), "Great product"));
+            review.setVersion(2);
+            review.getEntries().add(new ReviewEntry("other-user", new Date(), "Replaced"));
+            repository.compareAndSet(review);
+            repository.deleteById(review.getId());
+
+            ReviewEvent created = nextEvent(cursor);
+            Assertions.assertEquals(ReviewEvent.Type.CREATED, created.getType());
+            Assertions.assertEquals(review.getId(), created.getReviewId());
+            Assertions.assertEquals(20, created.getProductId().intValue());
+            Assertions.assertNotNull(created.getResumeToken());
+
+            ReviewEvent entry = nextEvent(cursor);
+            Assertions.assertEquals(ReviewEvent.Type.ENTRY, entry.getType());
+            Assertions.assertEquals(2, entry.getVersion().intValue());
+            Assertions.assertEquals(1, entry.getEntries().size());
+            Assertions.assertEquals("test-user", entry.getEntries().get(0).getUsername());
+
+            ReviewEvent updated = nextEvent(cursor);
+            Assertions.assertEquals(ReviewEvent.Type.UPDATED, updated.getType());
+            Assertions.assertEquals(3, updated.getVersion().intValue());
+            Assertions.assertEquals(1, updated.getTotalEntries().intValue());
+
+            ReviewEvent deleted = nextEvent(cursor);
+            Assertions.assertEquals(ReviewEvent.Type.DELETED, deleted.getType());
+            Assertions.assertEquals(review.getId(), deleted.getReviewId());
+        }
+    }
+
+    @Test
+    void testResume() {
+        String resumeToken;
+        try (ReviewChangeStream.Cursor cursor = changeStream.open(null, Duration.ofSeconds(1))) {
+            repository.save(new Review(21, 1));
+            repository.save(new Review(22, 1));
+
+            ReviewEvent first = nextEvent(cursor);
+            Assertions.assertEquals(21, first.getProductId().intValue());
+            resumeToken = first.getResumeToken();
+        }
+
+        // A consumer that reconnects after the first event receives the second one
+        try (ReviewChangeStream.Cursor cursor = changeStream.open(resumeToken, Duration.ofSeconds(1))) {
+            ReviewEvent second = nextEvent(cursor);
+            Assertions.assertEquals(ReviewEvent.Type.CREATED, second.getType());
+            Assertions.assertEquals(22, second.getProductId().intValue());
+        }
+    }
+}
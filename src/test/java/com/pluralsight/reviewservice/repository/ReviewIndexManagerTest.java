@@ -0,0 +1,121 @@
+package com.pluralsight.reviewservice.repository;
+
+import com.pluralsight.reviewservice.model.Review;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver.IndexDefinitionHolder;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewIndexManagerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    /**
+     * The indexes declared on the Review model.
+     */
+    private List<IndexDefinitionHolder> reviewIndexes;
+
+    @BeforeEach
+    void beforeEach() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        reviewIndexes = new MongoPersistentEntityIndexResolver(mappingContext)
+                .resolveIndexForEntity(mappingContext.getRequiredPersistentEntity(Review.class));
+    }
+
+    @Test
+    @DisplayName("Review declares a unique productId index")
+    void testReviewDeclaresUniqueProductIdIndex() {
+        IndexDefinitionHolder productIdIndex = reviewIndexes.stream()
+                .filter(index -> index.getIndexKeys().containsKey("productId"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("There should be an index on productId"));
+        Assertions.assertEquals(Boolean.TRUE, productIdIndex.getIndexOptions().get("unique"),
+                "The productId index should be unique");
+    }
+
+    @Test
+    @DisplayName("Review declares a text index on its entries without stemming")
+    void testReviewDeclaresEntryTextIndex() {
+        IndexDefinitionHolder textIndex = reviewIndexes.stream()
+                .filter(index -> index.getIndexKeys().containsKey("entries.review"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("There should be a text index on the entries"));
+        Assertions.assertEquals("text", textIndex.getIndexKeys().get("entries.username"));
+        Assertions.assertEquals("Review_TextIndex", textIndex.getIndexOptions().getString("name"));
+        Assertions.assertEquals("none", textIndex.getIndexOptions().getString("default_language"));
+    }
+
+    @Test
+    @DisplayName("Missing indexes are created")
+    void testMissingIndexesAreCreated() {
+        doReturn(Collections.singletonList(idIndex())).when(indexOperations).getIndexInfo();
+
+        new ReviewIndexManager(mongoTemplate, true).ensureIndexes(indexOperations, "Reviews", reviewIndexes);
+
+        reviewIndexes.forEach(index -> verify(indexOperations).ensureIndex(index));
+    }
+
+    @Test
+    @DisplayName("Present indexes are not recreated")
+    void testPresentIndexesAreNotRecreated() {
+        IndexInfo productIdIndex = new IndexInfo(
+                Collections.singletonList(IndexField.create("productId", Sort.Direction.ASC)),
+                "productId", true, false, null);
+        IndexInfo textIndex = new IndexInfo(
+                Arrays.asList(IndexField.text("entries.username", 1F), IndexField.text("entries.review", 1F)),
+                "Review_TextIndex", false, false, "none");
+        IndexInfo usernameDateIndex = new IndexInfo(Arrays.asList(
+                IndexField.create("entries.username", Sort.Direction.ASC),
+                IndexField.create("entries.date", Sort.Direction.DESC)),
+                "entries_username_date", false, false, null);
+        IndexInfo dateIndex = new IndexInfo(
+                Collections.singletonList(IndexField.create("entries.date", Sort.Direction.DESC)),
+                "entries_date", false, false, null);
+        doReturn(Arrays.asList(idIndex(), productIdIndex, textIndex, usernameDateIndex, dateIndex))
+                .when(indexOperations).getIndexInfo();
+
+        new ReviewIndexManager(mongoTemplate, true).ensureIndexes(indexOperations, "Reviews", reviewIndexes);
+
+        verify(indexOperations, never()).ensureIndex(any());
+    }
+
+    @Test
+    @DisplayName("Missing indexes are only reported when creation is disabled")
+    void testMissingIndexesAreReportedWhenCreationDisabled() {
+        doReturn(Collections.singletonList(idIndex())).when(indexOperations).getIndexInfo();
+
+        new ReviewIndexManager(mongoTemplate, false).ensureIndexes(indexOperations, "Reviews", reviewIndexes);
+
+        verify(indexOperations, never()).ensureIndex(any());
+    }
+
+    private static IndexInfo idIndex() {
+        return new IndexInfo(Collections.singletonList(IndexField.create("_id", Sort.Direction.ASC)),
+                "_id_", false, false, null);
+    }
+}
@@ -3,6 +3,13 @@ package com.pluralsight.reviewservice.repository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pluralsight.reviewservice.model.Review;
 import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryBucket;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewEntryTotals;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,6 +24,9 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @DataMongoTest
 class ReviewRepositoryTest {
@@ -26,6 +36,9 @@ class ReviewRepositoryTest {
     @Autowired
     private ReviewRepository repository;
 
+    @Autowired
+    private ReviewEntryBucketRepository bucketRepository;
+
     /**
      * Jackson ObjectMapper: used to load a JSON file into a list of Reviews
      */
@@ -49,6 +62,7 @@ class ReviewRepositoryTest {
     void afterEach() {
         // Drop the reviews collection so we can start fresh
         mongoTemplate.dropCollection("Reviews");
+        mongoTemplate.dropCollection("ReviewEntryBuckets");
     }
 
     @Test
@@ -135,4 +149,406 @@ class ReviewRepositoryTest {
         Optional<Review> review = repository.findById("2");
         Assertions.assertFalse(review.isPresent(), "Review 2 should now be deleted from the database");
     }
+
+    @Test
+    void testAppendEntryToExistingReview() {
+        Review review = repository.appendEntry(2, new ReviewEntry("test-user-2", new Date(), "This is a fourth review"));
+
+        Assertions.assertEquals("2", review.getId(), "The entry should be appended to review 2");
+        Assertions.assertEquals(8, review.getVersion().intValue(), "Review version should be incremented");
+        Assertions.assertTrue(review.getEntries().isEmpty(), "The entries should not be read back");
+        // The sample reviews predate the aggregates, so they are computed from the entries in the same write
+        Assertions.assertEquals(4, review.getTotalEntries().intValue(), "The aggregates should count all 4 entries");
+
+        Review stored = repository.findById("2").get();
+        Assertions.assertEquals(4, stored.getEntries().size(), "There should be 4 review entries");
+        Assertions.assertEquals("test-user-2", stored.getEntries().get(3).getUsername());
+        Assertions.assertEquals(4, stored.getTotalEntries().intValue());
+    }
+
+    @Test
+    void testAppendEntryCreatesReview() {
+        Review review = repository.appendEntry(10, new ReviewEntry("test-user", new Date(), "This is a review"));
+
+        Assertions.assertNotNull(review.getId(), "A new review should have been created");
+        Assertions.assertEquals(10, review.getProductId().intValue());
+        Assertions.assertEquals(1, review.getVersion().intValue(), "Review version should be 1");
+        Assertions.assertEquals(1, review.getTotalEntries().intValue(), "Review should have one entry");
+        Assertions.assertEquals(1, repository.findById(review.getId()).get().getEntries().size(),
+                "Review should have one entry");
+        Assertions.assertEquals(3, repository.count(), "There should now be three reviews");
+    }
+
+    @Test
+    void testAppendEntries() {
+        Review review = repository.appendEntries(2, Arrays.asList(
+                new ReviewEntry("test-user-2", new Date(), "This is a fourth review"),
+                new ReviewEntry("test-user-3", new Date(), "This is a fifth review")));
+
+        Assertions.assertEquals(8, review.getVersion().intValue(), "One write should increment the version once");
+        Assertions.assertEquals(5, review.getTotalEntries().intValue(), "The aggregates should count all 5 entries");
+
+        List<ReviewEntry> entries = repository.findById("2").get().getEntries();
+        Assertions.assertEquals(5, entries.size(), "There should be 5 review entries");
+        Assertions.assertEquals("test-user-2", entries.get(3).getUsername());
+        Assertions.assertEquals("test-user-3", entries.get(4).getUsername());
+    }
+
+    @Test
+    void testFindByProductIdIn() {
+        List<Review> reviews = repository.findByProductIdIn(Arrays.asList(1, 2, 99));
+        Assertions.assertEquals(2, reviews.size(), "Products 1 and 2 should have reviews");
+    }
+
+    @Test
+    void testFindLatestEntriesByProductIds() {
+        List<ReviewEntryPage> pages = repository.findLatestEntriesByProductIds(Arrays.asList(1, 2), 2);
+        Assertions.assertEquals(2, pages.size(), "Products 1 and 2 should have reviews");
+
+        ReviewEntryPage page = pages.stream().filter(p -> p.getProductId() == 2).findFirst().get();
+        Assertions.assertEquals(3, page.getTotal(), "Review 2 should have 3 entries in total");
+        Assertions.assertEquals(Arrays.asList("user4", "user3"), usernames(page));
+    }
+
+    @Test
+    void testSearchEntries() {
+        new ReviewIndexManager(mongoTemplate, true).ensureIndexes();
+
+        List<ReviewEntryMatch> matches = repository.searchEntries("ANOTHER", 0, 10);
+        Assertions.assertEquals(1, matches.size(), "Only the entry with the word should match, not its whole review");
+        Assertions.assertEquals("user3", matches.get(0).getUsername());
+        Assertions.assertEquals("2", matches.get(0).getReviewId());
+        Assertions.assertEquals(2, matches.get(0).getProductId().intValue());
+        Assertions.assertTrue(matches.get(0).getScore() > 0, "The match should carry the relevance of its review");
+
+        // Every entry contains "review"; the second page holds the two after the first
+        Assertions.assertEquals(4, repository.searchEntries("review", 0, 10).size());
+        Assertions.assertEquals(2, repository.searchEntries("review", 1, 2).size());
+        Assertions.assertTrue(repository.searchEntries("reviews", 0, 10).isEmpty(), "Words should be matched whole");
+        Assertions.assertTrue(repository.searchEntries("-review", 0, 10).isEmpty(), "There is nothing to search for");
+    }
+
+    @Test
+    void testFindEntriesByUsername() {
+        repository.appendEntry(1, new ReviewEntry("user3", new Date(), "This is a newer review"));
+
+        List<ReviewEntryMatch> first = repository.findEntriesByUsername("user3", null, 1);
+        Assertions.assertEquals(1, first.size());
+        Assertions.assertEquals("This is a newer review", first.get(0).getReview(), "The newest entry should come first");
+        Assertions.assertEquals("1", first.get(0).getReviewId());
+        Assertions.assertEquals(1, first.get(0).getProductId().intValue());
+
+        List<ReviewEntryMatch> second = repository.findEntriesByUsername("user3", first.get(0), 1);
+        Assertions.assertEquals(1, second.size());
+        Assertions.assertEquals("This is a another review", second.get(0).getReview());
+        Assertions.assertEquals(2, second.get(0).getProductId().intValue());
+
+        Assertions.assertTrue(repository.findEntriesByUsername("user3", second.get(0), 1).isEmpty(),
+                "There should be no entries after the last one");
+        Assertions.assertTrue(repository.findEntriesByUsername("nobody", null, 10).isEmpty());
+    }
+
+    @Test
+    void testFindRecentEntries() {
+        long now = System.currentTimeMillis();
+        repository.appendEntry(2, new ReviewEntry("user5", new Date(now - 1000), "This is a recent review"));
+        repository.appendEntry(1, new ReviewEntry("user6", new Date(now), "This is the newest review"));
+
+        Date since = new Date(now - 60 * 60 * 1000);
+        List<ReviewEntryMatch> first = repository.findRecentEntries(since, null, 1);
+        Assertions.assertEquals(1, first.size());
+        Assertions.assertEquals("user6", first.get(0).getUsername(), "The newest entry should come first");
+        Assertions.assertEquals("1", first.get(0).getReviewId());
+
+        List<ReviewEntryMatch> second = repository.findRecentEntries(since, first.get(0), 10);
+        Assertions.assertEquals(1, second.size(), "Entries before the start of the period should be left out");
+        Assertions.assertEquals("user5", second.get(0).getUsername());
+        Assertions.assertEquals(2, second.get(0).getProductId().intValue());
+
+        Assertions.assertEquals(6, repository.findRecentEntries(new Date(0), null, 10).size(),
+                "All entries should be returned for a period that covers them");
+    }
+
+    @Test
+    void testFindRecentEntriesAcrossReviews() {
+        // The entries of review 2 are stored newest first, so its newest entry is not among its last ones
+        List<ReviewEntryMatch> first = repository.findRecentEntries(new Date(0), null, 2);
+        Assertions.assertEquals(Arrays.asList("user1", "user2"),
+                first.stream().map(ReviewEntryMatch::getUsername).collect(Collectors.toList()));
+
+        List<ReviewEntryMatch> second = repository.findRecentEntries(new Date(0), first.get(1), 2);
+        Assertions.assertEquals(Arrays.asList("user3", "user4"),
+                second.stream().map(ReviewEntryMatch::getUsername).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFindRecentEntriesWithTheSameDate() {
+        Date now = new Date();
+        repository.appendEntries(2, Arrays.asList(
+                new ReviewEntry("user5", now, "This is a fourth review"),
+                new ReviewEntry("user6", now, "This is a fifth review"),
+                new ReviewEntry("user7", now, "This is a sixth review")));
+
+        // Entries of the same review with the same date are paged through one by one, last added first
+        Date since = new Date(now.getTime() - 1000);
+        List<ReviewEntryMatch> first = repository.findRecentEntries(since, null, 1);
+        Assertions.assertEquals("user7", first.get(0).getUsername());
+        List<ReviewEntryMatch> second = repository.findRecentEntries(since, first.get(0), 1);
+        Assertions.assertEquals("user6", second.get(0).getUsername());
+        List<ReviewEntryMatch> third = repository.findRecentEntries(since, second.get(0), 1);
+        Assertions.assertEquals("user5", third.get(0).getUsername());
+        Assertions.assertEquals(3, third.get(0).getPosition().intValue(), "The position should be the entry's index");
+        Assertions.assertTrue(repository.findRecentEntries(since, third.get(0), 1).isEmpty(),
+                "There should be no entries after the last one");
+    }
+
+    @Test
+    void testFindStats() {
+        // The sample reviews predate the aggregates, so they are computed from the entries
+        List<ReviewStats> stats = repository.findStats(Arrays.asList(2, 99));
+        Assertions.assertEquals(1, stats.size(), "Only product 2 has a review");
+        Assertions.assertEquals("2", stats.get(0).getId(), "The stats should be for review 2");
+        Assertions.assertEquals(7, stats.get(0).getVersion().intValue(), "Review 2 should be at version 7");
+        Assertions.assertEquals(3, stats.get(0).getEntryCount(), "Review 2 should have 3 entries");
+        Assertions.assertEquals(repository.findById("2").get().getEntries().get(0).getDate(), stats.get(0).getLastEntryDate(),
+                "The latest entry of review 2 was written by user2");
+
+        // Once written, the stored aggregates are used
+        Date now = new Date();
+        repository.appendEntry(2, new ReviewEntry("test-user", now, "This is a review"));
+        ReviewStats updated = repository.findStats(Arrays.asList(2)).get(0);
+        Assertions.assertEquals(4, updated.getEntryCount(), "Review 2 should have 4 entries");
+        Assertions.assertEquals(now, updated.getLastEntryDate(), "The appended entry should be the latest");
+    }
+
+    @Test
+    void testFindEntryTotals() {
+        ReviewEntryTotals totals = repository.findEntryTotals();
+        Assertions.assertEquals(2, totals.getReviews(), "There should be 2 reviews");
+        Assertions.assertEquals(4, totals.getEntries(), "The reviews should have 4 entries between them");
+        Assertions.assertEquals(3, totals.getMaxEntries(), "Review 2 should have the most entries");
+
+        mongoTemplate.dropCollection("Reviews");
+        Assertions.assertEquals(0, repository.findEntryTotals().getReviews(), "There should be no reviews");
+    }
+
+    @Test
+    void testBulkImport() {
+        Review duplicate = new Review(1, 1);
+        Review newReview = new Review(3, 1);
+        newReview.getEntries().add(new ReviewEntry("test-user", new Date(), "This is a review"));
+        List<ReviewImportFailure> failures = repository.bulkImport(Arrays.asList(
+                ReviewImportRecord.ofReview(1, duplicate),
+                ReviewImportRecord.ofReview(2, newReview),
+                ReviewImportRecord.ofEntry(3, 2, new ReviewEntry("test-user", new Date(), "This is a fourth review"))));
+
+        Assertions.assertEquals(1, failures.size(), "Only the review for product 1 should fail");
+        Assertions.assertEquals(1, failures.get(0).getLine(), "The failure should be reported on line 1");
+        Assertions.assertTrue(repository.findByProductId(3).isPresent(), "The review for product 3 should be inserted");
+        Review review = repository.findById("2").get();
+        Assertions.assertEquals(4, review.getEntries().size(), "The entry should be appended to review 2");
+        Assertions.assertEquals(8, review.getVersion().intValue(), "Review version should be incremented");
+    }
+
+    @Test
+    void testBulkImportKeepsEntriesInDateOrder() {
+        Date now = new Date();
+        Review newReview = new Review(3, 1);
+        newReview.getEntries().add(new ReviewEntry("user2", now, "This is a newer review"));
+        newReview.getEntries().add(new ReviewEntry("user1", new Date(0), "This is a legacy review"));
+        repository.bulkImport(Arrays.asList(
+                ReviewImportRecord.ofReview(1, newReview),
+                ReviewImportRecord.ofEntry(2, 1, new ReviewEntry("user3", new Date(0), "This is a legacy review")),
+                ReviewImportRecord.ofEntry(3, 1, new ReviewEntry("user4", now, "This is a newer review"))));
+
+        Assertions.assertEquals(Arrays.asList("user1", "user2"),
+                usernames(repository.findByProductId(3).get().getEntries()), "Imported reviews should be in date order");
+        Assertions.assertEquals(Arrays.asList("user3", "user1", "user4"),
+                usernames(repository.findById("1").get().getEntries()), "Imported entries should be sorted into place");
+    }
+
+    @Test
+    void testBulkImportWritesEachReviewOnce() {
+        Date now = new Date();
+        repository.bulkImport(Arrays.asList(
+                ReviewImportRecord.ofEntry(1, 1, new ReviewEntry("user2", now, "This is a newer review")),
+                ReviewImportRecord.ofEntry(2, 1, new ReviewEntry("user3", new Date(0), "This is a legacy review")),
+                ReviewImportRecord.ofEntry(3, 10, new ReviewEntry("user4", now, "This is a new review"))));
+
+        // Review 1 predates the aggregates, so they are recomputed from all of its entries
+        Review review = repository.findById("1").get();
+        Assertions.assertEquals(2, review.getVersion().intValue(), "The entries should be pushed with one write");
+        Assertions.assertEquals(3, review.getTotalEntries().intValue(), "The aggregates should count all 3 entries");
+        Assertions.assertEquals(now, review.getLastEntryDate());
+
+        Review created = repository.findByProductId(10).get();
+        Assertions.assertEquals(1, created.getVersion().intValue(), "The review for product 10 should be created");
+        Assertions.assertEquals(1, created.getTotalEntries().intValue());
+        Assertions.assertEquals(now, created.getLastEntryDate());
+    }
+
+    @Test
+    void testFindPage() {
+        List<Review> firstPage = repository.findPage(null, 1);
+        Assertions.assertEquals(1, firstPage.size(), "The first page should contain one review");
+        Assertions.assertEquals("1", firstPage.get(0).getId(), "The first page should start with review 1");
+
+        List<Review> secondPage = repository.findPage("1", 1);
+        Assertions.assertEquals(1, secondPage.size(), "The second page should contain one review");
+        Assertions.assertEquals("2", secondPage.get(0).getId(), "The second page should start with review 2");
+
+        List<Review> lastPage = repository.findPage("2", 1);
+        Assertions.assertTrue(lastPage.isEmpty(), "There should be no reviews after review 2");
+    }
+
+    @Test
+    void testStreamAll() {
+        try (Stream<Review> reviews = repository.streamAll()) {
+            List<String> ids = reviews.map(Review::getId).collect(Collectors.toList());
+            Assertions.assertEquals(Arrays.asList("1", "2"), ids, "Both reviews should be streamed in ID order");
+        }
+    }
+
+    @Test
+    void testFindVersion() {
+        Assertions.assertEquals(Optional.of(7), repository.findVersionById("2"), "Review 2 should be at version 7");
+        Assertions.assertEquals(Optional.of(7), repository.findVersionByProductId(2),
+                "The review for product 2 should be at version 7");
+        Assertions.assertFalse(repository.findVersionById("99").isPresent(), "There should be no review 99");
+        Assertions.assertFalse(repository.findVersionByProductId(99).isPresent(),
+                "There should be no review for product 99");
+    }
+
+    @Test
+    void testCompareAndSet() {
+        // Replace review 2, which is at version 7, with a single entry
+        Review review = new Review("2", 2, 7);
+        review.getEntries().add(new ReviewEntry("test-user", new Date(), "This is a replacement review"));
+
+        Optional<Review> updatedReview = repository.compareAndSet(review);
+        Assertions.assertTrue(updatedReview.isPresent(), "Review 2 should have been updated");
+        Assertions.assertEquals(8, updatedReview.get().getVersion().intValue(), "Review version should be incremented");
+        Assertions.assertEquals(1, updatedReview.get().getEntries().size(), "There should be 1 review entry");
+        Assertions.assertEquals(1, repository.findById("2").get().getEntries().size(), "1 entry should be stored");
+
+        // Replaying the same update must fail because the review is no longer at version 7
+        Assertions.assertFalse(repository.compareAndSet(review).isPresent(), "A stale version should not be written");
+        Assertions.assertEquals(Optional.of(8), repository.findVersionById("2"), "Review 2 should still be at version 8");
+    }
+
+    @Test
+    void testFindEntryPageNewestFirst() {
+        // Review 2 has three entries, written by user2, user3 and user4 in that order
+        Optional<ReviewEntryPage> firstPage = repository.findEntryPage("2", 0, 2, true);
+        Assertions.assertTrue(firstPage.isPresent(), "Review 2 should be found");
+        Assertions.assertEquals(3, firstPage.get().getTotal(), "Review 2 should have 3 entries in total");
+        Assertions.assertEquals(Arrays.asList("user4", "user3"), usernames(firstPage.get()));
+
+        Optional<ReviewEntryPage> secondPage = repository.findEntryPage("2", 2, 2, true);
+        Assertions.assertEquals(Arrays.asList("user2"), usernames(secondPage.get()));
+
+        Optional<ReviewEntryPage> pastTheEnd = repository.findEntryPage("2", 3, 2, true);
+        Assertions.assertTrue(pastTheEnd.get().getEntries().isEmpty(), "There should be no entries past the end");
+    }
+
+    @Test
+    void testFindEntryPageOldestFirst() {
+        Optional<ReviewEntryPage> page = repository.findEntryPage("2", 1, 5, false);
+        Assertions.assertTrue(page.isPresent(), "Review 2 should be found");
+        Assertions.assertEquals(7, page.get().getVersion().intValue(), "Review 2 should be at version 7");
+        Assertions.assertEquals(1, page.get().getOffset(), "The page should start at offset 1");
+        Assertions.assertEquals(Arrays.asList("user3", "user4"), usernames(page.get()));
+
+        Assertions.assertFalse(repository.findEntryPage("99", 0, 5, false).isPresent(), "There should be no review 99");
+    }
+
+    @Test
+    void testFindOrCreateBucketed() {
+        Review existing = repository.findOrCreateBucketed(2, "epoch");
+        Assertions.assertEquals("2", existing.getId());
+        Assertions.assertEquals(1, existing.getEntries().size(), "Only the first embedded entry should be read");
+
+        Review created = repository.findOrCreateBucketed(3, "epoch");
+        Assertions.assertEquals(0, created.getVersion().intValue(), "The new review should be at version 0");
+        Assertions.assertEquals(0, created.getEntryCount().intValue());
+        Assertions.assertEquals("epoch", created.getBucketEpoch());
+        Assertions.assertTrue(created.getEntries().isEmpty(), "The new review should have no entries");
+
+        Assertions.assertEquals(created.getId(), repository.findOrCreateBucketed(3, "other").getId(),
+                "The review should only be created once");
+    }
+
+    @Test
+    void testRecordBucketedEntries() {
+        Review review = repository.findOrCreateBucketed(3, "epoch");
+        Date date = new Date();
+        Assertions.assertFalse(repository.recordBucketedEntries(review.getId(), "other", 1, 1, date).isPresent(),
+                "Entries of another generation should not be recorded");
+
+        Optional<Review> recorded = repository.recordBucketedEntries(review.getId(), "epoch", 2, 2, date);
+        Assertions.assertTrue(recorded.isPresent(), "The entries should be recorded");
+        Assertions.assertEquals(1, recorded.get().getVersion().intValue(), "The review should be at version 1");
+        Assertions.assertEquals(2, recorded.get().getEntryCount().intValue());
+        Assertions.assertEquals(2, recorded.get().getTotalEntries().intValue());
+        Assertions.assertEquals(date, recorded.get().getLastEntryDate());
+
+        // An append that allocated an earlier slot can be recorded last
+        recorded = repository.recordBucketedEntries(review.getId(), "epoch", 1, 1, new Date(date.getTime() - 1000));
+        Assertions.assertEquals(2, recorded.get().getEntryCount().intValue(), "The slot count should not go back");
+        Assertions.assertEquals(3, recorded.get().getTotalEntries().intValue());
+        Assertions.assertEquals(date, recorded.get().getLastEntryDate(), "The last entry date should not go back");
+    }
+
+    @Test
+    void testAppendEntriesToBucket() {
+        new ReviewIndexManager(mongoTemplate, true).ensureIndexes();
+        List<ReviewEntry> entries = IntStream.range(0, 150)
+                .mapToObj(i -> new ReviewEntry("user" + i, new Date(), "$review " + i))
+                .collect(Collectors.toList());
+
+        Assertions.assertEquals(IntStream.range(0, 150).boxed().collect(Collectors.toList()),
+                bucketRepository.appendEntries("reviewId", "epoch", 3, 0, entries), "Slots 0 to 149 should be allocated");
+        Assertions.assertEquals(IntStream.range(150, 200).boxed().collect(Collectors.toList()),
+                bucketRepository.appendEntries("reviewId", "epoch", 3, 0, entries), "Only the free slots should be used");
+        Assertions.assertTrue(bucketRepository.appendEntries("reviewId", "epoch", 3, 0, entries).isEmpty(),
+                "The bucket should be full");
+        Assertions.assertEquals(Arrays.asList(200, 201),
+                bucketRepository.appendEntries("reviewId", "epoch", 3, 1, entries.subList(0, 2)));
+
+        ReviewEntryBucket bucket = bucketRepository.findByReviewIdAndEpochOrderBySequence("reviewId", "epoch").get(0);
+        Assertions.assertEquals(3, bucket.getProductId().intValue());
+        Assertions.assertEquals(ReviewEntryBucket.SIZE, bucket.getEntries().size());
+        Assertions.assertEquals(199, bucket.getEntries().get(199).getSlot());
+        Assertions.assertEquals("$review 49", bucket.getEntries().get(199).getReview(),
+                "Entries should be stored as they are");
+    }
+
+    @Test
+    void testCompleteEntryMigration() {
+        Assertions.assertFalse(repository.completeEntryMigration("2", 6, 3), "Review 2 is not at version 6");
+        Assertions.assertTrue(repository.completeEntryMigration("2", 7, 3), "Review 2 is at version 7");
+
+        Review review = repository.findById("2").get();
+        Assertions.assertTrue(review.getEntries().isEmpty(), "The embedded entries should be removed");
+        Assertions.assertEquals(3, review.getEntryCount().intValue(), "Three slots should be in use");
+        Assertions.assertEquals(3, review.getTotalEntries().intValue(), "The slots should be counted as entries");
+        Assertions.assertEquals(7, review.getVersion().intValue(), "The version should not change");
+    }
+
+    @Test
+    void testStreamWithEmbeddedEntries() {
+        repository.completeEntryMigration("2", 7, 3);
+        try (Stream<Review> reviews = repository.streamWithEmbeddedEntries()) {
+            Assertions.assertEquals(Arrays.asList("1"), reviews.map(Review::getId).collect(Collectors.toList()),
+                    "Only review 1 should still have embedded entries");
+        }
+    }
+
+    private static List<String> usernames(ReviewEntryPage page) {
+        return usernames(page.getEntries());
+    }
+
+    private static List<String> usernames(List<ReviewEntry> entries) {
+        return entries.stream().map(ReviewEntry::getUsername).collect(Collectors.toList());
+    }
 }
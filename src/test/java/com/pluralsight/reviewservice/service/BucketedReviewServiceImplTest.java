@@ -0,0 +1,352 @@
+package com.pluralsight.reviewservice.service;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryBucket;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.repository.ReviewEntryBucketRepository;
+import com.pluralsight.reviewservice.repository.ReviewRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BucketedReviewServiceImplTest {
+
+    @Mock
+    private ReviewRepository repository;
+
+    @Mock
+    private ReviewEntryBucketRepository bucketRepository;
+
+    /**
+     * The service that we want to test.
+     */
+    private BucketedReviewServiceImpl service;
+
+    @BeforeEach
+    void beforeEach() {
+        service = new BucketedReviewServiceImpl(repository, bucketRepository, false);
+    }
+
+    @Test
+    @DisplayName("appendEntry appends the entry to the bucket of the next slot and returns the review alone")
+    void testAppendEntry() {
+        ReviewEntry entry = new ReviewEntry("test-user", new Date(), "Great product");
+        Review recorded = bucketedReview(4, 3);
+        doReturn(bucketedReview(3, 2)).when(repository).findOrCreateBucketed(eq(1), any());
+        doReturn(Arrays.asList(2)).when(bucketRepository)
+                .appendEntries("reviewId", "epoch", 1, 0, Arrays.asList(entry));
+        doReturn(Optional.of(recorded)).when(repository)
+                .recordBucketedEntries("reviewId", "epoch", 3, 1, entry.getDate());
+
+        Assertions.assertSame(recorded, service.appendEntry(1, entry), "The recorded review should be returned");
+        verify(bucketRepository, never()).findByReviewIdAndEpochOrderBySequence(any(), any());
+    }
+
+    @Test
+    @DisplayName("appendEntry moves on to the next bucket when the bucket is full")
+    void testAppendEntryFullBucket() {
+        ReviewEntry entry = new ReviewEntry("test-user", new Date(), "Great product");
+        doReturn(bucketedReview(3, ReviewEntryBucket.SIZE - 1)).when(repository).findOrCreateBucketed(eq(1), any());
+        doReturn(Collections.emptyList()).when(bucketRepository)
+                .appendEntries("reviewId", "epoch", 1, 0, Arrays.asList(entry));
+        doReturn(Arrays.asList(ReviewEntryBucket.SIZE)).when(bucketRepository)
+                .appendEntries("reviewId", "epoch", 1, 1, Arrays.asList(entry));
+        doReturn(Optional.of(bucketedReview(4, ReviewEntryBucket.SIZE + 1))).when(repository)
+                .recordBucketedEntries("reviewId", "epoch", ReviewEntryBucket.SIZE + 1, 1, entry.getDate());
+
+        Assertions.assertEquals(4, service.appendEntry(1, entry).getVersion().intValue());
+    }
+
+    @Test
+    @DisplayName("appendEntry moves embedded entries to buckets before appending")
+    void testAppendEntryMigratesFirst() {
+        Review embedded = new Review("reviewId", 1, 4);
+        ReviewEntry existing = new ReviewEntry("user1", new Date(), "Existing");
+        embedded.getEntries().add(existing);
+        ReviewEntry entry = new ReviewEntry("user2", new Date(), "New");
+        doReturn(embedded, bucketedReview(4, 1)).when(repository).findOrCreateBucketed(eq(1), any());
+        doReturn(Optional.of(embedded)).when(repository).findByProductId(1);
+        doReturn(true).when(repository).completeEntryMigration("reviewId", 4, 1);
+        doReturn(Arrays.asList(1)).when(bucketRepository)
+                .appendEntries("reviewId", "epoch", 1, 0, Arrays.asList(entry));
+        doReturn(Optional.of(bucketedReview(5, 2))).when(repository)
+                .recordBucketedEntries("reviewId", "epoch", 2, 1, entry.getDate());
+
+        service.appendEntry(1, entry);
+
+        verify(bucketRepository).pushEntry("reviewId", null, 1, 0, existing);
+    }
+
+    @Test
+    @DisplayName("appendEntry appends again when the review moved to another generation")
+    void testAppendEntryRetriesNewGeneration() {
+        ReviewEntry entry = new ReviewEntry("test-user", new Date(), "Great product");
+        Review replaced = bucketedReview(5, 0);
+        replaced.setBucketEpoch("epoch2");
+        doReturn(bucketedReview(3, 0), replaced).when(repository).findOrCreateBucketed(eq(1), any());
+        doReturn(Arrays.asList(0)).when(bucketRepository).appendEntries(any(), any(), eq(1), eq(0), any());
+        doReturn(Optional.empty()).when(repository).recordBucketedEntries("reviewId", "epoch", 1, 1, entry.getDate());
+        doReturn(Optional.of(bucketedReview(6, 1))).when(repository)
+                .recordBucketedEntries("reviewId", "epoch2", 1, 1, entry.getDate());
+
+        Assertions.assertEquals(6, service.appendEntry(1, entry).getVersion().intValue());
+        verify(bucketRepository).appendEntries("reviewId", "epoch2", 1, 0, Arrays.asList(entry));
+    }
+
+    @Test
+    @DisplayName("importRecords appends the entries of a product to its buckets in date order")
+    void testImportRecordsAppendsEntries() {
+        ReviewEntry newer = new ReviewEntry("user1", new Date(2000), "Newer");
+        ReviewEntry older = new ReviewEntry("user2", new Date(1000), "Older");
+        List<ReviewImportRecord> records = Arrays.asList(
+                ReviewImportRecord.ofEntry(1, 1, newer),
+                ReviewImportRecord.ofEntry(2, 1, older),
+                ReviewImportRecord.ofEntry(3, 2, older));
+        doReturn(Collections.emptyList()).when(repository).bulkImport(Collections.emptyList());
+        doReturn(bucketedReview(3, 0)).when(repository).findOrCreateBucketed(eq(1), any());
+        doReturn(Arrays.asList(0, 1)).when(bucketRepository)
+                .appendEntries("reviewId", "epoch", 1, 0, Arrays.asList(older, newer));
+        doReturn(Optional.of(bucketedReview(4, 2))).when(repository)
+                .recordBucketedEntries("reviewId", "epoch", 2, 2, newer.getDate());
+        doThrow(new DataAccessResourceFailureException("down")).when(repository).findOrCreateBucketed(eq(2), any());
+
+        List<ReviewImportFailure> failures = service.importRecords(records);
+
+        Assertions.assertEquals(1, failures.size(), "Only the entry of product 2 should fail");
+        Assertions.assertEquals(3, failures.get(0).getLine());
+    }
+
+    @Test
+    @DisplayName("migrate leaves the entries in place if the review changed")
+    void testMigrateStale() {
+        Review review = new Review("reviewId", 1, 4);
+        review.getEntries().add(new ReviewEntry("user1", new Date(), "Existing"));
+        doReturn(false).when(repository).completeEntryMigration("reviewId", 4, 1);
+
+        Assertions.assertFalse(service.migrate(review), "The migration should report the concurrent change");
+        Assertions.assertNull(review.getEntryCount(), "The review should not be marked as migrated");
+    }
+
+    @Test
+    @DisplayName("findById returns bucketed entries by slot, followed by embedded entries")
+    void testFindByIdAssemblesEntries() {
+        Review review = bucketedReview(1, 3);
+        review.getEntries().add(new ReviewEntry("user3", new Date(), "Embedded"));
+        doReturn(Optional.of(review)).when(repository).findById("reviewId");
+        doReturn(Arrays.asList(bucket(0, 1, 0), bucket(1, 2)))
+                .when(bucketRepository).findByReviewIdAndEpochOrderBySequence("reviewId", "epoch");
+
+        Optional<Review> found = service.findById("reviewId");
+
+        Assertions.assertEquals(Arrays.asList("user0", "user1", "user2", "user3"), usernames(found.get().getEntries()));
+        verify(repository, never()).findEntryPage(any(), eq(0), eq(0), eq(false));
+    }
+
+    @Test
+    @DisplayName("findEntries only reads the buckets that hold the page")
+    void testFindEntriesReadsNeededBuckets() {
+        Review review = bucketedReview(1, 4);
+        review.getEntries().add(new ReviewEntry("user4", new Date(), "Embedded"));
+        doReturn(Optional.of(review)).when(repository).findById("reviewId");
+        TreeMap<Integer, Integer> sizes = new TreeMap<>();
+        sizes.put(0, 2);
+        sizes.put(1, 2);
+        doReturn(sizes).when(bucketRepository).findBucketSizes("reviewId", "epoch");
+        doReturn(Arrays.asList(bucket(1, 3, 2)))
+                .when(bucketRepository).findByReviewIdAndEpochAndSequenceInOrderBySequence("reviewId", "epoch", Arrays.asList(1));
+
+        // Newest first: user4 is embedded, user3 and user2 are in bucket 1
+        Optional<ReviewEntryPage> page = service.findEntries("reviewId", 0, 3, true);
+
+        Assertions.assertEquals(5, page.get().getTotal(), "The review should have 5 entries");
+        Assertions.assertEquals(Arrays.asList("user4", "user3", "user2"), usernames(page.get().getEntries()));
+    }
+
+    @Test
+    @DisplayName("findByProductIds reads the buckets of the reviews concurrently on the executor")
+    void testFindByProductIdsReadsBucketsConcurrently() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            service = new BucketedReviewServiceImpl(repository, bucketRepository, executor);
+            doReturn(Arrays.asList(bucketedReview(1, 1), secondBucketedReview()))
+                    .when(repository).findByProductIdIn(Arrays.asList(1, 2));
+            // Each read waits for the other to start, so they only both complete if they overlap
+            CountDownLatch started = new CountDownLatch(2);
+            Answer<List<ReviewEntryBucket>> overlapping = invocation -> {
+                started.countDown();
+                if (!started.await(10, TimeUnit.SECONDS)) {
+                    throw new AssertionError("The bucket reads should overlap");
+                }
+                return Arrays.asList(bucket(0, 0));
+            };
+            doAnswer(overlapping).when(bucketRepository).findByReviewIdAndEpochOrderBySequence("reviewId", "epoch");
+            doAnswer(overlapping).when(bucketRepository).findByReviewIdAndEpochOrderBySequence("secondId", "epoch");
+
+            Map<Integer, Review> reviews = service.findByProductIds(Arrays.asList(1, 2));
+
+            Assertions.assertEquals(2, reviews.size(), "Both reviews should be returned");
+            Assertions.assertEquals(Arrays.asList("user0"), usernames(reviews.get(1).getEntries()));
+            Assertions.assertEquals(Arrays.asList("user0"), usernames(reviews.get(2).getEntries()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("findByProductIds reads the buckets on the calling thread without virtual threads")
+    void testFindByProductIdsReadsBucketsInline() {
+        Thread caller = Thread.currentThread();
+        doReturn(Arrays.asList(bucketedReview(1, 1), secondBucketedReview()))
+                .when(repository).findByProductIdIn(Arrays.asList(1, 2));
+        Answer<List<ReviewEntryBucket>> inline = invocation -> {
+            Assertions.assertSame(caller, Thread.currentThread(), "The read should run on the calling thread");
+            return Arrays.asList(bucket(0, 0));
+        };
+        doAnswer(inline).when(bucketRepository).findByReviewIdAndEpochOrderBySequence("reviewId", "epoch");
+        doAnswer(inline).when(bucketRepository).findByReviewIdAndEpochOrderBySequence("secondId", "epoch");
+
+        Assertions.assertEquals(2, service.findByProductIds(Arrays.asList(1, 2)).size(), "Both reviews should be returned");
+    }
+
+    @Test
+    @DisplayName("findByProductIds rethrows the failure of a bucket read")
+    void testFindByProductIdsRethrowsFailure() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            service = new BucketedReviewServiceImpl(repository, bucketRepository, executor);
+            doReturn(Arrays.asList(bucketedReview(1, 1))).when(repository).findByProductIdIn(Arrays.asList(1));
+            doThrow(new DataAccessResourceFailureException("Connection refused"))
+                    .when(bucketRepository).findByReviewIdAndEpochOrderBySequence("reviewId", "epoch");
+
+            Assertions.assertThrows(DataAccessResourceFailureException.class, () -> service.findByProductIds(Arrays.asList(1)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("searchEntries merges embedded and bucketed matches and leaves out replaced buckets")
+    void testSearchEntries() {
+        doReturn(Arrays.asList(match("embedded", null, 1.5))).when(repository).searchEntries("great", 0, 3);
+        doReturn(Arrays.asList(match("current", "epoch", 2.0), match("replaced", "old-epoch", 3.0), match("other", "epoch", 1.0)))
+                .when(bucketRepository).searchEntries("great", 3);
+        doReturn(Map.of("reviewId", "epoch")).when(repository).findBucketEpochs(Set.of("reviewId"));
+
+        List<ReviewEntryMatch> matches = service.searchEntries("great", 1, 2);
+
+        Assertions.assertEquals(Arrays.asList("embedded", "other"),
+                matches.stream().map(ReviewEntryMatch::getUsername).collect(Collectors.toList()),
+                "The page should skip the most relevant current match and leave out the replaced one");
+    }
+
+    @Test
+    @DisplayName("findEntriesByUsername reads on past replaced buckets to fill the page")
+    void testFindEntriesByUsername() {
+        ReviewEntryMatch replaced = match("replaced", "old-epoch", 0);
+        doReturn(Arrays.asList()).when(repository).findEntriesByUsername("user", null, 2);
+        doReturn(Arrays.asList(match("current", "epoch", 0), replaced))
+                .when(bucketRepository).findEntriesByUsername("user", null, 2);
+        doReturn(Arrays.asList(match("next", "epoch", 0)))
+                .when(bucketRepository).findEntriesByUsername("user", replaced, 1);
+        doReturn(Map.of("reviewId", "epoch")).when(repository).findBucketEpochs(Set.of("reviewId"));
+
+        List<ReviewEntryMatch> entries = service.findEntriesByUsername("user", null, 2);
+
+        Assertions.assertEquals(Set.of("current", "next"),
+                entries.stream().map(ReviewEntryMatch::getUsername).collect(Collectors.toSet()),
+                "The replaced entry should be left out and the next one read in its place");
+    }
+
+    @Test
+    @DisplayName("findRecentEntries merges embedded and bucketed entries newest first")
+    void testFindRecentEntries() {
+        Date since = new Date(0);
+        ReviewEntryMatch embedded = match("embedded", null, 0);
+        embedded.setDate(new Date(2000));
+        ReviewEntryMatch newest = match("newest", "epoch", 0);
+        newest.setDate(new Date(3000));
+        ReviewEntryMatch replaced = match("replaced", "old-epoch", 0);
+        replaced.setDate(new Date(2500));
+        ReviewEntryMatch oldest = match("oldest", "epoch", 0);
+        oldest.setDate(new Date(1000));
+        doReturn(Arrays.asList(embedded)).when(repository).findRecentEntries(since, null, 2);
+        doReturn(Arrays.asList(newest, replaced)).when(bucketRepository).findRecentEntries(since, null, 2);
+        doReturn(Arrays.asList(oldest)).when(bucketRepository).findRecentEntries(since, replaced, 1);
+        doReturn(Map.of("reviewId", "epoch")).when(repository).findBucketEpochs(Set.of("reviewId"));
+
+        List<ReviewEntryMatch> entries = service.findRecentEntries(since, null, 2);
+
+        Assertions.assertEquals(Arrays.asList("newest", "embedded"),
+                entries.stream().map(ReviewEntryMatch::getUsername).collect(Collectors.toList()),
+                "The newest current entries of both sources should be returned in date order");
+    }
+
+    private static ReviewEntryMatch match(String username, String epoch, double score) {
+        ReviewEntryMatch match = new ReviewEntryMatch("reviewId", 1, epoch, new ReviewEntry(username, new Date(), "Great"));
+        match.setScore(score);
+        return match;
+    }
+
+    private static Review secondBucketedReview() {
+        Review review = new Review("secondId", 2, 1);
+        review.setEntryCount(1);
+        review.setBucketEpoch("epoch");
+        return review;
+    }
+
+    private static Review bucketedReview(int version, int entryCount) {
+        Review review = new Review("reviewId", 1, version);
+        review.setEntryCount(entryCount);
+        review.setTotalEntries(entryCount);
+        review.setBucketEpoch("epoch");
+        return review;
+    }
+
+    /**
+     * Returns a bucket whose entries are written by "user" followed by their slot, in the specified order.
+     */
+    private static ReviewEntryBucket bucket(int sequence, int... slots) {
+        ReviewEntryBucket bucket = new ReviewEntryBucket();
+        for (int slot : slots) {
+            bucket.getEntries().add(new ReviewEntryBucket.Entry(slot, new ReviewEntry("user" + slot, new Date(), "Review")));
+        }
+        return bucket;
+    }
+
+    private static List<String> usernames(List<ReviewEntry> entries) {
+        return entries.stream().map(ReviewEntry::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,376 @@
+package com.pluralsight.reviewservice.service;
+
+import com.pluralsight.reviewservice.cache.LoopbackInvalidationTransport;
+import com.pluralsight.reviewservice.cache.ReviewInvalidation;
+import com.pluralsight.reviewservice.cache.ReviewInvalidationBus;
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CachingReviewServiceTest {
+
+    /**
+     * A mock version of the database backed ReviewService.
+     */
+    @Mock
+    private ReviewService delegate;
+
+    /**
+     * The caching service that we want to test.
+     */
+    private CachingReviewService service;
+
+    /**
+     * The transport between this node's cache and the caches of other nodes in the tests.
+     */
+    private LoopbackInvalidationTransport transport;
+
+    /**
+     * The registry of this node's cache meters.
+     */
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void beforeEach() {
+        transport = new LoopbackInvalidationTransport();
+        registry = new SimpleMeterRegistry();
+        service = new CachingReviewService(delegate, 100, Duration.ofMinutes(1),
+                new ReviewInvalidationBus(transport, new SimpleMeterRegistry(), "node-1"), registry);
+    }
+
+    /**
+     * Creates the cache of another node in front of the same database.
+     */
+    private CachingReviewService node(String nodeId) {
+        return new CachingReviewService(delegate, 100, Duration.ofMinutes(1),
+                new ReviewInvalidationBus(transport, new SimpleMeterRegistry(), nodeId), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("findById is served from the cache after the first lookup")
+    void testFindByIdIsCached() {
+        Review mockReview = new Review("reviewId", 1, 1);
+        doReturn(Optional.of(mockReview)).when(delegate).findById("reviewId");
+
+        Optional<Review> first = service.findById("reviewId");
+        Optional<Review> second = service.findById("reviewId");
+
+        Assertions.assertSame(mockReview, first.orElse(null), "The loaded review should be returned");
+        Assertions.assertSame(mockReview, second.orElse(null), "The cached review should be returned");
+        verify(delegate, times(1)).findById("reviewId");
+        Assertions.assertEquals(1, service.getHitCount(), "There should be one cache hit");
+        Assertions.assertEquals(1, service.getMissCount(), "There should be one cache miss");
+    }
+
+    @Test
+    @DisplayName("findByProductId shares cached reviews with findById")
+    void testFindByProductIdSharesCache() {
+        Review mockReview = new Review("reviewId", 1, 1);
+        doReturn(Optional.of(mockReview)).when(delegate).findByProductId(1);
+
+        service.findByProductId(1);
+        Optional<Review> byProduct = service.findByProductId(1);
+        Optional<Review> byId = service.findById("reviewId");
+
+        Assertions.assertSame(mockReview, byProduct.orElse(null), "The cached review should be returned");
+        Assertions.assertSame(mockReview, byId.orElse(null), "The cached review should be returned");
+        verify(delegate, times(1)).findByProductId(1);
+        verify(delegate, times(0)).findById(any());
+    }
+
+    @Test
+    @DisplayName("Product lookups are counted in the product ID cache statistics")
+    void testProductIdStats() {
+        Review mockReview = new Review("reviewId", 1, 1);
+        doReturn(Optional.of(mockReview)).when(delegate).findByProductId(1);
+
+        service.findByProductId(1);
+        service.findByProductId(1);
+
+        Assertions.assertEquals(1, service.getProductIdHitCount(), "The second lookup should find the review ID");
+        Assertions.assertEquals(1, service.getProductIdMissCount(), "The first lookup should not");
+        Assertions.assertEquals(1, service.getProductIdSize());
+
+        // Deleting the review removes its product's mapping
+        service.delete("reviewId");
+        Assertions.assertEquals(0, service.getProductIdSize(), "The product ID mapping should be removed");
+    }
+
+    @Test
+    @DisplayName("Cache statistics are published as meters")
+    void testCacheMeters() {
+        Review mockReview = new Review("reviewId", 1, 1);
+        doReturn(Optional.of(mockReview)).when(delegate).findByProductId(1);
+
+        service.findByProductId(1);
+        service.findByProductId(1);
+
+        Assertions.assertEquals(1, registry.get("cache.gets").tag("cache", "reviews").tag("result", "hit")
+                .functionCounter().count(), "The second lookup should be a review cache hit");
+        Assertions.assertEquals(1, registry.get("cache.gets").tag("cache", "reviewProductIds").tag("result", "miss")
+                .functionCounter().count(), "The first lookup should be a product ID cache miss");
+        Assertions.assertEquals(1, registry.get("cache.size").tag("cache", "reviewProductIds").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Not found reviews are not cached")
+    void testNotFoundIsNotCached() {
+        doReturn(Optional.empty()).when(delegate).findById("reviewId");
+
+        Assertions.assertFalse(service.findById("reviewId").isPresent());
+        Assertions.assertFalse(service.findById("reviewId").isPresent());
+
+        verify(delegate, times(2)).findById("reviewId");
+    }
+
+    @Test
+    @DisplayName("appendEntry drops the cached review, since the appended review comes without its entries")
+    void testAppendEntryInvalidates() {
+        ReviewEntry entry = new ReviewEntry("test-user", new Date(), "Great product");
+        Review original = new Review("reviewId", 1, 1);
+        Review appended = new Review("reviewId", 1, 2);
+        doReturn(Optional.of(original)).when(delegate).findById("reviewId");
+        doReturn(appended).when(delegate).appendEntry(1, entry);
+
+        service.findById("reviewId");
+        service.appendEntry(1, entry);
+        service.findById("reviewId");
+
+        verify(delegate, times(2)).findById("reviewId");
+    }
+
+    @Test
+    @DisplayName("An older version never replaces a newer cached version")
+    void testOlderVersionDoesNotReplaceNewer() {
+        Review written = new Review("reviewId", 1, 5);
+        Review stale = new Review("reviewId", 1, 4);
+        doReturn(written).when(delegate).update(written);
+        doReturn(stale).when(delegate).update(stale);
+
+        service.update(written);
+        Review returned = service.update(stale);
+
+        Assertions.assertSame(written, returned, "The newer cached version should win");
+        Assertions.assertSame(written, service.findById("reviewId").orElse(null),
+                "The newer cached version should still be served");
+    }
+
+    @Test
+    @DisplayName("delete invalidates the cached review")
+    void testDeleteInvalidates() {
+        Review mockReview = new Review("reviewId", 1, 1);
+        doReturn(Optional.of(mockReview)).when(delegate).findById("reviewId");
+        doReturn(Optional.empty()).when(delegate).findByProductId(1);
+
+        service.findById("reviewId");
+        service.delete("reviewId");
+
+        Assertions.assertFalse(service.findByProductId(1).isPresent(), "The product should no longer be cached");
+        service.findById("reviewId");
+        verify(delegate, times(2)).findById("reviewId");
+    }
+
+    @Test
+    @DisplayName("save invalidates the cached review")
+    void testSaveInvalidates() {
+        Review mockReview = new Review("reviewId", 1, 3);
+        Review savedReview = new Review("reviewId", 1, 1);
+        doReturn(Optional.of(mockReview)).when(delegate).findById("reviewId");
+        doReturn(savedReview).when(delegate).save(savedReview);
+
+        service.findById("reviewId");
+        service.save(savedReview);
+        service.findById("reviewId");
+
+        verify(delegate, times(2)).findById("reviewId");
+    }
+
+    @Test
+    @DisplayName("findVersionById is answered from the cache when the review is cached")
+    void testFindVersionByIdFromCache() {
+        Review mockReview = new Review("reviewId", 1, 3);
+        doReturn(Optional.of(mockReview)).when(delegate).findById("reviewId");
+        doReturn(Optional.of(7)).when(delegate).findVersionById("otherId");
+
+        service.findById("reviewId");
+
+        Assertions.assertEquals(Optional.of(3), service.findVersionById("reviewId"), "The cached version should be used");
+        Assertions.assertEquals(Optional.of(7), service.findVersionById("otherId"), "Uncached versions are looked up");
+        verify(delegate, times(0)).findVersionById("reviewId");
+    }
+
+    @Test
+    @DisplayName("findEntries and findSummary slice a cached review in memory")
+    void testEntriesFromCache() {
+        Review mockReview = new Review("reviewId", 1, 3);
+        mockReview.getEntries().add(new ReviewEntry("user1", new Date(), "First"));
+        mockReview.getEntries().add(new ReviewEntry("user2", new Date(), "Second"));
+        mockReview.getEntries().add(new ReviewEntry("user3", new Date(), "Third"));
+        doReturn(Optional.of(mockReview)).when(delegate).findById("reviewId");
+
+        service.findById("reviewId");
+        ReviewEntryPage page = service.findEntries("reviewId", 1, 5, true).orElse(null);
+        ReviewSummary summary = service.findSummary("reviewId", 1).orElse(null);
+
+        Assertions.assertNotNull(page, "The page should be sliced from the cached review");
+        Assertions.assertEquals(3, page.getTotal());
+        Assertions.assertEquals("user2", page.getEntries().get(0).getUsername());
+        Assertions.assertEquals("user1", page.getEntries().get(1).getUsername());
+        Assertions.assertNotNull(summary, "The summary should be built from the cached review");
+        Assertions.assertEquals(3, summary.getEntryCount());
+        Assertions.assertEquals("user3", summary.getLatestEntries().get(0).getUsername());
+        verify(delegate, times(0)).findEntries(any(), anyInt(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("findStats answers cached products from the cache and fetches the rest together")
+    void testStatsFromCache() {
+        Review mockReview = new Review("reviewId", 1, 3);
+        Date now = new Date();
+        mockReview.getEntries().add(new ReviewEntry("test-user", now, "Great product"));
+        doReturn(Optional.of(mockReview)).when(delegate).findByProductId(1);
+        service.findByProductId(1);
+        ReviewStats uncached = new ReviewStats("otherId", 2, 1, 5, now);
+        doReturn(Arrays.asList(uncached)).when(delegate).findStats(Arrays.asList(2));
+
+        List<ReviewStats> stats = service.findStats(Arrays.asList(1, 2));
+
+        Assertions.assertEquals(2, stats.size(), "Both products should have stats");
+        Assertions.assertEquals(1, stats.get(0).getEntryCount(), "The cached review should be counted");
+        Assertions.assertEquals(now, stats.get(0).getLastEntryDate(), "The cached review's latest date should be used");
+        Assertions.assertSame(uncached, stats.get(1), "The uncached product should be fetched");
+    }
+
+    @Test
+    @DisplayName("findByProductIds only loads the products that are not cached")
+    void testFindByProductIdsFromCache() {
+        Review cachedReview = new Review("reviewId", 1, 1);
+        doReturn(Optional.of(cachedReview)).when(delegate).findByProductId(1);
+        service.findByProductId(1);
+        Review loadedReview = new Review("otherId", 2, 1);
+        doReturn(Collections.singletonMap(2, loadedReview)).when(delegate).findByProductIds(Arrays.asList(2, 3));
+
+        Map<Integer, Review> reviews = service.findByProductIds(Arrays.asList(1, 2, 3));
+
+        Assertions.assertEquals(2, reviews.size(), "Products 1 and 2 should have reviews");
+        Assertions.assertSame(cachedReview, reviews.get(1), "The cached review should be returned");
+        Assertions.assertSame(loadedReview, service.findById("otherId").orElse(null), "The loaded review should be cached");
+    }
+
+    @Test
+    @DisplayName("A write on another node drops the older cached version")
+    void testRemoteWriteInvalidates() {
+        CachingReviewService otherNode = node("node-2");
+        Review cachedReview = new Review("reviewId", 1, 1);
+        doReturn(Optional.of(cachedReview)).when(delegate).findById("reviewId");
+        service.findById("reviewId");
+
+        ReviewEntry entry = new ReviewEntry("test-user", new Date(), "Great product");
+        Review updatedReview = new Review("reviewId", 1, 2);
+        doReturn(updatedReview).when(delegate).appendEntry(1, entry);
+        otherNode.appendEntry(1, entry);
+        doReturn(Optional.of(updatedReview)).when(delegate).findById("reviewId");
+
+        Assertions.assertSame(updatedReview, service.findById("reviewId").orElse(null), "The new version should be loaded");
+        verify(delegate, times(2)).findById("reviewId");
+    }
+
+    @Test
+    @DisplayName("An invalidation for an older version keeps the cached review")
+    void testStaleInvalidationIgnored() {
+        Review cachedReview = new Review("reviewId", 1, 3);
+        doReturn(Optional.of(cachedReview)).when(delegate).findById("reviewId");
+        service.findById("reviewId");
+
+        transport.publish(new ReviewInvalidation("node-2", "reviewId", 1, 2, System.currentTimeMillis()));
+
+        Assertions.assertSame(cachedReview, service.findById("reviewId").orElse(null), "The cached review should be kept");
+        verify(delegate, times(1)).findById("reviewId");
+    }
+
+    @Test
+    @DisplayName("A save on another node drops the cached review although it resets the version")
+    void testRemoteSaveInvalidates() {
+        CachingReviewService otherNode = node("node-2");
+        doReturn(Optional.of(new Review("reviewId", 1, 3))).when(delegate).findById("reviewId");
+        service.findById("reviewId");
+
+        Review savedReview = new Review("reviewId", 1, 1);
+        doReturn(savedReview).when(delegate).save(savedReview);
+        otherNode.save(savedReview);
+        doReturn(Optional.of(savedReview)).when(delegate).findById("reviewId");
+
+        Assertions.assertSame(savedReview, service.findById("reviewId").orElse(null), "The saved review should be loaded");
+    }
+
+    @Test
+    @DisplayName("A write on another node only keeps loads of the same review out of the cache")
+    void testRemoteWriteOnlyAffectsItsReview() {
+        Review mockReview = new Review("reviewId", 1, 1);
+        doAnswer(invocation -> {
+            // Another review is written elsewhere while this one is being read
+            transport.publish(new ReviewInvalidation("node-2", "otherId", 2, 5, System.currentTimeMillis()));
+            return Optional.of(mockReview);
+        }).when(delegate).findById("reviewId");
+
+        service.findById("reviewId");
+        service.findById("reviewId");
+
+        verify(delegate, times(1)).findById("reviewId");
+    }
+
+    @Test
+    @DisplayName("A load that raced with a write on another node is not cached")
+    void testRacingLoadIsNotCached() {
+        Review staleReview = new Review("reviewId", 1, 1);
+        doAnswer(invocation -> {
+            transport.publish(new ReviewInvalidation("node-2", "reviewId", 1, 2, System.currentTimeMillis()));
+            return Optional.of(staleReview);
+        }).when(delegate).findById("reviewId");
+
+        service.findById("reviewId");
+        service.findById("reviewId");
+
+        verify(delegate, times(2)).findById("reviewId");
+    }
+
+    @Test
+    @DisplayName("A delete on another node drops the cached review and its product mapping")
+    void testRemoteDeleteInvalidates() {
+        CachingReviewService otherNode = node("node-2");
+        doReturn(Optional.of(new Review("reviewId", 1, 1))).when(delegate).findByProductId(1);
+        service.findByProductId(1);
+
+        otherNode.delete("reviewId");
+        doReturn(Optional.empty()).when(delegate).findByProductId(1);
+
+        Assertions.assertFalse(service.findByProductId(1).isPresent(), "The deleted review should not be served");
+    }
+}
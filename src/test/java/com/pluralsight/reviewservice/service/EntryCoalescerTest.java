@@ -0,0 +1,129 @@
+package com.pluralsight.reviewservice.service;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+class EntryCoalescerTest {
+
+    private SimpleMeterRegistry registry;
+
+    /**
+     * The batches written, in order.
+     */
+    private List<List<ReviewEntry>> writes;
+
+    @BeforeEach
+    void beforeEach() {
+        registry = new SimpleMeterRegistry();
+        writes = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * Writes a batch by returning a review of the product that holds its entries.
+     */
+    private Review write(Integer productId, List<ReviewEntry> entries) {
+        writes.add(new ArrayList<>(entries));
+        Review review = new Review(productId, writes.size());
+        review.getEntries().addAll(entries);
+        return review;
+    }
+
+    /**
+     * Appends an entry per user concurrently, and returns the review each append returned.
+     */
+    private static List<Review> appendConcurrently(EntryCoalescer coalescer, Integer productId, int users)
+            throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        try {
+            List<Future<Review>> futures = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                ReviewEntry entry = new ReviewEntry("user" + i, new Date(), "Review " + i);
+                futures.add(executor.submit(() -> coalescer.append(productId, entry)));
+            }
+            List<Review> reviews = new ArrayList<>();
+            for (Future<Review> future : futures) {
+                reviews.add(future.get());
+            }
+            return reviews;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent appends to a product are written together")
+    void testCoalesce() throws Exception {
+        EntryCoalescer coalescer = new EntryCoalescer(this::write, Duration.ofMillis(500), 10, registry);
+
+        List<Review> reviews = appendConcurrently(coalescer, 1, 10);
+
+        Assertions.assertEquals(1, writes.size(), "A full batch should be written with one update");
+        Assertions.assertEquals(10, writes.get(0).size());
+        for (int i = 0; i < reviews.size(); i++) {
+            String username = "user" + i;
+            Assertions.assertTrue(reviews.get(i).getEntries().stream().anyMatch(e -> e.getUsername().equals(username)),
+                    "Each append should return the review with its entry");
+        }
+        Assertions.assertEquals(10, registry.get("reviews.entries.batch.size").summary().totalAmount());
+        Assertions.assertEquals(0, registry.get("reviews.entries.pending").gauge().value());
+    }
+
+    @Test
+    @DisplayName("A batch is split once it is full")
+    void testMaxBatchSize() throws Exception {
+        EntryCoalescer coalescer = new EntryCoalescer(this::write, Duration.ofMillis(200), 4, registry);
+
+        appendConcurrently(coalescer, 1, 10);
+
+        Assertions.assertTrue(writes.size() >= 3, "10 entries should take at least 3 batches of 4");
+        Assertions.assertTrue(writes.stream().allMatch(batch -> batch.size() <= 4));
+        Assertions.assertEquals(10, writes.stream().mapToInt(List::size).sum(), "Every entry should be written once");
+    }
+
+    @Test
+    @DisplayName("Appends to different products are written separately")
+    void testProducts() {
+        EntryCoalescer coalescer = new EntryCoalescer(this::write, Duration.ofMillis(10), 10, registry);
+
+        Review first = coalescer.append(1, new ReviewEntry("user1", new Date(), "Review 1"));
+        Review second = coalescer.append(2, new ReviewEntry("user2", new Date(), "Review 2"));
+
+        Assertions.assertEquals(2, writes.size());
+        Assertions.assertEquals(1, first.getProductId().intValue());
+        Assertions.assertEquals(2, second.getProductId().intValue());
+    }
+
+    @Test
+    @DisplayName("A failed write fails every append in its batch")
+    void testFailure() throws Exception {
+        BiFunction<Integer, List<ReviewEntry>, Review> failing = (productId, entries) -> {
+            writes.add(entries);
+            throw new DataAccessResourceFailureException("MongoDB is down");
+        };
+        EntryCoalescer coalescer = new EntryCoalescer(failing, Duration.ofMillis(500), 5, registry);
+
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                () -> appendConcurrently(coalescer, 1, 5));
+        Assertions.assertTrue(e.getCause() instanceof DataAccessResourceFailureException,
+                "Callers should see the exception of the write, not a wrapper");
+        Assertions.assertEquals(1, writes.size());
+        Assertions.assertEquals(0, registry.get("reviews.entries.pending").gauge().value());
+    }
+}
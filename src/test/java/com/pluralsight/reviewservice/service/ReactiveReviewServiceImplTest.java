@@ -0,0 +1,61 @@
+package com.pluralsight.reviewservice.service;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.repository.ReactiveReviewRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveReviewServiceImplTest {
+
+    @Mock
+    private ReactiveReviewRepository repository;
+
+    /**
+     * The service that we want to test.
+     */
+    private ReactiveReviewServiceImpl service;
+
+    @BeforeEach
+    void beforeEach() {
+        service = new ReactiveReviewServiceImpl(repository);
+    }
+
+    @Test
+    @DisplayName("save starts a review at version 1 with its aggregates")
+    void testSave() {
+        Review review = new Review(1, 5);
+        Date now = new Date();
+        review.getEntries().add(new ReviewEntry("test-user", now, "Great product"));
+        doAnswer(invocation -> Mono.just(invocation.getArgument(0))).when(repository).save(any(Review.class));
+
+        Review saved = service.save(review).block();
+
+        Assertions.assertEquals(1, saved.getVersion().intValue(), "The version for a new review should be 1");
+        Assertions.assertEquals(1, saved.getTotalEntries().intValue(), "The review should count its entry");
+        Assertions.assertEquals(now, saved.getLastEntryDate(), "The review's latest entry date should be set");
+    }
+
+    @Test
+    @DisplayName("update fails with an OptimisticLockingFailureException for a stale version")
+    void testUpdateStaleVersion() {
+        Review review = new Review("reviewId", 1, 1);
+        doReturn(Mono.empty()).when(repository).compareAndSet(review);
+
+        Assertions.assertThrows(OptimisticLockingFailureException.class, () -> service.update(review).block());
+    }
+}
@@ -10,11 +10,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -66,17 +68,32 @@ class ReviewServiceTest {
     }
 
     @Test
-    @DisplayName("Test findAll")
-    void testFindAll() {
+    @DisplayName("Test findPage")
+    void testFindPage() {
         // Setup our mock
         Review mockReview = new Review("reviewId", 1, 1);
         Review mockReview2 = new Review("reviewId2", 2, 1);
-        doReturn(Arrays.asList(mockReview, mockReview2)).when(repository).findAll();
+        doReturn(Arrays.asList(mockReview, mockReview2)).when(repository).findPage("lastId", 2);
 
         // Execute the service call
-        List<Review> reviews = service.findAll();
+        List<Review> reviews = service.findPage("lastId", 2);
 
-        Assertions.assertEquals(2, reviews.size(), "findAll should return 2 reviews");
+        Assertions.assertEquals(2, reviews.size(), "findPage should return 2 reviews");
+    }
+
+    @Test
+    @DisplayName("Test findByProductIds")
+    void testFindByProductIds() {
+        // Setup our mock
+        Review mockReview = new Review("reviewId", 1, 1);
+        Review mockReview2 = new Review("reviewId2", 2, 1);
+        doReturn(Arrays.asList(mockReview, mockReview2)).when(repository).findByProductIdIn(Arrays.asList(1, 2, 3));
+
+        // Execute the service call
+        Map<Integer, Review> reviews = service.findByProductIds(Arrays.asList(1, 2, 3));
+
+        Assertions.assertEquals(2, reviews.size(), "Only products 1 and 2 have reviews");
+        Assertions.assertSame(mockReview2, reviews.get(2), "Reviews should be keyed by product ID");
     }
 
     @Test
@@ -91,4 +108,40 @@ class ReviewServiceTest {
         Assertions.assertEquals(1, returnedReview.getVersion().intValue(),
                 "The version for a new review should be 1");
     }
+
+    @Test
+    @DisplayName("Test appendEntry")
+    void testAppendEntry() {
+        ReviewEntry entry = new ReviewEntry("test-user", new Date(), "Great product");
+        Review mockReview = new Review("reviewId", 1, 2);
+        mockReview.getEntries().add(entry);
+        doReturn(mockReview).when(repository).appendEntry(1, entry);
+
+        Review returnedReview = service.appendEntry(1, entry);
+
+        Assertions.assertSame(mockReview, returnedReview, "The appended review should be returned");
+        Assertions.assertEquals(2, returnedReview.getVersion().intValue(), "The version should be incremented");
+    }
+
+    @Test
+    @DisplayName("Test update review")
+    void testUpdate() {
+        Review review = new Review("reviewId", 1, 1);
+        Review updatedReview = new Review("reviewId", 1, 2);
+        doReturn(Optional.of(updatedReview)).when(repository).compareAndSet(review);
+
+        Review returnedReview = service.update(review);
+
+        Assertions.assertEquals(2, returnedReview.getVersion().intValue(), "The version should be incremented");
+    }
+
+    @Test
+    @DisplayName("Test update review with a stale version")
+    void testUpdateStaleVersion() {
+        Review review = new Review("staleReviewId", 1, 1);
+        doReturn(Optional.empty()).when(repository).compareAndSet(review);
+
+        Assertions.assertThrows(OptimisticLockingFailureException.class, () -> service.update(review),
+                "Updating a stale version should fail");
+    }
 }
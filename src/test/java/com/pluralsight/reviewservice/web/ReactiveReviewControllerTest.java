@@ -0,0 +1,272 @@
+package com.pluralsight.reviewservice.web;
+
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
+import com.pluralsight.reviewservice.service.ReactiveReviewService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SpringExtension.class)
+@WebFluxTest(ReactiveReviewController.class)
+class ReactiveReviewControllerTest {
+
+    @MockBean
+    private ReactiveReviewService service;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    @DisplayName("GET /review/reviewId - Found")
+    void testGetReviewByIdFound() {
+        // Setup our mocked service
+        Review mockReview = new Review("reviewId", 1, 1);
+        mockReview.getEntries().add(new ReviewEntry("test-user", new Date(), "Great product"));
+        doReturn(Mono.just(mockReview)).when(service).findById("reviewId");
+
+        webTestClient.get().uri("/review/{id}", "reviewId")
+                .exchange()
+
+                // Validate the response code and headers
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "/review/reviewId")
+
+                // Validate the returned fields
+                .expectBody()
+                .jsonPath("$.id").isEqualTo("reviewId")
+                .jsonPath("$.entries.length()").isEqualTo(1)
+                .jsonPath("$.entries[0].username").isEqualTo("test-user");
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId - Not Found")
+    void testGetReviewByIdNotFound() {
+        doReturn(Mono.empty()).when(service).findById("reviewId");
+
+        webTestClient.get().uri("/review/{id}", "reviewId")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId - Not Modified")
+    void testGetReviewByIdNotModified() {
+        doReturn(Mono.just(3)).when(service).findVersionById("reviewId");
+
+        webTestClient.get().uri("/review/{id}", "reviewId")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"");
+
+        verify(service, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId?view=summary")
+    void testGetReviewSummary() {
+        ReviewSummary summary = new ReviewSummary("reviewId", 1, 4, 250,
+                Arrays.asList(new ReviewEntry("user-250", new Date(), "Newest review")));
+        doReturn(Mono.just(summary)).when(service).findSummary("reviewId", 1);
+
+        webTestClient.get().uri("/review/{id}?view=summary&latest=1", "reviewId")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"")
+                .expectBody()
+                .jsonPath("$.entryCount").isEqualTo(250)
+                .jsonPath("$.latestEntries.length()").isEqualTo(1)
+                .jsonPath("$.entries").doesNotExist();
+
+        verify(service, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId/entries - Unsupported sort")
+    void testGetReviewEntriesUnsupportedSort() {
+        webTestClient.get().uri("/review/{id}/entries?sort=username", "reviewId")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("GET /review/1/stats - Not Modified")
+    void testGetReviewStatsNotModified() {
+        doReturn(Mono.just(new ReviewStats("reviewId", 1, 4, 250, new Date()))).when(service).findStats(1);
+
+        webTestClient.get().uri("/review/{productId}/stats", 1)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"4\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"");
+    }
+
+    @Test
+    @DisplayName("GET /users/user/entries - Full page")
+    void testGetUserEntries() {
+        Date date = new Date(1541849906855L);
+        ReviewEntryMatch last = new ReviewEntryMatch("review_2", 2, null, new ReviewEntry("user", date, "Second"));
+        last.setPosition(3);
+        doReturn(Flux.just(new ReviewEntryMatch("review_1", 1, null, new ReviewEntry("user", date, "First")), last))
+                .when(service).findEntriesByUsername(eq("user"), argThat(after ->
+                        after.getDate().getTime() == 1541849906999L && after.getReviewId().equals("review_0")), eq(2));
+
+        webTestClient.get().uri("/users/{username}/entries?after=1541849906999_0_review_0&limit=2", "user")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ReviewController.NEXT_TOKEN_HEADER, "1541849906855_3_review_2")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("POST /reviews/bulk")
+    void testImportReviews() {
+        // The review on line 1 fails to insert
+        doReturn(Mono.just(Arrays.asList(new ReviewImportFailure(1, "duplicate key"))))
+                .when(service).importRecords(argThat((List<ReviewImportRecord> records) -> records.size() == 2
+                        && !records.get(0).isEntry() && records.get(1).isEntry() && records.get(1).getLine() == 4));
+
+        webTestClient.post().uri("/reviews/bulk")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .bodyValue("{\"productId\":1,\"entries\":[]}\n" +
+                        "not json\n" +
+                        "\n" +
+                        "{\"productId\":2,\"entry\":{\"username\":\"test-user\",\"review\":\"Great product\"}}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.records").isEqualTo(3)
+                .jsonPath("$.imported").isEqualTo(1)
+                .jsonPath("$.failed").isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("POST /review - Product already reviewed")
+    void testCreateReviewConflict() {
+        doReturn(Mono.error(new DuplicateKeyException("Product 1 already has a review"))).when(service).save(any());
+
+        webTestClient.post().uri("/review")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"productId\":1,\"entries\":[]}")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    @DisplayName("GET /reviews - Stream NDJSON")
+    void testStreamReviews() {
+        doReturn(Flux.just(new Review("1", 1, 1), new Review("2", 2, 1))).when(service).streamAll();
+
+        webTestClient.get().uri("/reviews")
+                .accept(MediaType.parseMediaType("application/x-ndjson"))
+                .exchange()
+
+                // Validate that each review is written on its own line
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo(
+                        "{\"id\":\"1\",\"productId\":1,\"version\":1,\"entries\":[],\"totalEntries\":null,\"lastEntryDate\":null}\n" +
+                        "{\"id\":\"2\",\"productId\":2,\"version\":1,\"entries\":[],\"totalEntries\":null,\"lastEntryDate\":null}\n");
+    }
+
+    @Test
+    @DisplayName("GET /reviews - First page")
+    void testGetReviewsFirstPage() {
+        doReturn(Flux.just(new Review("1", 1, 1), new Review("2", 2, 1))).when(service).findPage(null, 2);
+
+        webTestClient.get().uri("/reviews?limit=2")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ReviewController.NEXT_TOKEN_HEADER, "Mg")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("GET /reviews - Invalid token")
+    void testGetReviewsInvalidToken() {
+        webTestClient.get().uri("/reviews?after=not-a-token!")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(service, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("POST /review/1/entry")
+    void testAddEntryToReview() {
+        Review mockReview = new Review("reviewId", 1, 2);
+        mockReview.getEntries().add(new ReviewEntry("test-user", new Date(), "Great product"));
+        doReturn(Mono.just(mockReview)).when(service).appendEntry(eq(1), any());
+
+        webTestClient.post().uri("/review/{productId}/entry", 1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"username\":\"test-user\",\"review\":\"Great product\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"")
+                .expectBody()
+                .jsonPath("$.entries[0].username").isEqualTo("test-user");
+    }
+
+    @Test
+    @DisplayName("PUT /review/reviewId - Concurrent update")
+    void testUpdateReviewConcurrentUpdate() {
+        doReturn(Mono.just(2), Mono.just(3)).when(service).findVersionById("reviewId");
+        doReturn(Mono.error(new OptimisticLockingFailureException("Review reviewId is not at version 2")))
+                .when(service).update(any());
+
+        webTestClient.put().uri("/review/{id}", "reviewId")
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"productId\":1,\"entries\":[]}")
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"");
+    }
+
+    @Test
+    @DisplayName("DELETE /review/reviewId - Not Found")
+    void testDeleteReviewNotFound() {
+        doReturn(Mono.empty()).when(service).findVersionById("reviewId");
+
+        webTestClient.delete().uri("/review/{id}", "reviewId")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        verify(service, never()).delete(any());
+    }
+}
@@ -1,10 +1,20 @@
 package com.pluralsight.reviewservice.web;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.pluralsight.reviewservice.model.Review;
 import com.pluralsight.reviewservice.model.ReviewEntry;
+import com.pluralsight.reviewservice.model.ReviewEntryMatch;
+import com.pluralsight.reviewservice.model.ReviewEntryPage;
+import com.pluralsight.reviewservice.model.ReviewImportFailure;
+import com.pluralsight.reviewservice.model.ReviewImportRecord;
+import com.pluralsight.reviewservice.model.ReviewStats;
+import com.pluralsight.reviewservice.model.ReviewSummary;
 import com.pluralsight.reviewservice.service.ReviewService;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,20 +22,43 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -43,6 +76,12 @@ class ReviewControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReviewResponseCache responseCache;
+
     /**
      * Create a DateFormat that we can use to compare SpringMVC returned dates to expected values.
      */
@@ -54,6 +93,12 @@ class ReviewControllerTest {
         df.setTimeZone(TimeZone.getTimeZone("GMT"));
     }
 
+    @BeforeEach
+    void beforeEach() {
+        // The mocked reviews reuse IDs and versions, so responses cached by another test must not be served
+        responseCache.invalidateAll();
+    }
+
     @Test
     @DisplayName("GET /review/reviewId - Found")
     void testGetReviewByIdFound() throws Exception {
@@ -61,6 +106,7 @@ class ReviewControllerTest {
         Review mockReview = new Review("reviewId", 1, 1);
         Date now = new Date();
         mockReview.getEntries().add(new ReviewEntry("test-user", now, "Great product"));
+        doReturn(Optional.of(1)).when(service).findVersionById("reviewId");
         doReturn(Optional.of(mockReview)).when(service).findById("reviewId");
 
         // Execute the GET request
@@ -68,11 +114,12 @@ class ReviewControllerTest {
 
                 // Validate the response code and content type
                 .andExpect(status().isOk())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
 
                 // Validate the headers
                 .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
                 .andExpect(header().string(HttpHeaders.LOCATION, "/review/reviewId"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
 
                 // Validate the returned fields
                 .andExpect(jsonPath("$.id", is("reviewId")))
@@ -87,7 +134,7 @@ class ReviewControllerTest {
     @DisplayName("GET /review/reviewId - Not Found")
     void testGetReviewByIdNotFound() throws Exception {
         // Setup our mocked service
-        doReturn(Optional.empty()).when(service).findById("reviewId");
+        doReturn(Optional.empty()).when(service).findVersionById("reviewId");
 
         // Execute the GET request
         mockMvc.perform(get("/review/{id}", "reviewId"))
@@ -96,6 +143,463 @@ class ReviewControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("GET /review/reviewId - Not Modified")
+    void testGetReviewByIdNotModified() throws Exception {
+        // Setup our mocked service: only the version is looked up
+        doReturn(Optional.of(2)).when(service).findVersionById("reviewId");
+
+        mockMvc.perform(get("/review/{id}", "reviewId")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+
+                // Validate that we get a 304 Not Modified response without a body
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(content().string(""));
+
+        verify(service, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId - Modified since the client's version")
+    void testGetReviewByIdModified() throws Exception {
+        // Setup our mocked service: the client has version 1, the current version is 2
+        Review mockReview = new Review("reviewId", 1, 2);
+        doReturn(Optional.of(2)).when(service).findVersionById("reviewId");
+        doReturn(Optional.of(mockReview)).when(service).findById("reviewId");
+
+        mockMvc.perform(get("/review/{id}", "reviewId")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+
+                // Validate that the current review is returned
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("$.version", is(2)));
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId - Served from the response cache")
+    void testGetReviewByIdCached() throws Exception {
+        // Setup our mocked service
+        Review mockReview = new Review("reviewId", 1, 1);
+        mockReview.getEntries().add(new ReviewEntry("test-user", new Date(), "Great product"));
+        doReturn(Optional.of(1)).when(service).findVersionById("reviewId");
+        doReturn(Optional.of(mockReview)).when(service).findById("reviewId");
+
+        MvcResult first = mockMvc.perform(get("/review/{id}", "reviewId")).andReturn();
+        long hits = responseCache.getHitCount();
+
+        // The same version is written from the cached bytes, without loading the review
+        mockMvc.perform(get("/review/{id}", "reviewId"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(header().string(HttpHeaders.LOCATION, "/review/reviewId"))
+                .andExpect(content().bytes(first.getResponse().getContentAsByteArray()));
+        assertEquals(hits + 1, responseCache.getHitCount());
+        verify(service, times(1)).findById("reviewId");
+
+        // A new version is loaded and serialized again
+        mockReview.setVersion(2);
+        mockReview.getEntries().add(new ReviewEntry("other-user", new Date(), "Still great"));
+        doReturn(Optional.of(2)).when(service).findVersionById("reviewId");
+        long misses = responseCache.getMissCount();
+        mockMvc.perform(get("/review/{id}", "reviewId"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("$.entries.length()", is(2)));
+        assertEquals(misses + 1, responseCache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId - Gzipped")
+    void testGetReviewByIdGzipped() throws Exception {
+        // Setup our mocked service with a review large enough to be gzipped
+        Review mockReview = new Review("reviewId", 1, 1);
+        for (int i = 0; i < 100; i++) {
+            mockReview.getEntries().add(new ReviewEntry("user-" + i, new Date(), "Great product"));
+        }
+        doReturn(Optional.of(1)).when(service).findVersionById("reviewId");
+        doReturn(Optional.of(mockReview)).when(service).findById("reviewId");
+
+        MvcResult result = mockMvc.perform(get("/review/{id}", "reviewId")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+
+        byte[] json;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            json = in.readAllBytes();
+        }
+        Review returned = objectMapper.readValue(json, Review.class);
+        assertEquals("reviewId", returned.getId());
+        assertEquals(100, returned.getEntries().size());
+
+        // Clients that do not accept gzip get the plain JSON
+        mockMvc.perform(get("/review/{id}", "reviewId")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.entries.length()", is(100)));
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId - CBOR")
+    void testGetReviewByIdCbor() throws Exception {
+        // Setup our mocked service
+        Review mockReview = new Review("reviewId", 1, 1);
+        Date now = new Date();
+        mockReview.getEntries().add(new ReviewEntry("test-user", now, "Great product"));
+        doReturn(Optional.of(1)).when(service).findVersionById("reviewId");
+        doReturn(Optional.of(mockReview)).when(service).findById("reviewId");
+
+        MvcResult result = mockMvc.perform(get("/review/{id}", "reviewId").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn();
+
+        // Dates are written as epoch milliseconds
+        JsonNode review = new ObjectMapper(new CBORFactory()).readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("reviewId", review.get("id").asText());
+        assertEquals("test-user", review.get("entries").get(0).get("username").asText());
+        assertEquals(now.getTime(), review.get("entries").get(0).get("date").asLong());
+    }
+
+    @Test
+    @DisplayName("GET /reviews?productId=1 - Not Modified")
+    void testGetReviewsByProductIdNotModified() throws Exception {
+        // Setup our mocked service: only the version is looked up
+        doReturn(Optional.of(3)).when(service).findVersionByProductId(1);
+
+        mockMvc.perform(get("/reviews").param("productId", "1")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"3\""))
+
+                // Validate that we get a 304 Not Modified response without a body
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(content().string(""));
+
+        verify(service, never()).findByProductId(any());
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId?view=summary")
+    void testGetReviewSummary() throws Exception {
+        // Setup our mocked service
+        Date now = new Date();
+        ReviewSummary summary = new ReviewSummary("reviewId", 1, 4, 250,
+                Arrays.asList(new ReviewEntry("user-250", now, "Newest review")));
+        doReturn(Optional.of(summary)).when(service).findSummary("reviewId", 1);
+
+        mockMvc.perform(get("/review/{id}", "reviewId").param("view", "summary").param("latest", "1"))
+
+                // Validate the response code and headers
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+
+                // Validate the returned fields
+                .andExpect(jsonPath("$.id", is("reviewId")))
+                .andExpect(jsonPath("$.entryCount", is(250)))
+                .andExpect(jsonPath("$.latestEntries.length()", is(1)))
+                .andExpect(jsonPath("$.latestEntries[0].username", is("user-250")))
+                .andExpect(jsonPath("$.entries").doesNotExist());
+
+        verify(service, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId/entries")
+    void testGetReviewEntries() throws Exception {
+        // Setup our mocked service
+        Date now = new Date();
+        ReviewEntryPage page = new ReviewEntryPage("reviewId", 1, 4, 250, 20,
+                Arrays.asList(new ReviewEntry("user-230", now, "A review"), new ReviewEntry("user-229", now, "A review")));
+        doReturn(Optional.of(page)).when(service).findEntries("reviewId", 20, 2, true);
+
+        mockMvc.perform(get("/review/{id}/entries", "reviewId")
+                .param("offset", "20")
+                .param("limit", "2")
+                .param("sort", "-date"))
+
+                // Validate the response code and headers
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+
+                // Validate the returned fields
+                .andExpect(jsonPath("$.total", is(250)))
+                .andExpect(jsonPath("$.offset", is(20)))
+                .andExpect(jsonPath("$.entries.length()", is(2)))
+                .andExpect(jsonPath("$.entries[0].username", is("user-230")))
+                .andExpect(jsonPath("$.entries[1].username", is("user-229")));
+    }
+
+    @Test
+    @DisplayName("GET /review/reviewId/entries - Unsupported sort")
+    void testGetReviewEntriesUnsupportedSort() throws Exception {
+        mockMvc.perform(get("/review/{id}/entries", "reviewId").param("sort", "username"))
+
+                // Validate that we get a 400 Bad Request response
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /reviews/search")
+    void testSearchEntries() throws Exception {
+        // Setup our mocked service
+        ReviewEntryMatch match = new ReviewEntryMatch("reviewId", 1, null, new ReviewEntry("user", new Date(), "Great battery"));
+        match.setScore(1.5);
+        doReturn(Arrays.asList(match)).when(service).searchEntries("battery", 20, 10);
+
+        mockMvc.perform(get("/reviews/search")
+                .param("q", "battery")
+                .param("offset", "20"))
+
+                // Validate the response code
+                .andExpect(status().isOk())
+
+                // Validate the returned fields
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].reviewId", is("reviewId")))
+                .andExpect(jsonPath("$[0].productId", is(1)))
+                .andExpect(jsonPath("$[0].score", is(1.5)))
+                .andExpect(jsonPath("$[0].review", is("Great battery")))
+                .andExpect(jsonPath("$[0].epoch").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /reviews/search - Nothing to search for or too deep")
+    void testSearchEntriesBadRequest() throws Exception {
+        mockMvc.perform(get("/reviews/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/reviews/search").param("q", "battery").param("offset", "995"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /users/user/entries - Full page")
+    void testGetUserEntries() throws Exception {
+        // Setup our mocked service with a full page
+        Date date = new Date(1541849906855L);
+        ReviewEntryMatch last = new ReviewEntryMatch("review_2", 2, null, new ReviewEntry("user", date, "Second"));
+        last.setPosition(3);
+        doReturn(Arrays.asList(
+                new ReviewEntryMatch("review-1", 1, null, new ReviewEntry("user", date, "First")),
+                last))
+                .when(service).findEntriesByUsername(eq("user"), argThat(after ->
+                        after.getDate().getTime() == 1541849906999L && after.getPosition() == 0
+                                && after.getReviewId().equals("review_0")), eq(2));
+
+        mockMvc.perform(get("/users/{username}/entries", "user")
+                .param("after", "1541849906999_0_review_0")
+                .param("limit", "2"))
+
+                // Validate the response code and the token for the next page
+                .andExpect(status().isOk())
+                .andExpect(header().string(ReviewController.NEXT_TOKEN_HEADER, "1541849906855_3_review_2"))
+                .andExpect(header().string(HttpHeaders.LINK,
+                        "<http://localhost/users/user/entries?after=1541849906855_3_review_2&limit=2>; rel=\"next\""))
+
+                // Validate the returned fields
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].productId", is(1)))
+                .andExpect(jsonPath("$[1].reviewId", is("review_2")))
+                .andExpect(jsonPath("$[1].position").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /users/user/entries - Invalid token")
+    void testGetUserEntriesInvalidToken() throws Exception {
+        mockMvc.perform(get("/users/{username}/entries", "user").param("after", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /entries/recent - Success")
+    void testGetRecentEntries() throws Exception {
+        // Setup our mocked service with a full page of entries since an hour ago
+        Date since = new Date(System.currentTimeMillis() - 60 * 60 * 1000);
+        DateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+        iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Date date = new Date(since.getTime() + 1000);
+        ReviewEntryMatch last = new ReviewEntryMatch("review-2", 2, null, new ReviewEntry("user2", date, "Second"));
+        last.setPosition(0);
+        doReturn(Arrays.asList(
+                new ReviewEntryMatch("review-1", 1, null, new ReviewEntry("user1", date, "First")),
+                last))
+                .when(service).findRecentEntries(eq(since), eq(null), eq(2));
+
+        mockMvc.perform(get("/entries/recent")
+                .param("since", iso.format(since))
+                .param("limit", "2"))
+
+                // Validate the response code and the token for the next page
+                .andExpect(status().isOk())
+                .andExpect(header().string(ReviewController.NEXT_TOKEN_HEADER, date.getTime() + "_0_review-2"))
+
+                // Validate the returned fields
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].username", is("user1")))
+                .andExpect(jsonPath("$[1].productId", is(2)));
+    }
+
+    @Test
+    @DisplayName("GET /entries/recent - Defaults to the served period")
+    void testGetRecentEntriesDefaultSince() throws Exception {
+        long start = System.currentTimeMillis();
+        doReturn(Collections.emptyList()).when(service).findRecentEntries(any(), any(), eq(10));
+
+        mockMvc.perform(get("/entries/recent"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ReviewController.NEXT_TOKEN_HEADER))
+                .andExpect(jsonPath("$.length()", is(0)));
+
+        // The default max-age is 7 days
+        long maxAge = 7L * 24 * 60 * 60 * 1000;
+        verify(service).findRecentEntries(argThat(since -> since.getTime() >= start - maxAge
+                && since.getTime() <= System.currentTimeMillis() - maxAge), eq(null), eq(10));
+    }
+
+    @Test
+    @DisplayName("GET /entries/recent - Since before the served period")
+    void testGetRecentEntriesTooOld() throws Exception {
+        mockMvc.perform(get("/entries/recent").param("since", "2018-11-10T11:38:26.855Z"))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).findRecentEntries(any(), any(), any(Integer.class));
+    }
+
+    @Test
+    @DisplayName("GET /review/1/stats")
+    void testGetReviewStats() throws Exception {
+        // Setup our mocked service
+        Date now = new Date();
+        doReturn(Optional.of(new ReviewStats("reviewId", 1, 4, 250, now))).when(service).findStats(1);
+
+        mockMvc.perform(get("/review/{productId}/stats", 1))
+
+                // Validate the response code and headers
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+
+                // Validate the returned fields
+                .andExpect(jsonPath("$.productId", is(1)))
+                .andExpect(jsonPath("$.entryCount", is(250)))
+                .andExpect(jsonPath("$.lastEntryDate", is(df.format(now))))
+                .andExpect(jsonPath("$.entries").doesNotExist());
+
+        verify(service, never()).findByProductId(any());
+    }
+
+    @Test
+    @DisplayName("GET /reviews/stats?productId=1,2")
+    void testGetReviewStatsBatch() throws Exception {
+        // Setup our mocked service: product 2 has no review
+        doReturn(Arrays.asList(new ReviewStats("reviewId", 1, 4, 250, new Date())))
+                .when(service).findStats(argThat((Collection<Integer> ids) -> ids.size() == 2 && ids.contains(1) && ids.contains(2)));
+
+        mockMvc.perform(get("/reviews/stats").param("productId", "1,2"))
+
+                // Validate the response code and content
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].productId", is(1)))
+                .andExpect(jsonPath("$[0].entryCount", is(250)));
+    }
+
+    @Test
+    @DisplayName("POST /reviews/batch")
+    void testGetReviewsBatch() throws Exception {
+        // Setup our mocked service: product 3 has no review
+        Map<Integer, Review> reviews = new HashMap<>();
+        reviews.put(1, new Review("reviewId1", 1, 2));
+        reviews.put(2, new Review("reviewId2", 2, 1));
+        doReturn(reviews).when(service).findByProductIds(argThat((Collection<Integer> ids) -> ids.size() == 3));
+
+        mockMvc.perform(post("/reviews/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2, 3]"))
+
+                // Validate the response code and content
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1.id", is("reviewId1")))
+                .andExpect(jsonPath("$.2.id", is("reviewId2")))
+                .andExpect(jsonPath("$.3").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("POST /reviews/batch?view=summary")
+    void testGetReviewsBatchSummary() throws Exception {
+        // Setup our mocked service
+        Date now = new Date();
+        ReviewSummary summary = new ReviewSummary("reviewId", 1, 4, 250,
+                Arrays.asList(new ReviewEntry("user-250", now, "Newest review")));
+        doReturn(Collections.singletonMap(1, summary)).when(service).findSummariesByProductIds(any(), eq(1));
+
+        mockMvc.perform(post("/reviews/batch")
+                .param("view", "summary")
+                .param("latest", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1]"))
+
+                // Validate the response code and content
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1.entryCount", is(250)))
+                .andExpect(jsonPath("$.1.latestEntries[0].username", is("user-250")));
+
+        verify(service, never()).findByProductIds(any());
+    }
+
+    @Test
+    @DisplayName("POST /reviews/bulk")
+    void testImportReviews() throws Exception {
+        // Setup our mocked service: the review on line 1 fails to insert
+        doReturn(Arrays.asList(new ReviewImportFailure(1, "duplicate key")))
+                .when(service).importRecords(argThat((List<ReviewImportRecord> records) -> records.size() == 2
+                        && !records.get(0).isEntry() && records.get(0).getReview().getProductId() == 1
+                        && records.get(1).isEntry() && records.get(1).getProductId() == 2 && records.get(1).getLine() == 3));
+
+        mockMvc.perform(post("/reviews/bulk")
+                .contentType("application/x-ndjson")
+                .content("{\"productId\":1,\"entries\":[]}\n" +
+                        "not json\n" +
+                        "{\"productId\":2,\"entry\":{\"username\":\"test-user\",\"review\":\"Great product\"}}\n" +
+                        "{\"entry\":{\"username\":\"test-user\",\"review\":\"No product\"}}\n"))
+
+                // Validate the response code and report
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.records", is(4)))
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.failed", is(3)))
+                .andExpect(jsonPath("$.failures[*].line", containsInAnyOrder(1, 2, 4)));
+    }
+
+    @Test
+    @DisplayName("POST /reviews/bulk - Invalid records")
+    void testImportReviewsInvalidRecords() throws Exception {
+        doReturn(Collections.emptyList()).when(service).importRecords(argThat((List<ReviewImportRecord> records) ->
+                records.size() == 1 && records.get(0).getLine() == 4));
+
+        mockMvc.perform(post("/reviews/bulk")
+                .contentType("application/x-ndjson")
+                .content("{\"productId\":2,\"entry\":null}\n" +
+                        "{\"productId\":\"two\",\"entry\":{\"username\":\"test-user\",\"review\":\"Great product\"}}\n" +
+                        "{\"productId\":2.5,\"entries\":[]}\n" +
+                        "{\"productId\":2,\"entry\":{\"username\":\"test-user\",\"review\":\"Great product\"}}\n"))
+
+                // Every invalid record is reported on its own, and the valid one is still imported
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.records", is(4)))
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.failures[*].line", containsInAnyOrder(1, 2, 3)))
+                .andExpect(jsonPath("$.failures[0].message", is("entry must be an object")))
+                .andExpect(jsonPath("$.failures[1].message", is("productId must be an integer")));
+    }
+
     @Test
     @DisplayName("POST /review - Success")
     void testCreateReview() throws Exception {
@@ -115,7 +619,7 @@ class ReviewControllerTest {
 
                 // Validate the response code and content type
                 .andExpect(status().isCreated())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
 
                 // Validate the headers
                 .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
@@ -130,21 +634,57 @@ class ReviewControllerTest {
                 .andExpect(jsonPath("$.entries[0].date", is(df.format(now))));
     }
 
+    @Test
+    @DisplayName("POST /review - Drops the cached response of a review with the same ID")
+    void testCreateReviewInvalidatesCachedResponse() throws Exception {
+        // Setup mocked service: a review with the ID is served, then created again, which resets its version
+        Review oldReview = new Review("reviewId", 1, 1);
+        Review newReview = new Review("reviewId", 2, 1);
+        newReview.getEntries().add(new ReviewEntry("test-user", new Date(), "Great product"));
+        doReturn(Optional.of(1)).when(service).findVersionById("reviewId");
+        doReturn(Optional.of(oldReview)).when(service).findById("reviewId");
+        doReturn(newReview).when(service).save(any());
+
+        mockMvc.perform(get("/review/{id}", "reviewId"))
+                .andExpect(jsonPath("$.productId", is(1)));
+        mockMvc.perform(post("/review")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(newReview)))
+                .andExpect(status().isCreated());
+        doReturn(Optional.of(newReview)).when(service).findById("reviewId");
+
+        // The new review is at the same version as the cached response, which must not be served
+        mockMvc.perform(get("/review/{id}", "reviewId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productId", is(2)))
+                .andExpect(jsonPath("$.entries.length()", is(1)));
+    }
+
+    @Test
+    @DisplayName("POST /review - Product already reviewed")
+    void testCreateReviewConflict() throws Exception {
+        // Setup mocked service: the unique productId index rejects a second review of the product
+        doThrow(new DuplicateKeyException("Product 1 already has a review")).when(service).save(any());
+
+        mockMvc.perform(post("/review")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(new Review(1))))
+
+                // Validate the response code
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @DisplayName("POST /review/{productId}/entry")
     void testAddEntryToReview() throws Exception {
         // Setup mocked service
         Date now = new Date();
         ReviewEntry reviewEntry = new ReviewEntry("test-user", now, "Great product");
-        Review mockReview = new Review("1", 1, 1);
         Review returnedReview = new Review("1", 1, 2);
         returnedReview.getEntries().add(reviewEntry);
 
-        // Handle lookup
-        doReturn(Optional.of(mockReview)).when(service).findByProductId(1);
-
-        // Handle save
-        doReturn(returnedReview).when(service).save(any());
+        // Handle the atomic append
+        doReturn(returnedReview).when(service).appendEntry(eq(1), any());
 
         mockMvc.perform(post("/review/{productId}/entry", 1)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -163,6 +703,170 @@ class ReviewControllerTest {
                 .andExpect(jsonPath("$.entries[0].review", is("Great product")));
     }
 
+    @Test
+    @DisplayName("PUT /review/1 - Success")
+    void testUpdateReview() throws Exception {
+        // Setup mocked service
+        Review putReview = new Review(1);
+        putReview.getEntries().add(new ReviewEntry("test-user", new Date(), "Great product"));
+        Review updatedReview = new Review("1", 1, 3);
+        updatedReview.getEntries().add(new ReviewEntry("test-user", new Date(), "Great product"));
+        doReturn(Optional.of(2)).when(service).findVersionById("1");
+        doReturn(updatedReview).when(service).update(any());
+
+        mockMvc.perform(put("/review/{id}", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .content(asJsonString(putReview)))
+
+                // Validate the response code and headers
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.LOCATION, "/review/1"))
+
+                // Validate the returned fields
+                .andExpect(jsonPath("$.id", is("1")))
+                .andExpect(jsonPath("$.version", is(3)))
+                .andExpect(jsonPath("$.entries.length()", is(1)));
+
+        // The update should be conditional on the version from If-Match
+        verify(service).update(argThat(review -> "1".equals(review.getId()) && review.getVersion() == 2));
+    }
+
+    @Test
+    @DisplayName("PUT /review/1 - If-Match does not match")
+    void testUpdateReviewPreconditionFailed() throws Exception {
+        // Setup mocked service: the client has version 1, the current version is 2
+        doReturn(Optional.of(2)).when(service).findVersionById("1");
+
+        mockMvc.perform(put("/review/{id}", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .content(asJsonString(new Review(1))))
+
+                // Validate that we get a 412 with the current version
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+        verify(service, never()).update(any());
+    }
+
+    @Test
+    @DisplayName("PUT /review/1 - Concurrent update")
+    void testUpdateReviewConcurrentUpdate() throws Exception {
+        // Setup mocked service: another writer updates the review between the version check and the write
+        doReturn(Optional.of(2), Optional.of(3)).when(service).findVersionById("1");
+        doThrow(new OptimisticLockingFailureException("Review 1 is not at version 2")).when(service).update(any());
+
+        mockMvc.perform(put("/review/{id}", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .content(asJsonString(new Review(1))))
+
+                // Validate that we get a 412 with the new current version
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    @DisplayName("PUT /review/1 - Not Found")
+    void testUpdateReviewNotFound() throws Exception {
+        // Setup mocked service
+        doReturn(Optional.empty()).when(service).findVersionById("1");
+
+        mockMvc.perform(put("/review/{id}", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .content(asJsonString(new Review(1))))
+
+                // Validate that we get a 404 Not Found response
+                .andExpect(status().isNotFound());
+
+        verify(service, never()).update(any());
+    }
+
+    @Test
+    @DisplayName("GET /reviews - First page")
+    void testGetReviewsFirstPage() throws Exception {
+        // Setup our mocked service to return a full page
+        doReturn(Arrays.asList(new Review("1", 1, 1), new Review("2", 2, 1)))
+                .when(service).findPage(null, 2);
+
+        mockMvc.perform(get("/reviews").param("limit", "2"))
+
+                // Validate the response code and the next page token
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Token", "Mg"))
+                .andExpect(header().string(HttpHeaders.LINK, "<http://localhost/reviews?after=Mg&limit=2>; rel=\"next\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+
+                // Validate the returned reviews
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].id", is("1")))
+                .andExpect(jsonPath("$[1].id", is("2")));
+    }
+
+    @Test
+    @DisplayName("GET /reviews - Last page")
+    void testGetReviewsLastPage() throws Exception {
+        // Setup our mocked service to return a partial page
+        doReturn(Arrays.asList(new Review("3", 3, 1))).when(service).findPage("2", 2);
+
+        mockMvc.perform(get("/reviews").param("after", "Mg").param("limit", "2"))
+
+                // Validate that there is no next page
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Token"))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK))
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].id", is("3")));
+    }
+
+    @Test
+    @DisplayName("GET /reviews - Invalid token")
+    void testGetReviewsInvalidToken() throws Exception {
+        mockMvc.perform(get("/reviews").param("after", "not-a-token!"))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /reviews - Smile")
+    void testGetReviewsSmile() throws Exception {
+        // Setup our mocked service to return a partial page
+        doReturn(Arrays.asList(new Review("3", 3, 1))).when(service).findPage(null, 2);
+
+        MvcResult result = mockMvc.perform(get("/reviews").param("limit", "2").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn();
+
+        Review[] reviews = new ObjectMapper(new SmileFactory())
+                .readValue(result.getResponse().getContentAsByteArray(), Review[].class);
+        assertEquals(1, reviews.length);
+        assertEquals("3", reviews[0].getId());
+    }
+
+    @Test
+    @DisplayName("GET /reviews - Stream NDJSON")
+    void testStreamReviews() throws Exception {
+        // Setup our mocked service to stream two reviews
+        doReturn(Stream.of(new Review("1", 1, 1), new Review("2", 2, 1))).when(service).streamAll();
+
+        MvcResult result = mockMvc.perform(get("/reviews").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Validate that each review is written on its own line
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"id\":\"1\",\"productId\":1,\"version\":1,\"entries\":[],\"totalEntries\":null,\"lastEntryDate\":null}\n" +
+                        "{\"id\":\"2\",\"productId\":2,\"version\":1,\"entries\":[],\"totalEntries\":null,\"lastEntryDate\":null}\n"));
+    }
 
     static String asJsonString(final Object obj) {
         try {
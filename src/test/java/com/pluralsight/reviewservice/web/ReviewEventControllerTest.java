@@ -0,0 +1,85 @@
+package com.pluralsight.reviewservice.web;
+
+import com.pluralsight.reviewservice.model.ReviewEvent;
+import com.pluralsight.reviewservice.repository.ReviewChangeStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReviewEventControllerTest {
+
+    @MockBean
+    private ReviewChangeStream changeStream;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("GET /reviews/events - Streams events until the change stream ends")
+    void testStreamEvents() throws Exception {
+        // Setup our mocked change stream with one event, after which the collection is dropped
+        ReviewChangeStream.Cursor cursor = mock(ReviewChangeStream.Cursor.class);
+        doReturn(new ReviewEvent("token-1", ReviewEvent.Type.CREATED, "reviewId", 1, 1))
+                .doReturn(null)
+                .when(cursor).tryNext();
+        doReturn(true).when(cursor).isInvalidated();
+        doReturn(cursor).when(changeStream).open(eq("token-0"), any());
+
+        MvcResult result = mockMvc.perform(get("/reviews/events")
+                .header(ReviewEventController.LAST_EVENT_ID_HEADER, "token-0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Validate that the event is sent with its resume token as ID
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("id:token-1\n")))
+                .andExpect(content().string(containsString("event:created\n")))
+                .andExpect(content().string(containsString("\"reviewId\":\"reviewId\"")));
+
+        verify(cursor, timeout(1000)).close();
+    }
+
+    @Test
+    @DisplayName("GET /reviews/events - Gone when the stream cannot be resumed")
+    void testStreamEventsGone() throws Exception {
+        doThrow(new ReviewChangeStream.ResumeFailedException("Resume token not found", null))
+                .when(changeStream).open(eq("expired"), any());
+
+        mockMvc.perform(get("/reviews/events").param("after", "expired"))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    @DisplayName("GET /reviews/events - Service Unavailable when the stream cannot be opened")
+    void testStreamEventsUnavailable() throws Exception {
+        doThrow(new DataAccessResourceFailureException("Timed out"))
+                .when(changeStream).open(eq("token-0"), any());
+
+        mockMvc.perform(get("/reviews/events").param("after", "token-0"))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
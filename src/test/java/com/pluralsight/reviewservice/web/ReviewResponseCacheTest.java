@@ -0,0 +1,113 @@
+package com.pluralsight.reviewservice.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReviewResponseCacheTest {
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private ReviewResponseCache cache(DataSize maxSize) {
+        return new ReviewResponseCache(objectMapper, maxSize, true, DataSize.ofKilobytes(1));
+    }
+
+    private static Review review(String id, int version, int entries) {
+        Review review = new Review(id, 1, version);
+        for (int i = 0; i < entries; i++) {
+            review.getEntries().add(new ReviewEntry("user-" + i, new Date(), "Great product"));
+        }
+        return review;
+    }
+
+    @Test
+    @DisplayName("A review is serialized once per version")
+    void testServedPerVersion() throws Exception {
+        ReviewResponseCache cache = cache(DataSize.ofMegabytes(1));
+        Review review = review("reviewId", 1, 1);
+
+        ReviewResponseCache.CachedResponse first = cache.put(review);
+        assertArrayEquals(objectMapper.writeValueAsBytes(review), first.getJson());
+        assertSame(first, cache.get("reviewId", 1));
+        assertEquals(1, cache.getHitCount());
+
+        // A newer version misses and replaces the stored response
+        Review updated = review("reviewId", 2, 2);
+        assertNull(cache.get("reviewId", 2));
+        assertEquals(1, cache.getMissCount());
+        ReviewResponseCache.CachedResponse second = cache.put(updated);
+        assertArrayEquals(objectMapper.writeValueAsBytes(updated), second.getJson());
+        cache.cleanUp();
+        assertEquals(1, cache.getSize());
+        assertEquals(second.size(), cache.getWeightedSize());
+    }
+
+    @Test
+    @DisplayName("A lookup of another version than the stored one is a miss")
+    void testLookupByVersion() {
+        ReviewResponseCache cache = cache(DataSize.ofMegabytes(1));
+        ReviewResponseCache.CachedResponse stored = cache.put(review("reviewId", 1, 1));
+
+        assertNull(cache.get("reviewId", 2));
+        assertNull(cache.get("otherId", 1));
+        assertSame(stored, cache.get("reviewId", 1));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("A stale read does not replace the response for a newer version")
+    void testStaleReadKeepsNewerVersion() {
+        ReviewResponseCache cache = cache(DataSize.ofMegabytes(1));
+        ReviewResponseCache.CachedResponse newer = cache.put(review("reviewId", 2, 2));
+
+        ReviewResponseCache.CachedResponse stale = cache.put(review("reviewId", 1, 1));
+
+        assertEquals(1, stale.getVersion());
+        assertSame(newer, cache.get("reviewId", 2));
+    }
+
+    @Test
+    @DisplayName("Only responses of at least the minimum size are gzipped")
+    void testGzip() throws Exception {
+        ReviewResponseCache cache = cache(DataSize.ofMegabytes(1));
+
+        assertNull(cache.put(review("small", 1, 1)).getGzip());
+
+        ReviewResponseCache.CachedResponse large = cache.put(review("large", 1, 100));
+        assertNotNull(large.getGzip());
+        assertTrue(large.getGzip().length < large.getJson().length);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(large.getGzip()))) {
+            assertArrayEquals(large.getJson(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Responses are evicted to stay within the memory budget")
+    void testMemoryBudget() {
+        ReviewResponseCache cache = cache(DataSize.ofKilobytes(64));
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(review("reviewId" + i, 1, 20));
+        }
+        cache.cleanUp();
+
+        assertTrue(cache.getWeightedSize() <= DataSize.ofKilobytes(64).toBytes());
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.pluralsight.reviewservice.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pluralsight.reviewservice.model.Review;
+import com.pluralsight.reviewservice.model.ReviewEntry;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewWriteLogTest {
+
+    @Mock
+    private Logger logger;
+
+    @Mock
+    private Logger payloadLogger;
+
+    @Mock
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("A written review is logged by its identity and entry count only")
+    void testWrittenLogsSummary() throws Exception {
+        Review review = new Review("reviewId", 1, 3);
+        review.getEntries().add(new ReviewEntry("test-user", new Date(), "Great product"));
+        review.setTotalEntries(5);
+
+        new ReviewWriteLog(logger, payloadLogger, objectMapper, 0).written("entry", review);
+
+        verify(logger).info("review.{}.done id={} productId={} version={} entries={}", "entry", "reviewId", 1, 3, 5);
+        verify(objectMapper, never()).writeValueAsString(any());
+    }
+
+    @Test
+    @DisplayName("A received entry is logged without its text")
+    void testReceivedEntryLogsLength() throws Exception {
+        new ReviewWriteLog(logger, payloadLogger, objectMapper, 0).received(1, new ReviewEntry("test-user", "Great product"));
+
+        verify(logger).info("review.entry productId={} username={} length={}", 1, "test-user", 13);
+        verify(objectMapper, never()).writeValueAsString(any());
+    }
+
+    @Test
+    @DisplayName("Payloads are serialized for sampled writes")
+    void testSampledPayload() throws Exception {
+        Review review = new Review("reviewId", 1, 1);
+
+        new ReviewWriteLog(logger, payloadLogger, objectMapper, 1).written("create", review);
+
+        verify(objectMapper).writeValueAsString(review);
+    }
+
+    @Test
+    @DisplayName("Every payload is serialized when the payload logger is at DEBUG")
+    void testDebugPayload() throws Exception {
+        Review review = new Review("reviewId", 1, 1);
+        doReturn(true).when(payloadLogger).isDebugEnabled();
+        doReturn("{}").when(objectMapper).writeValueAsString(review);
+
+        new ReviewWriteLog(logger, payloadLogger, objectMapper, 0).written("create", review);
+
+        verify(payloadLogger).debug("review.{} payload={}", "create.done", "{}");
+    }
+}